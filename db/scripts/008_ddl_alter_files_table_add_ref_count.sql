@@ -0,0 +1,2 @@
+alter table files add column ref_count int not null default 1;
+create index files_hash_idx on files(hash);
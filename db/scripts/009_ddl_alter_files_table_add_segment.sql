@@ -0,0 +1,3 @@
+alter table files add column segment_id int not null default 0;
+alter table files add column segment_offset bigint not null default 0;
+create index files_segment_id_idx on files(segment_id);
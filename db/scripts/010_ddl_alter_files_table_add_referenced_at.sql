@@ -0,0 +1,4 @@
+alter table files add column referenced_at timestamp not null default current_timestamp;
+create index files_referenced_at_idx on files(referenced_at);
+create index vacancies_file_id_idx on vacancies(file_id);
+create index candidates_file_id_idx on candidates(file_id);
@@ -0,0 +1,9 @@
+create table file_renditions
+(
+    id                serial primary key,
+    file_id           int not null references files(id) on delete cascade,
+    width             int not null,
+    rendition_file_id int not null references files(id) on delete cascade,
+    unique (file_id, width)
+);
+create index file_renditions_rendition_file_id_idx on file_renditions(rendition_file_id);
@@ -0,0 +1,10 @@
+create table http_sessions
+(
+    id                    varchar(64) primary key,
+    creation_time         bigint not null,
+    last_access_time      bigint not null,
+    max_inactive_interval int    not null,
+    expiry_time           bigint not null,
+    attributes            bytea  not null
+);
+create index http_sessions_expiry_time_idx on http_sessions(expiry_time);
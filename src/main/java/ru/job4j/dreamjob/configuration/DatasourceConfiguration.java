@@ -1,9 +1,14 @@
 package ru.job4j.dreamjob.configuration;
 
-import org.apache.commons.dbcp2.BasicDataSource;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.sql2o.Sql2o;
 import org.sql2o.converters.Converter;
 import org.sql2o.converters.ConverterException;
@@ -16,25 +21,52 @@ import java.time.LocalDateTime;
 
 /* конфигурации подключения к бд */
 @Configuration
+@EnableConfigurationProperties(DatasourcePoolProperties.class)
 public class DatasourceConfiguration {
 
+    /* пул подключений к бд с настройками из datasource.pool.*; при старте открывает minIdle подключений */
+    @Bean(initMethod = "warmUp")
+    public InstrumentedDataSource connectionPool(@Value("${datasource.url}") String url,
+                                                 @Value("${datasource.username}") String username,
+                                                 @Value("${datasource.password}") String password,
+                                                 DatasourcePoolProperties pool) {
+        return new InstrumentedDataSource(url, username, password, pool);
+    }
+
+    /* пул с настройками по умолчанию и без прогрева - для тестов репозиториев */
+    public InstrumentedDataSource connectionPool(String url, String username, String password) {
+        var pool = new DatasourcePoolProperties();
+        pool.setWarmUp(false);
+        return new InstrumentedDataSource(url, username, password, pool);
+    }
+
+    /* реплика для чтения, включается заданием datasource.replica.url. настройки пула те же, что у основной БД */
+    @Bean(initMethod = "warmUp")
+    @ConditionalOnProperty("datasource.replica.url")
+    public InstrumentedDataSource replicaConnectionPool(@Value("${datasource.replica.url}") String url,
+                                                        @Value("${datasource.replica.username:${datasource.username}}") String username,
+                                                        @Value("${datasource.replica.password:${datasource.password}}") String password,
+                                                        DatasourcePoolProperties pool) {
+        return new InstrumentedDataSource("replica", url, username, password, pool);
+    }
+
+    /* при заданной реплике репозитории и менеджер транзакций работают через этот источник, см. ReplicaRoutingDataSource */
     @Bean
-    public DataSource connectionPool(@Value("${datasource.url}") String url,
-                                     @Value("${datasource.username}") String username,
-                                     @Value("${datasource.password}") String password) {
-        /* пул подключений к бд */
-        return new BasicDataSource() {
-            {
-                setUrl(url);
-                setUsername(username);
-                setPassword(password);
-            }
-        };
+    @Primary
+    @ConditionalOnProperty("datasource.replica.url")
+    public DataSource routingDataSource(InstrumentedDataSource connectionPool, InstrumentedDataSource replicaConnectionPool) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(connectionPool, replicaConnectionPool));
     }
 
     @Bean
     public Sql2o databaseClient(DataSource dataSource) {
-        return new Sql2o(dataSource, createConverters());
+        return new TransactionAwareSql2o(dataSource, createConverters());
+    }
+
+    /* транзакции объявляются через @Transactional на методах сервисов */
+    @Bean
+    public PlatformTransactionManager transactionManager(DataSource dataSource) {
+        return new DataSourceTransactionManager(dataSource);
     }
 
     private Quirks createConverters() {
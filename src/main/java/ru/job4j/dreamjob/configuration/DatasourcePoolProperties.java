@@ -0,0 +1,161 @@
+package ru.job4j.dreamjob.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/* настройки пула подключений из datasource.pool.*. значения по умолчанию рассчитаны на одно приложение
+перед PostgreSQL с max_connections = 100 */
+@ConfigurationProperties(prefix = "datasource.pool")
+public class DatasourcePoolProperties {
+
+    /* больше подключений пул не откроет, следующие запросы ждут освободившееся */
+    private int maxTotal = 20;
+
+    /* лишние свободные подключения сверх этого числа закрываются при возврате в пул */
+    private int maxIdle = 10;
+
+    /* столько подключений открывается при старте и поддерживается фоновым обходом */
+    private int minIdle = 2;
+
+    /* сколько ждать свободное подключение, прежде чем getConnection упадет с ошибкой */
+    private Duration maxWait = Duration.ofSeconds(5);
+
+    /* проверка подключения (Connection.isValid) перед выдачей и при фоновом обходе */
+    private boolean testOnBorrow = true;
+
+    private boolean testWhileIdle = true;
+
+    private Duration validationTimeout = Duration.ofSeconds(2);
+
+    /* фоновый обход: закрывает подключения, простоявшие дольше minEvictableIdleTime, и проверяет остальные */
+    private Duration timeBetweenEvictionRuns = Duration.ofSeconds(30);
+
+    private Duration minEvictableIdleTime = Duration.ofMinutes(5);
+
+    private int numTestsPerEvictionRun = 3;
+
+    /* подключение закрывается после этого срока, даже если исправно; ноль - без ограничения */
+    private Duration maxConnLifetime = Duration.ofMinutes(30);
+
+    /* кеш подготовленных запросов на каждом подключении: один и тот же SQL не разбирается заново */
+    private boolean poolPreparedStatements = true;
+
+    private int maxOpenPreparedStatements = 100;
+
+    /* открыть minIdle подключений при старте, а не на первых запросах */
+    private boolean warmUp = true;
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(int maxTotal) {
+        this.maxTotal = maxTotal;
+    }
+
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+
+    public void setMaxIdle(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public void setMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+    }
+
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+
+    public void setMaxWait(Duration maxWait) {
+        this.maxWait = maxWait;
+    }
+
+    public boolean isTestOnBorrow() {
+        return testOnBorrow;
+    }
+
+    public void setTestOnBorrow(boolean testOnBorrow) {
+        this.testOnBorrow = testOnBorrow;
+    }
+
+    public boolean isTestWhileIdle() {
+        return testWhileIdle;
+    }
+
+    public void setTestWhileIdle(boolean testWhileIdle) {
+        this.testWhileIdle = testWhileIdle;
+    }
+
+    public Duration getValidationTimeout() {
+        return validationTimeout;
+    }
+
+    public void setValidationTimeout(Duration validationTimeout) {
+        this.validationTimeout = validationTimeout;
+    }
+
+    public Duration getTimeBetweenEvictionRuns() {
+        return timeBetweenEvictionRuns;
+    }
+
+    public void setTimeBetweenEvictionRuns(Duration timeBetweenEvictionRuns) {
+        this.timeBetweenEvictionRuns = timeBetweenEvictionRuns;
+    }
+
+    public Duration getMinEvictableIdleTime() {
+        return minEvictableIdleTime;
+    }
+
+    public void setMinEvictableIdleTime(Duration minEvictableIdleTime) {
+        this.minEvictableIdleTime = minEvictableIdleTime;
+    }
+
+    public int getNumTestsPerEvictionRun() {
+        return numTestsPerEvictionRun;
+    }
+
+    public void setNumTestsPerEvictionRun(int numTestsPerEvictionRun) {
+        this.numTestsPerEvictionRun = numTestsPerEvictionRun;
+    }
+
+    public Duration getMaxConnLifetime() {
+        return maxConnLifetime;
+    }
+
+    public void setMaxConnLifetime(Duration maxConnLifetime) {
+        this.maxConnLifetime = maxConnLifetime;
+    }
+
+    public boolean isPoolPreparedStatements() {
+        return poolPreparedStatements;
+    }
+
+    public void setPoolPreparedStatements(boolean poolPreparedStatements) {
+        this.poolPreparedStatements = poolPreparedStatements;
+    }
+
+    public int getMaxOpenPreparedStatements() {
+        return maxOpenPreparedStatements;
+    }
+
+    public void setMaxOpenPreparedStatements(int maxOpenPreparedStatements) {
+        this.maxOpenPreparedStatements = maxOpenPreparedStatements;
+    }
+
+    public boolean isWarmUp() {
+        return warmUp;
+    }
+
+    public void setWarmUp(boolean warmUp) {
+        this.warmUp = warmUp;
+    }
+
+}
@@ -0,0 +1,123 @@
+package ru.job4j.dreamjob.configuration;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/* Пул подключений DBCP с настройками из DatasourcePoolProperties и метриками: сколько подключений занято,
+свободно, сколько потоков ждут подключение и сколько времени занимает его получение. Рост datasource.pool.waiting
+и среднего времени datasource.pool.borrow при active == max означает, что пул исчерпан */
+public class InstrumentedDataSource extends BasicDataSource implements MeterBinder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(InstrumentedDataSource.class);
+
+    private final LongAdder borrowCount = new LongAdder();
+
+    private final LongAdder borrowNanos = new LongAdder();
+
+    private final LongAdder borrowFailures = new LongAdder();
+
+    private final boolean warmUp;
+
+    private final String name;
+
+    public InstrumentedDataSource(String url, String username, String password, DatasourcePoolProperties pool) {
+        this("primary", url, username, password, pool);
+    }
+
+    /* name - значение тега pool у метрик, чтобы различать пулы основной БД и реплики */
+    public InstrumentedDataSource(String name, String url, String username, String password, DatasourcePoolProperties pool) {
+        this.name = name;
+        setUrl(url);
+        setUsername(username);
+        setPassword(password);
+        setMaxTotal(pool.getMaxTotal());
+        setMaxIdle(pool.getMaxIdle());
+        setMinIdle(pool.getMinIdle());
+        setMaxWaitMillis(pool.getMaxWait().toMillis());
+        setTestOnBorrow(pool.isTestOnBorrow());
+        setTestWhileIdle(pool.isTestWhileIdle());
+        setValidationQueryTimeout((int) pool.getValidationTimeout().toSeconds());
+        setTimeBetweenEvictionRunsMillis(pool.getTimeBetweenEvictionRuns().toMillis());
+        setMinEvictableIdleTimeMillis(pool.getMinEvictableIdleTime().toMillis());
+        setNumTestsPerEvictionRun(pool.getNumTestsPerEvictionRun());
+        setMaxConnLifetimeMillis(pool.getMaxConnLifetime().isZero() ? -1 : pool.getMaxConnLifetime().toMillis());
+        setPoolPreparedStatements(pool.isPoolPreparedStatements());
+        setMaxOpenPreparedStatements(pool.getMaxOpenPreparedStatements());
+        this.warmUp = pool.isWarmUp();
+        if (warmUp) {
+            setInitialSize(pool.getMinIdle());
+        }
+    }
+
+    /* пул создается при первом getConnection; прогрев создает его сразу вместе с minIdle подключениями.
+    если БД при старте недоступна, приложение все равно запускается, а пул создастся на первом запросе */
+    public void warmUp() {
+        if (!warmUp) {
+            return;
+        }
+        try {
+            start();
+            LOG.info("Connection pool {} warmed up with {} connections", name, getNumIdle());
+        } catch (SQLException e) {
+            LOG.warn("Failed to warm up the connection pool {}, connections will be opened on demand", name, e);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        var start = System.nanoTime();
+        try {
+            var connection = super.getConnection();
+            borrowNanos.add(System.nanoTime() - start);
+            borrowCount.increment();
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            borrowFailures.increment();
+            throw e;
+        }
+    }
+
+    /* пул еще не создан - никто и не ждет */
+    public int getNumWaiters() {
+        var pool = getConnectionPool();
+        return pool == null ? 0 : pool.getNumWaiters();
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.sum();
+    }
+
+    public double getBorrowNanos() {
+        return borrowNanos.sum();
+    }
+
+    public long getBorrowFailures() {
+        return borrowFailures.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        var tags = Tags.of("pool", name);
+        Gauge.builder("datasource.pool.active", this, InstrumentedDataSource::getNumActive).tags(tags).register(registry);
+        Gauge.builder("datasource.pool.idle", this, InstrumentedDataSource::getNumIdle).tags(tags).register(registry);
+        Gauge.builder("datasource.pool.waiting", this, InstrumentedDataSource::getNumWaiters).tags(tags).register(registry);
+        Gauge.builder("datasource.pool.max", this, InstrumentedDataSource::getMaxTotal).tags(tags).register(registry);
+        FunctionTimer.builder("datasource.pool.borrow", this, InstrumentedDataSource::getBorrowCount,
+                InstrumentedDataSource::getBorrowNanos, TimeUnit.NANOSECONDS).tags(tags).register(registry);
+        FunctionCounter.builder("datasource.pool.borrow.failures", this, InstrumentedDataSource::getBorrowFailures)
+                .tags(tags).register(registry);
+    }
+
+}
@@ -0,0 +1,69 @@
+package ru.job4j.dreamjob.configuration;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/* Состояние выбора БД для текущего потока, которое учитывает ReplicaRoutingDataSource.
+onPrimary - чтения внутри идут в основную БД, даже если помечены только для чтения.
+startRequest/endRequest - границы запроса: после фиксации пишущей транзакции вызывается onWrite,
+и до конца запроса все чтения тоже идут в основную БД */
+public final class ReplicaRouting {
+
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    private ReplicaRouting() {
+    }
+
+    public static <T> T onPrimary(Supplier<T> action) {
+        var state = STATE.get();
+        state.primaryDepth++;
+        try {
+            return action.get();
+        } finally {
+            state.primaryDepth--;
+        }
+    }
+
+    public static void startRequest(boolean primaryRequired, Runnable onWrite) {
+        var state = STATE.get();
+        state.primaryRequired = primaryRequired;
+        state.onWrite = onWrite;
+    }
+
+    public static void endRequest() {
+        STATE.remove();
+    }
+
+    static boolean isPrimaryRequired() {
+        var state = STATE.get();
+        return state.primaryRequired || state.primaryDepth > 0;
+    }
+
+    /* вызывается, когда пишущая транзакция берет подключение к основной БД */
+    static void markWrite() {
+        var state = STATE.get();
+        if (state.onWrite == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                state.primaryRequired = true;
+                state.onWrite.run();
+            }
+        });
+    }
+
+    private static final class State {
+
+        private boolean primaryRequired;
+
+        private int primaryDepth;
+
+        private Runnable onWrite;
+
+    }
+
+}
@@ -0,0 +1,36 @@
+package ru.job4j.dreamjob.configuration;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/* Транзакции только для чтения (@Transactional(readOnly = true)) идут в реплику, остальное - в основную БД.
+БД выбирается при получении подключения, поэтому перед этим источником должен стоять LazyConnectionDataSourceProxy:
+с ним подключение берется при первом запросе, когда транзакция уже помечена только для чтения.
+Без него менеджер транзакций брал бы подключение раньше, и все шло бы в основную БД */
+class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target {
+        PRIMARY, REPLICA
+    }
+
+    ReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.<Object, Object>of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Target determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return ReplicaRouting.isPrimaryRequired() ? Target.PRIMARY : Target.REPLICA;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            ReplicaRouting.markWrite();
+        }
+        return Target.PRIMARY;
+    }
+
+}
@@ -0,0 +1,14 @@
+package ru.job4j.dreamjob.configuration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+
+/* хранилище сессий: session.store=memory (по умолчанию) - сессии Tomcat в памяти экземпляра,
+session.store=jdbc - сессии в БД через Sql2oSessionRepository, общие для всех экземпляров.
+с jdbc запросы оборачивает SessionRepositoryFilter, и request.getSession() работает с сессиями из БД */
+@Configuration
+@EnableSpringHttpSession
+@ConditionalOnProperty(name = "session.store", havingValue = "jdbc")
+public class SessionConfiguration {
+}
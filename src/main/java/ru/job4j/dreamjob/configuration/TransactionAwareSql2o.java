@@ -0,0 +1,30 @@
+package ru.job4j.dreamjob.configuration;
+
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.sql2o.Connection;
+import org.sql2o.Sql2o;
+import org.sql2o.quirks.Quirks;
+
+import javax.sql.DataSource;
+
+/* Sql2o, который внутри транзакции Spring (@Transactional) отдает репозиториям одно и то же подключение этой
+транзакции, а вне транзакции, как и раньше, берет подключение из пула на каждый sql2o.open().
+Закрытие такого подключения возвращает его транзакции, а не пулу. Откат при закрытии и при ошибке запроса
+для него отключен: фиксирует или откатывает транзакцию только Spring */
+public class TransactionAwareSql2o extends Sql2o {
+
+    public TransactionAwareSql2o(DataSource dataSource, Quirks quirks) {
+        super(new TransactionAwareDataSourceProxy(dataSource), quirks);
+    }
+
+    @Override
+    public Connection open() {
+        var connection = super.open();
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            connection.setRollbackOnClose(false).setRollbackOnException(false);
+        }
+        return connection;
+    }
+
+}
@@ -5,6 +5,8 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.ListFilter;
+import ru.job4j.dreamjob.dto.PageCursor;
 import ru.job4j.dreamjob.model.Candidate;
 import ru.job4j.dreamjob.service.CandidateService;
 import ru.job4j.dreamjob.service.CityService;
@@ -13,6 +15,8 @@ import ru.job4j.dreamjob.service.CityService;
 @RequestMapping("/candidates")
 public class CandidateController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final CandidateService candidateService;
 
     private final CityService cityService;
@@ -22,9 +26,34 @@ public class CandidateController {
         this.cityService = cityService;
     }
 
+    /* список выводится страницами: after - позиция, после которой начинается страница (из ссылки "Дальше").
+    отбор: cityId - город, visible - только видимые, days - созданные за последние days дней */
     @GetMapping
-    public String getAll(Model model) {
-        model.addAttribute("candidates", candidateService.findAll());
+    public String getAll(Model model, @RequestParam(required = false) String after,
+                         @RequestParam(defaultValue = "20") int size,
+                         @RequestParam(defaultValue = "0") int cityId,
+                         @RequestParam(defaultValue = "false") boolean visible,
+                         @RequestParam(defaultValue = "0") int days) {
+        var pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        var filter = ListFilter.of(cityId, visible, days);
+        var page = candidateService.findPage(filter, PageCursor.parse(after).orElse(null), pageSize);
+        model.addAttribute("cities", cityService.findAll());
+        model.addAttribute("cityId", cityId);
+        model.addAttribute("visible", visible);
+        model.addAttribute("days", days);
+        model.addAttribute("candidates", page.getItems());
+        model.addAttribute("page", page);
+        model.addAttribute("size", pageSize);
+        return "candidates/list";
+    }
+
+    /* результаты поиска выводятся тем же списком, одной страницей от самых подходящих */
+    @GetMapping("/search")
+    public String search(Model model, @RequestParam String q, @RequestParam(defaultValue = "20") int size) {
+        var pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        model.addAttribute("candidates", candidateService.search(q, pageSize));
+        model.addAttribute("query", q);
+        model.addAttribute("size", pageSize);
         return "candidates/list";
     }
 
@@ -37,7 +66,7 @@ public class CandidateController {
     @PostMapping("/create")
     public String create(@ModelAttribute Candidate candidate, @RequestParam MultipartFile file, Model model) {
         try {
-            candidateService.save(candidate, new FileDto(file.getOriginalFilename(), file.getBytes()));
+            candidateService.save(candidate, new FileDto(file.getOriginalFilename(), file.getSize(), file));
             return "redirect:/candidates";
         } catch (Exception exception) {
             model.addAttribute("message", exception.getMessage());
@@ -60,7 +89,7 @@ public class CandidateController {
     @PostMapping("/update")
     public String update(@ModelAttribute Candidate candidate, @RequestParam MultipartFile file, Model model) {
         try {
-            var isUpdated = candidateService.update(candidate, new FileDto(file.getOriginalFilename(), file.getBytes()));
+            var isUpdated = candidateService.update(candidate, new FileDto(file.getOriginalFilename(), file.getSize(), file));
             if (!isUpdated) {
                 model.addAttribute("message", "Кандидат с указанным идентификатором не найден");
                 return "errors/404";
@@ -0,0 +1,60 @@
+package ru.job4j.dreamjob.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.job4j.dreamjob.dto.ExportFormat;
+import ru.job4j.dreamjob.service.ExportService;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/* Выгрузка: GET /export/vacancies?format=csv или ?format=ndjson, по умолчанию csv.
+Ответ пишется прямо в поток по мере чтения из БД, без Content-Length */
+@RestController
+@RequestMapping("/export")
+public class ExportController {
+
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping("/vacancies")
+    public void exportVacancies(@RequestParam(defaultValue = "csv") String format,
+                                HttpServletResponse response) throws IOException {
+        export("vacancies", format, response, exportService::exportVacancies);
+    }
+
+    @GetMapping("/candidates")
+    public void exportCandidates(@RequestParam(defaultValue = "csv") String format,
+                                 HttpServletResponse response) throws IOException {
+        export("candidates", format, response, exportService::exportCandidates);
+    }
+
+    private void export(String name, String format, HttpServletResponse response, Exporter exporter)
+            throws IOException {
+        var formatOptional = ExportFormat.of(format);
+        if (formatOptional.isEmpty()) {
+            response.sendError(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+        var exportFormat = formatOptional.get();
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + name + "." + exportFormat.getExtension() + "\"");
+        exporter.export(response.getOutputStream(), exportFormat);
+    }
+
+    @FunctionalInterface
+    private interface Exporter {
+        long export(OutputStream outputStream, ExportFormat format) throws IOException;
+    }
+
+}
@@ -1,34 +1,94 @@
 package ru.job4j.dreamjob.controller;
 
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.service.FileRenditionService;
 import ru.job4j.dreamjob.service.FileService;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/files")
 public class FileController {
 
+    /* содержимое файла по id никогда не меняется, поэтому браузеру можно долго не перезапрашивать его.
+    private - т.к. файлы доступны только авторизованным пользователям и не должны оседать в общих кешах */
+    private static final CacheControl CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(1)).cachePrivate();
+
+    private static final CacheControl FALLBACK_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
     private final FileService fileService;
 
-    public FileController(FileService fileService) {
+    private final FileRenditionService fileRenditionService;
+
+    public FileController(FileService fileService, FileRenditionService fileRenditionService) {
         this.fileService = fileService;
+        this.fileRenditionService = fileRenditionService;
     }
 
     /* Если файл не найден по id, то клиенту возвращается статус 404, а если найден,
-    то статус 200 с телом ответа в виде содержимого файла. */
+    то статус 200 с телом ответа в виде содержимого файла. Содержимое не читается в byte[],
+    а копируется в ответ потоком прямо из файла на диске.
+    ETag и Last-Modified позволяют Spring MVC самому ответить 304 на If-None-Match / If-Modified-Since,
+    а для тела типа Resource он же обрабатывает заголовок Range и отвечает 206 с нужным диапазоном байт. */
     @GetMapping("/{id}")
     public ResponseEntity<?> getById(@PathVariable int id) {
-        Optional<FileDto> contentOptional = fileService.getFileById(id);
-        if (contentOptional.isEmpty()) {
+        return toResponse(String.valueOf(id), fileService.getResourceById(id));
+    }
+
+    /* уменьшенная копия картинки для показа в карточках: /files/{id}?w=320.
+    ETag строится по id отданного файла, поэтому разные w, попавшие на одну копию, получают один и тот же ETag.
+    исходный файл, отданный вместо не готовой еще копии, браузер перепроверяет при каждом показе (no-cache)
+    по ETag исходного файла и получит копию, как только она появится */
+    @GetMapping(value = "/{id}", params = "w")
+    public ResponseEntity<?> getRenditionById(@PathVariable int id, @RequestParam("w") int width) {
+        var renditionOptional = fileRenditionService.getRenditionById(id, width);
+        if (renditionOptional.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(contentOptional.get().getContent());
+        var rendition = renditionOptional.get();
+        return toResponse(String.valueOf(rendition.getFileId()), Optional.of(rendition.getResource()),
+                rendition.isFallback() ? FALLBACK_CACHE_CONTROL : CACHE_CONTROL);
+    }
+
+    private ResponseEntity<?> toResponse(String tag, Optional<Resource> resourceOptional) {
+        return toResponse(tag, resourceOptional, CACHE_CONTROL);
+    }
+
+    private ResponseEntity<?> toResponse(String tag, Optional<Resource> resourceOptional, CacheControl cacheControl) {
+        if (resourceOptional.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        var resource = resourceOptional.get();
+        var lastModified = getLastModified(resource);
+        /* тип задается явно по имени файла, иначе согласование по Accept может подобрать для Resource посторонний тип */
+        var contentType = MediaTypeFactory.getMediaType(resource).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        var response = ResponseEntity.ok().contentType(contentType).cacheControl(cacheControl);
+        if (lastModified.isEmpty()) {
+            return response.eTag(tag).body(resource);
+        }
+        return response.eTag(tag + "-" + lastModified.get())
+                .lastModified(lastModified.get())
+                .body(resource);
+    }
+
+    /* не у каждого Resource есть время изменения (например, у содержимого в памяти) */
+    private Optional<Long> getLastModified(Resource resource) {
+        try {
+            return Optional.of(resource.lastModified());
+        } catch (IOException e) {
+            return Optional.empty();
+        }
     }
 
 }
@@ -0,0 +1,51 @@
+package ru.job4j.dreamjob.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import ru.job4j.dreamjob.dto.ImportFormat;
+import ru.job4j.dreamjob.dto.ImportResult;
+import ru.job4j.dreamjob.service.ImportService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.BiFunction;
+
+/* Массовая загрузка: POST multipart-файла .csv или .json в поле file.
+В ответ JSON с числом сохраненных записей и ошибками по номерам строк */
+@RestController
+@RequestMapping("/import")
+public class ImportController {
+
+    private final ImportService importService;
+
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    @PostMapping("/vacancies")
+    public ResponseEntity<ImportResult> importVacancies(@RequestParam MultipartFile file) throws IOException {
+        return importFile(file, importService::importVacancies);
+    }
+
+    @PostMapping("/candidates")
+    public ResponseEntity<ImportResult> importCandidates(@RequestParam MultipartFile file) throws IOException {
+        return importFile(file, importService::importCandidates);
+    }
+
+    private ResponseEntity<ImportResult> importFile(MultipartFile file,
+                                                    BiFunction<InputStream, ImportFormat, ImportResult> importer)
+            throws IOException {
+        var formatOptional = ImportFormat.of(file.getOriginalFilename(), file.getContentType());
+        if (formatOptional.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        try (var inputStream = file.getInputStream()) {
+            return ResponseEntity.ok(importer.apply(inputStream, formatOptional.get()));
+        }
+    }
+
+}
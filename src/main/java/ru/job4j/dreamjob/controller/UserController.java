@@ -7,11 +7,13 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import ru.job4j.dreamjob.model.User;
+import ru.job4j.dreamjob.service.UserAuthentication;
 import ru.job4j.dreamjob.service.UserService;
 
 import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpServletResponse;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @Controller
 @RequestMapping("/users")
@@ -19,8 +21,11 @@ public class UserController {
 
     private final UserService userService;
 
-    public UserController(UserService userService) {
+    private final UserAuthentication userAuthentication;
+
+    public UserController(UserService userService, UserAuthentication userAuthentication) {
         this.userService = userService;
+        this.userAuthentication = userAuthentication;
     }
 
     @GetMapping("/register")
@@ -29,8 +34,13 @@ public class UserController {
     }
 
     @PostMapping("/register")
-    public String register(Model model, @ModelAttribute User user) {
-        Optional<User> savedUser = userService.save(user);
+    public String register(Model model, @ModelAttribute User user, HttpServletResponse response) {
+        Optional<User> savedUser;
+        try {
+            savedUser = userService.save(user);
+        } catch (RejectedExecutionException e) {
+            return busy(model, response, "users/register");
+        }
         if (savedUser.isEmpty()) {
             model.addAttribute("error", "Пользователь с такой почтой уже существует");
             return "users/register";
@@ -44,20 +54,31 @@ public class UserController {
     }
 
     @PostMapping("/login")
-    public String loginUser(@ModelAttribute User user, Model model, HttpServletRequest request) {
-        var userOptional = userService.findByEmailAndPassword(user.getEmail(), user.getPassword());
+    public String loginUser(@ModelAttribute User user, Model model, HttpServletRequest request, HttpServletResponse response) {
+        Optional<User> userOptional;
+        try {
+            userOptional = userService.findByEmailAndPassword(user.getEmail(), user.getPassword());
+        } catch (RejectedExecutionException e) {
+            return busy(model, response, "users/login");
+        }
         if (userOptional.isEmpty()) {
             model.addAttribute("error", "Почта или пароль введены неверно");
             return "users/login";
         }
-        HttpSession session = request.getSession();
-        session.setAttribute("user", userOptional.get());
+        userAuthentication.login(userOptional.get(), request, response);
         return "redirect:/vacancies";
     }
 
+    private String busy(Model model, HttpServletResponse response, String view) {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", "1");
+        model.addAttribute("error", "Сервер перегружен, повторите попытку через несколько секунд");
+        return view;
+    }
+
     @GetMapping("/logout")
-    public String logout(HttpSession session) {
-        session.invalidate();
+    public String logout(HttpServletRequest request, HttpServletResponse response) {
+        userAuthentication.logout(request, response);
         return "redirect:/users/login";
     }
 }
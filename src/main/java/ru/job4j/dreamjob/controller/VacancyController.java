@@ -5,6 +5,8 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.ListFilter;
+import ru.job4j.dreamjob.dto.PageCursor;
 import ru.job4j.dreamjob.model.Vacancy;
 import ru.job4j.dreamjob.service.CityService;
 import ru.job4j.dreamjob.service.VacancyService;
@@ -13,6 +15,8 @@ import ru.job4j.dreamjob.service.VacancyService;
 @RequestMapping("/vacancies") /* Работать с кандидатами будем по URI /vacancies/** */
 public class VacancyController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final VacancyService vacancyService;
 
     private final CityService cityService;
@@ -22,9 +26,34 @@ public class VacancyController {
         this.cityService = cityService;
     }
 
+    /* список выводится страницами: after - позиция, после которой начинается страница (из ссылки "Дальше").
+    отбор: cityId - город, visible - только видимые, days - созданные за последние days дней */
     @GetMapping
-    public String getAll(Model model) {
-        model.addAttribute("vacancies", vacancyService.findAll());
+    public String getAll(Model model, @RequestParam(required = false) String after,
+                         @RequestParam(defaultValue = "20") int size,
+                         @RequestParam(defaultValue = "0") int cityId,
+                         @RequestParam(defaultValue = "false") boolean visible,
+                         @RequestParam(defaultValue = "0") int days) {
+        var pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        var filter = ListFilter.of(cityId, visible, days);
+        var page = vacancyService.findPage(filter, PageCursor.parse(after).orElse(null), pageSize);
+        model.addAttribute("cities", cityService.findAll());
+        model.addAttribute("cityId", cityId);
+        model.addAttribute("visible", visible);
+        model.addAttribute("days", days);
+        model.addAttribute("vacancies", page.getItems());
+        model.addAttribute("page", page);
+        model.addAttribute("size", pageSize);
+        return "vacancies/list";
+    }
+
+    /* результаты поиска выводятся тем же списком, одной страницей от самых подходящих */
+    @GetMapping("/search")
+    public String search(Model model, @RequestParam String q, @RequestParam(defaultValue = "20") int size) {
+        var pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        model.addAttribute("vacancies", vacancyService.search(q, pageSize));
+        model.addAttribute("query", q);
+        model.addAttribute("size", pageSize);
         return "vacancies/list";
     }
 
@@ -46,7 +75,7 @@ public class VacancyController {
     @PostMapping("/create")
     public String create(@ModelAttribute Vacancy vacancy, @RequestParam MultipartFile file, Model model) {
         try {
-            vacancyService.save(vacancy, new FileDto(file.getOriginalFilename(), file.getBytes()));
+            vacancyService.save(vacancy, new FileDto(file.getOriginalFilename(), file.getSize(), file));
             return "redirect:/vacancies";
         } catch (Exception exception) {
             model.addAttribute("message", exception.getMessage());
@@ -71,7 +100,7 @@ public class VacancyController {
     @PostMapping("/update")
     public String update(@ModelAttribute Vacancy vacancy, @RequestParam MultipartFile file, Model model) {
         try {
-            var isUpdated = vacancyService.update(vacancy, new FileDto(file.getOriginalFilename(), file.getBytes()));
+            var isUpdated = vacancyService.update(vacancy, new FileDto(file.getOriginalFilename(), file.getSize(), file));
             if (!isUpdated) {
                 model.addAttribute("message", "Вакансия с указанным идентификатором не найдена");
                 return "errors/404";
@@ -0,0 +1,34 @@
+package ru.job4j.dreamjob.dto;
+
+import java.util.Optional;
+
+/* формат выгрузки. CSV совпадает с форматом массовой загрузки, NDJSON - один JSON-объект на строку */
+public enum ExportFormat {
+    CSV("text/csv", "csv"), NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static Optional<ExportFormat> of(String extension) {
+        for (var format : values()) {
+            if (format.extension.equalsIgnoreCase(extension)) {
+                return Optional.of(format);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -1,14 +1,31 @@
 package ru.job4j.dreamjob.dto;
 
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
 public class FileDto {
 
     private String name;
 
-    private byte[] content; /*тут кроется различие. доменная модель хранит путь, а не содержимое*/
+    private long size;
+
+    /* тут кроется различие. доменная модель хранит путь, а не содержимое.
+    содержимое хранится не как byte[], а как источник потока, чтобы загружаемый файл (например, MultipartFile)
+    можно было записать в хранилище, не копируя его целиком в память */
+    private InputStreamSource source;
 
     public FileDto(String name, byte[] content) {
+        this(name, content.length, new ByteArrayResource(content));
+    }
+
+    public FileDto(String name, long size, InputStreamSource source) {
         this.name = name;
-        this.content = content;
+        this.size = size;
+        this.source = source;
     }
 
     public String getName() {
@@ -19,12 +36,30 @@ public class FileDto {
         this.name = name;
     }
 
+    public long getSize() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public InputStream getInputStream() throws IOException {
+        return source.getInputStream();
+    }
+
+    /* читает содержимое целиком в память, поэтому подходит только для небольших файлов */
     public byte[] getContent() {
-        return content;
+        try (var inputStream = getInputStream()) {
+            return inputStream.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     public void setContent(byte[] content) {
-        this.content = content;
+        this.size = content.length;
+        this.source = new ByteArrayResource(content);
     }
 
 }
@@ -0,0 +1,21 @@
+package ru.job4j.dreamjob.dto;
+
+import java.util.Optional;
+
+/* формат файла массовой загрузки. CSV - первая строка содержит имена полей, JSON - массив объектов */
+public enum ImportFormat {
+    CSV, JSON;
+
+    /* формат определяется по расширению имени файла, а если его нет - по типу содержимого */
+    public static Optional<ImportFormat> of(String fileName, String contentType) {
+        var name = fileName == null ? "" : fileName.toLowerCase();
+        var type = contentType == null ? "" : contentType.toLowerCase();
+        if (name.endsWith(".csv") || !name.endsWith(".json") && type.startsWith("text/csv")) {
+            return Optional.of(CSV);
+        }
+        if (name.endsWith(".json") || type.startsWith("application/json")) {
+            return Optional.of(JSON);
+        }
+        return Optional.empty();
+    }
+}
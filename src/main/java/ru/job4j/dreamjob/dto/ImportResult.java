@@ -0,0 +1,51 @@
+package ru.job4j.dreamjob.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/* итог массовой загрузки: сколько строк сохранено и почему не сохранены остальные.
+строки нумеруются с 1 в порядке следования записей в загруженном файле, заголовок CSV не считается */
+public class ImportResult {
+
+    private int imported;
+
+    private final List<RowError> errors = new ArrayList<>();
+
+    public int getImported() {
+        return imported;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public void addImported(int count) {
+        imported += count;
+    }
+
+    public void addError(int row, String message) {
+        errors.add(new RowError(row, message));
+    }
+
+    public static class RowError {
+
+        private final int row;
+
+        private final String message;
+
+        public RowError(int row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+    }
+
+}
@@ -0,0 +1,58 @@
+package ru.job4j.dreamjob.dto;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/* отбор записей в списке: город (0 - любой), только видимые и созданные не раньше createdAfter (null - когда угодно).
+отбор выполняет репозиторий, в Sql2o-реализации - условиями запроса по индексу (city_id, visible, creation_date) */
+public class ListFilter {
+
+    public static final ListFilter NONE = new ListFilter(0, false, null);
+
+    private final int cityId;
+
+    private final boolean visibleOnly;
+
+    private final LocalDateTime createdAfter;
+
+    public ListFilter(int cityId, boolean visibleOnly, LocalDateTime createdAfter) {
+        this.cityId = cityId;
+        this.visibleOnly = visibleOnly;
+        this.createdAfter = createdAfter;
+    }
+
+    /* из параметров списка: days - "за последние N дней", 0 - без ограничения */
+    public static ListFilter of(int cityId, boolean visibleOnly, int days) {
+        return new ListFilter(cityId, visibleOnly, days <= 0 ? null : LocalDateTime.now().minusDays(days));
+    }
+
+    public int getCityId() {
+        return cityId;
+    }
+
+    public boolean isVisibleOnly() {
+        return visibleOnly;
+    }
+
+    public LocalDateTime getCreatedAfter() {
+        return createdAfter;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ListFilter that = (ListFilter) o;
+        return cityId == that.cityId && visibleOnly == that.visibleOnly && Objects.equals(createdAfter, that.createdAfter);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cityId, visibleOnly, createdAfter);
+    }
+
+}
@@ -0,0 +1,39 @@
+package ru.job4j.dreamjob.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/* страница списка и позиция, с которой начинается следующая. next == null - это последняя страница */
+public class Page<T> {
+
+    private final List<T> items;
+
+    private final PageCursor next;
+
+    public Page(List<T> items, PageCursor next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    /* из limit + 1 строк, прочитанных репозиторием: лишняя строка только показывает, что есть следующая страница */
+    public static <T> Page<T> of(List<T> rows, int limit, Function<T, PageCursor> cursor) {
+        if (rows.size() <= limit) {
+            return new Page<>(rows, null);
+        }
+        var items = rows.subList(0, limit);
+        return new Page<>(items, cursor.apply(items.get(limit - 1)));
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public PageCursor getNext() {
+        return next;
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+
+}
@@ -0,0 +1,72 @@
+package ru.job4j.dreamjob.dto;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+import java.util.Optional;
+
+/* позиция в списке, упорядоченном по убыванию (creation_date, id): следующая страница начинается со строк строго после нее.
+в отличие от OFFSET, база не перебирает пропущенные строки, а сразу находит позицию по индексу,
+и страницы не съезжают, когда в начало списка добавляются новые записи */
+public class PageCursor {
+
+    private static final char SEPARATOR = '_';
+
+    private final LocalDateTime creationDate;
+
+    private final int id;
+
+    public PageCursor(LocalDateTime creationDate, int id) {
+        this.creationDate = creationDate;
+        this.id = id;
+    }
+
+    /* empty для пустой или испорченной строки - тогда показывается первая страница */
+    public static Optional<PageCursor> parse(String value) {
+        if (value == null) {
+            return Optional.empty();
+        }
+        var separatorIndex = value.lastIndexOf(SEPARATOR);
+        if (separatorIndex < 0) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new PageCursor(LocalDateTime.parse(value.substring(0, separatorIndex)),
+                    Integer.parseInt(value.substring(separatorIndex + 1))));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    public LocalDateTime getCreationDate() {
+        return creationDate;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /* значение параметра after в ссылке на следующую страницу */
+    @Override
+    public String toString() {
+        return creationDate.toString() + SEPARATOR + id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PageCursor that = (PageCursor) o;
+        return id == that.id && Objects.equals(creationDate, that.creationDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(creationDate, id);
+    }
+
+}
@@ -0,0 +1,33 @@
+package ru.job4j.dreamjob.dto;
+
+import org.springframework.core.io.Resource;
+
+/* то, что отдается по /files/{id}?w=...: fileId - id отданного файла (копии или исходного).
+fallback - исходный файл отдан только потому, что копия еще не готова: его нельзя надолго кешировать по адресу копии */
+public class RenditionDto {
+
+    private final int fileId;
+
+    private final Resource resource;
+
+    private final boolean fallback;
+
+    public RenditionDto(int fileId, Resource resource, boolean fallback) {
+        this.fileId = fileId;
+        this.resource = resource;
+        this.fallback = fallback;
+    }
+
+    public int getFileId() {
+        return fileId;
+    }
+
+    public Resource getResource() {
+        return resource;
+    }
+
+    public boolean isFallback() {
+        return fallback;
+    }
+
+}
@@ -0,0 +1,54 @@
+package ru.job4j.dreamjob.dto;
+
+import ru.job4j.dreamjob.model.User;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/* вошедший пользователь между запросами: id и имя для шапки страниц, без почты и пароля.
+хранится в сессии или в cookie; остальное при необходимости читается через UserService.findById */
+public final class UserPrincipal implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final UserPrincipal GUEST = new UserPrincipal(0, "Гость");
+
+    private final int id;
+
+    private final String name;
+
+    public UserPrincipal(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public static UserPrincipal of(User user) {
+        return new UserPrincipal(user.getId(), user.getName());
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        UserPrincipal that = (UserPrincipal) o;
+        return id == that.id && Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name);
+    }
+
+}
@@ -2,6 +2,7 @@ package ru.job4j.dreamjob.filter;
 
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
+import ru.job4j.dreamjob.service.UserAuthentication;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -14,6 +15,12 @@ import java.io.IOException;
 @Order(1)
 public class AuthorizationFilter extends HttpFilter {
 
+    private final UserAuthentication userAuthentication;
+
+    public AuthorizationFilter(UserAuthentication userAuthentication) {
+        this.userAuthentication = userAuthentication;
+    }
+
     @Override
     protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws IOException, ServletException {
         String uri = request.getRequestURI();
@@ -21,7 +28,7 @@ public class AuthorizationFilter extends HttpFilter {
             chain.doFilter(request, response);
             return;
         }
-        boolean userLoggedIn = request.getSession().getAttribute("user") != null;
+        boolean userLoggedIn = userAuthentication.getPrincipal(request).isPresent();
         if (!userLoggedIn) {
             var loginPageUrl = request.getContextPath() + "/users/login";
             response.sendRedirect(loginPageUrl);
@@ -0,0 +1,72 @@
+package ru.job4j.dreamjob.filter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import ru.job4j.dreamjob.configuration.ReplicaRouting;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+/* Чтение своих изменений при работе с репликой. Реплика отстает от основной БД, поэтому после изменения
+браузер datasource.replica.sticky-period читает только из основной БД: иначе после сохранения вакансии
+список мог бы открыться еще без нее. Срок хранится в короткоживущей cookie, а не в сессии: так он работает
+и без сессии (auth.mode=cookie), и на любом экземпляре приложения. Подделка cookie только отправит чтения
+в основную БД. Cookie ставится сразу после фиксации транзакции, пока ответ еще не отправлен */
+@Component
+@Order(3)
+@ConditionalOnProperty("datasource.replica.url")
+public class ReplicaStickinessFilter extends HttpFilter {
+
+    static final String COOKIE_NAME = "dreamjob_primary_until";
+
+    private final Duration stickyPeriod;
+
+    public ReplicaStickinessFilter(@Value("${datasource.replica.sticky-period:PT5S}") Duration stickyPeriod) {
+        this.stickyPeriod = stickyPeriod;
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws IOException, ServletException {
+        ReplicaRouting.startRequest(getPrimaryUntil(request) > System.currentTimeMillis(), () -> {
+            var primaryUntil = System.currentTimeMillis() + stickyPeriod.toMillis();
+            var cookie = ResponseCookie.from(COOKIE_NAME, Long.toString(primaryUntil))
+                    .path("/")
+                    .httpOnly(true)
+                    .maxAge(stickyPeriod.plusSeconds(1))
+                    .build();
+            response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+        });
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReplicaRouting.endRequest();
+        }
+    }
+
+    private long getPrimaryUntil(HttpServletRequest request) {
+        var cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (var cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+}
@@ -2,34 +2,35 @@ package ru.job4j.dreamjob.filter;
 
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
-import ru.job4j.dreamjob.model.User;
+import ru.job4j.dreamjob.dto.UserPrincipal;
+import ru.job4j.dreamjob.service.UserAuthentication;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpFilter;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 import java.io.IOException;
 
+/* кладет в запрос вошедшего пользователя или гостя. для гостя сессия не создается */
 @Component
 @Order(2)
 public class SessionFilter extends HttpFilter {
 
+    private final UserAuthentication userAuthentication;
+
+    public SessionFilter(UserAuthentication userAuthentication) {
+        this.userAuthentication = userAuthentication;
+    }
+
     @Override
     protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws IOException, ServletException {
-        HttpSession session = request.getSession();
-        addUserToSession(session, request);
+        addUserToRequest(request);
         chain.doFilter(request, response);
     }
 
-    private void addUserToSession(HttpSession session, HttpServletRequest request) {
-        User user = (User) session.getAttribute("user");
-        if (user == null) {
-            user = new User();
-            user.setName("Гость");
-        }
-        request.setAttribute("user", user);
+    private void addUserToRequest(HttpServletRequest request) {
+        request.setAttribute("user", userAuthentication.getPrincipal(request).orElse(UserPrincipal.GUEST));
     }
 
 }
@@ -1,5 +1,7 @@
 package ru.job4j.dreamjob.model;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Objects;
 
 public class File {
@@ -10,11 +12,45 @@ public class File {
 
     private String path;
 
+    private long size;
+
+    /* SHA-256 содержимого в hex, считается при записи файла в хранилище */
+    private String hash;
+
+    /* сколько вакансий и кандидатов ссылаются на файл. при совпадении содержимого запись используется повторно */
+    private int referenceCount = 1;
+
+    /* номер pack-сегмента и смещение содержимого в нем. 0 - файл хранится отдельным файлом по path */
+    private int segmentId;
+
+    private long segmentOffset;
+
+    /* время сохранения или последнего повторного использования записи. файлы, к которым обращались позже
+    начала периода ожидания, не считаются потерянными, даже если на них еще никто не ссылается */
+    private LocalDateTime referencedAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
     public File(String name, String path) {
         this.name = name;
         this.path = path;
     }
 
+    public File(String name, String path, long size, String hash) {
+        this.name = name;
+        this.path = path;
+        this.size = size;
+        this.hash = hash;
+    }
+
+    public File(int id, String name, String path, long size, String hash, int referenceCount,
+                int segmentId, long segmentOffset, LocalDateTime referencedAt) {
+        this(name, path, size, hash);
+        this.id = id;
+        this.referenceCount = referenceCount;
+        this.segmentId = segmentId;
+        this.segmentOffset = segmentOffset;
+        this.referencedAt = referencedAt;
+    }
+
     public int getId() {
         return id;
     }
@@ -39,6 +75,54 @@ public class File {
         this.path = path;
     }
 
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public int getReferenceCount() {
+        return referenceCount;
+    }
+
+    public void setReferenceCount(int referenceCount) {
+        this.referenceCount = referenceCount;
+    }
+
+    public int getSegmentId() {
+        return segmentId;
+    }
+
+    public void setSegmentId(int segmentId) {
+        this.segmentId = segmentId;
+    }
+
+    public long getSegmentOffset() {
+        return segmentOffset;
+    }
+
+    public void setSegmentOffset(long segmentOffset) {
+        this.segmentOffset = segmentOffset;
+    }
+
+    public LocalDateTime getReferencedAt() {
+        return referencedAt;
+    }
+
+    public void setReferencedAt(LocalDateTime referencedAt) {
+        this.referencedAt = referencedAt;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,81 @@
+package ru.job4j.dreamjob.model;
+
+import java.util.Objects;
+
+/* уменьшенная копия картинки заданной ширины. сама копия хранится обычным файлом.
+renditionFileId, равный fileId, означает, что копии не будет (это не картинка или она и так не шире нужного)
+и вместо нее всегда отдается исходный файл */
+public class FileRendition {
+
+    private int id;
+
+    private int fileId;
+
+    private int width;
+
+    private int renditionFileId;
+
+    public FileRendition() {
+    }
+
+    public FileRendition(int fileId, int width, int renditionFileId) {
+        this.fileId = fileId;
+        this.width = width;
+        this.renditionFileId = renditionFileId;
+    }
+
+    public FileRendition(int id, int fileId, int width, int renditionFileId) {
+        this(fileId, width, renditionFileId);
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(int fileId) {
+        this.fileId = fileId;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public void setWidth(int width) {
+        this.width = width;
+    }
+
+    public int getRenditionFileId() {
+        return renditionFileId;
+    }
+
+    public void setRenditionFileId(int renditionFileId) {
+        this.renditionFileId = renditionFileId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        FileRendition that = (FileRendition) o;
+        return id == that.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+}
@@ -22,6 +22,11 @@ public class User {
         this.password = password;
     }
 
+    public User(int id, String email, String name, String password) {
+        this(email, name, password);
+        this.id = id;
+    }
+
     public int getId() {
         return id;
     }
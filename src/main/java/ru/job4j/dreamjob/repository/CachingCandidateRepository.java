@@ -0,0 +1,117 @@
+package ru.job4j.dreamjob.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import ru.job4j.dreamjob.configuration.ReplicaRouting;
+import ru.job4j.dreamjob.dto.CandidateSummary;
+import ru.job4j.dreamjob.dto.ListFilter;
+import ru.job4j.dreamjob.dto.PageCursor;
+import ru.job4j.dreamjob.model.Candidate;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/* Кеш кандидатов по id перед Sql2oCandidateRepository: страница кандидата читает БД только при первом запросе.
+Изменения идут в БД и сразу в кеш, подробности согласования с чтениями - в EntityCache.
+Списки не кешируются: они постранично читаются из БД */
+@Repository
+@Primary
+@ThreadSafe
+@ConditionalOnProperty(name = "entity.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class CachingCandidateRepository implements CandidateRepository, MeterBinder {
+
+    private final CandidateRepository candidateRepository;
+
+    private final EntityCache<Candidate> cache;
+
+    public CachingCandidateRepository(CandidateRepository sql2oCandidateRepository,
+                                      @Value("${entity.cache.max-size:10000}") int maxSize) {
+        this.candidateRepository = sql2oCandidateRepository;
+        this.cache = new EntityCache<>(maxSize, candidate -> new Candidate(candidate.getId(), candidate.getName(),
+                candidate.getDescription(), candidate.getCreationDate(), candidate.getVisible(), candidate.getCityId(), candidate.getFileId()));
+    }
+
+    @Override
+    public Candidate save(Candidate candidate) {
+        var saved = candidateRepository.save(candidate);
+        var writeStart = cache.startWrite(saved.getId());
+        cache.endWrite(saved.getId(), writeStart, saved);
+        return saved;
+    }
+
+    /* загруженные списком записи в кеш не кладутся: их вряд ли сразу начнут открывать */
+    @Override
+    public Collection<Candidate> saveAll(Collection<Candidate> candidates) {
+        return candidateRepository.saveAll(candidates);
+    }
+
+    @Override
+    public boolean deleteById(int id) {
+        var writeStart = cache.startWrite(id);
+        try {
+            return candidateRepository.deleteById(id);
+        } finally {
+            cache.endWrite(id, writeStart, null);
+        }
+    }
+
+    /* мимо кеша: значение нужно для освобождения файла, устаревшее удалило бы чужую ссылку */
+    @Override
+    public Optional<Integer> findFileIdForUpdate(int id) {
+        return candidateRepository.findFileIdForUpdate(id);
+    }
+
+    @Override
+    public boolean update(Candidate candidate) {
+        var writeStart = cache.startWrite(candidate.getId());
+        var isUpdated = false;
+        try {
+            isUpdated = candidateRepository.update(candidate);
+            return isUpdated;
+        } finally {
+            cache.endWrite(candidate.getId(), writeStart, isUpdated ? candidate : null);
+        }
+    }
+
+    /* промах читается из основной БД: отставшая реплика положила бы в кеш старое значение надолго */
+    @Override
+    public Optional<Candidate> findById(int id) {
+        var cached = cache.get(id);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        var loadStart = cache.startLoad();
+        var candidateOptional = ReplicaRouting.onPrimary(() -> candidateRepository.findById(id));
+        candidateOptional.ifPresent(candidate -> cache.putLoaded(id, candidate, loadStart));
+        return candidateOptional;
+    }
+
+    @Override
+    public Collection<Candidate> findAll() {
+        return candidateRepository.findAll();
+    }
+
+    /* мимо кеша: выгрузка всех записей вытеснила бы из него часто запрашиваемые */
+    @Override
+    public void forEach(int fetchSize, Consumer<Candidate> action) {
+        candidateRepository.forEach(fetchSize, action);
+    }
+
+    @Override
+    public List<CandidateSummary> findPage(ListFilter filter, PageCursor after, int limit) {
+        return candidateRepository.findPage(filter, after, limit);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        cache.bindTo(registry, "candidates");
+    }
+
+}
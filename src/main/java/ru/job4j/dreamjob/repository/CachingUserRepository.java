@@ -0,0 +1,76 @@
+package ru.job4j.dreamjob.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import ru.job4j.dreamjob.model.User;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Optional;
+
+/* Кеш пользователей по id перед Sql2oUserRepository. В сессии хранится только UserPrincipal,
+полная запись пользователя читается по id и почти всегда находится здесь.
+Поиск по почте при входе идет мимо кеша, в БД */
+@Repository
+@Primary
+@ThreadSafe
+@ConditionalOnProperty(name = "entity.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class CachingUserRepository implements UserRepository, MeterBinder {
+
+    private final UserRepository userRepository;
+
+    private final EntityCache<User> cache;
+
+    public CachingUserRepository(UserRepository sql2oUserRepository,
+                                 @Value("${user.cache.max-size:1000}") int maxSize) {
+        this.userRepository = sql2oUserRepository;
+        this.cache = new EntityCache<>(maxSize,
+                user -> new User(user.getId(), user.getEmail(), user.getName(), user.getPassword()));
+    }
+
+    @Override
+    public Optional<User> save(User user) {
+        var saved = userRepository.save(user);
+        saved.ifPresent(value -> {
+            var writeStart = cache.startWrite(value.getId());
+            cache.endWrite(value.getId(), writeStart, value);
+        });
+        return saved;
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return userRepository.findByEmail(email);
+    }
+
+    @Override
+    public Optional<User> findById(int id) {
+        var cached = cache.get(id);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        var loadStart = cache.startLoad();
+        var userOptional = userRepository.findById(id);
+        userOptional.ifPresent(user -> cache.putLoaded(id, user, loadStart));
+        return userOptional;
+    }
+
+    @Override
+    public boolean updatePassword(int id, String password) {
+        var writeStart = cache.startWrite(id);
+        try {
+            return userRepository.updatePassword(id, password);
+        } finally {
+            cache.endWrite(id, writeStart, null);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        cache.bindTo(registry, "users");
+    }
+
+}
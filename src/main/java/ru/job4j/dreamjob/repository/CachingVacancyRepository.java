@@ -0,0 +1,117 @@
+package ru.job4j.dreamjob.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import ru.job4j.dreamjob.configuration.ReplicaRouting;
+import ru.job4j.dreamjob.dto.VacancySummary;
+import ru.job4j.dreamjob.dto.ListFilter;
+import ru.job4j.dreamjob.dto.PageCursor;
+import ru.job4j.dreamjob.model.Vacancy;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/* Кеш вакансий по id перед Sql2oVacancyRepository: страница вакансии читает БД только при первом запросе.
+Изменения идут в БД и сразу в кеш, подробности согласования с чтениями - в EntityCache.
+Списки не кешируются: они постранично читаются из БД */
+@Repository
+@Primary
+@ThreadSafe
+@ConditionalOnProperty(name = "entity.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class CachingVacancyRepository implements VacancyRepository, MeterBinder {
+
+    private final VacancyRepository vacancyRepository;
+
+    private final EntityCache<Vacancy> cache;
+
+    public CachingVacancyRepository(VacancyRepository sql2oVacancyRepository,
+                                    @Value("${entity.cache.max-size:10000}") int maxSize) {
+        this.vacancyRepository = sql2oVacancyRepository;
+        this.cache = new EntityCache<>(maxSize, vacancy -> new Vacancy(vacancy.getId(), vacancy.getTitle(),
+                vacancy.getDescription(), vacancy.getCreationDate(), vacancy.getVisible(), vacancy.getCityId(), vacancy.getFileId()));
+    }
+
+    @Override
+    public Vacancy save(Vacancy vacancy) {
+        var saved = vacancyRepository.save(vacancy);
+        var writeStart = cache.startWrite(saved.getId());
+        cache.endWrite(saved.getId(), writeStart, saved);
+        return saved;
+    }
+
+    /* загруженные списком записи в кеш не кладутся: их вряд ли сразу начнут открывать */
+    @Override
+    public Collection<Vacancy> saveAll(Collection<Vacancy> vacancies) {
+        return vacancyRepository.saveAll(vacancies);
+    }
+
+    @Override
+    public boolean deleteById(int id) {
+        var writeStart = cache.startWrite(id);
+        try {
+            return vacancyRepository.deleteById(id);
+        } finally {
+            cache.endWrite(id, writeStart, null);
+        }
+    }
+
+    /* мимо кеша: значение нужно для освобождения файла, устаревшее удалило бы чужую ссылку */
+    @Override
+    public Optional<Integer> findFileIdForUpdate(int id) {
+        return vacancyRepository.findFileIdForUpdate(id);
+    }
+
+    @Override
+    public boolean update(Vacancy vacancy) {
+        var writeStart = cache.startWrite(vacancy.getId());
+        var isUpdated = false;
+        try {
+            isUpdated = vacancyRepository.update(vacancy);
+            return isUpdated;
+        } finally {
+            cache.endWrite(vacancy.getId(), writeStart, isUpdated ? vacancy : null);
+        }
+    }
+
+    /* промах читается из основной БД: отставшая реплика положила бы в кеш старое значение надолго */
+    @Override
+    public Optional<Vacancy> findById(int id) {
+        var cached = cache.get(id);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        var loadStart = cache.startLoad();
+        var vacancyOptional = ReplicaRouting.onPrimary(() -> vacancyRepository.findById(id));
+        vacancyOptional.ifPresent(vacancy -> cache.putLoaded(id, vacancy, loadStart));
+        return vacancyOptional;
+    }
+
+    @Override
+    public Collection<Vacancy> findAll() {
+        return vacancyRepository.findAll();
+    }
+
+    /* мимо кеша: выгрузка всех записей вытеснила бы из него часто запрашиваемые */
+    @Override
+    public void forEach(int fetchSize, Consumer<Vacancy> action) {
+        vacancyRepository.forEach(fetchSize, action);
+    }
+
+    @Override
+    public List<VacancySummary> findPage(ListFilter filter, PageCursor after, int limit) {
+        return vacancyRepository.findPage(filter, after, limit);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        cache.bindTo(registry, "vacancies");
+    }
+
+}
@@ -1,18 +1,38 @@
 package ru.job4j.dreamjob.repository;
 
+import ru.job4j.dreamjob.dto.CandidateSummary;
+import ru.job4j.dreamjob.dto.ListFilter;
+import ru.job4j.dreamjob.dto.PageCursor;
 import ru.job4j.dreamjob.model.Candidate;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface CandidateRepository {
     Candidate save(Candidate candidate);
 
+    /* сохраняет все записи и проставляет им id */
+    Collection<Candidate> saveAll(Collection<Candidate> candidates);
+
     boolean deleteById(int id);
 
+    /* file_id записи из основной БД (0 - записи без картинки), строка блокируется до конца транзакции.
+    пусто - записи нет */
+    Optional<Integer> findFileIdForUpdate(int id);
+
     boolean update(Candidate candidate);
 
     Optional<Candidate> findById(int id);
 
     Collection<Candidate> findAll();
+
+    /* передает action все записи по возрастанию id, не собирая их в памяти. fetchSize - сколько строк
+    драйвер забирает из БД за раз */
+    void forEach(int fetchSize, Consumer<Candidate> action);
+
+    /* до limit записей, подходящих под filter, по убыванию (creation_date, id), идущих после after.
+    after == null - с начала списка */
+    List<CandidateSummary> findPage(ListFilter filter, PageCursor after, int limit);
 }
@@ -0,0 +1,179 @@
+package ru.job4j.dreamjob.repository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/* Кеш записей по id для кеширующих репозиториев. Размер ограничен числом записей, при переполнении вытесняются
+давно не запрошенные (LRU). Сущности изменяемые, поэтому в кеш кладется копия и наружу отдается копия.
+Каждая запись хранит версию - номер из общей возрастающей последовательности, который получает каждое изменение.
+Прочитанное из БД кладется в кеш, только если с начала чтения запись никто не менял: иначе медленное чтение
+могло бы записать в кеш значение, которое уже перезаписано в БД. После изменения новое значение кладется в кеш,
+только если за время изменения этой же записи никто больше не менял, иначе запись просто удаляется из кеша.
+Кеш у каждого экземпляра приложения свой: изменения, сделанные другим экземпляром, он не видит */
+@ThreadSafe
+final class EntityCache<T> {
+
+    private final int maxSize;
+
+    private final UnaryOperator<T> copy;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    /* порядок доступа: первой идет запись, которую дольше всех не запрашивали */
+    private final Map<Integer, Entry<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /* наибольшая версия среди вытесненных записей. для id, которого нет в кеше, изменение могло быть вытеснено,
+    поэтому его версия считается равной этой */
+    private long evictedVersion;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    EntityCache(int maxSize, UnaryOperator<T> copy) {
+        this.maxSize = maxSize;
+        this.copy = copy;
+    }
+
+    Optional<T> get(int id) {
+        T value;
+        synchronized (entries) {
+            var entry = entries.get(id);
+            value = entry == null ? null : entry.value;
+        }
+        if (value == null) {
+            missCount.incrementAndGet();
+            return Optional.empty();
+        }
+        hitCount.incrementAndGet();
+        return Optional.of(copy.apply(value));
+    }
+
+    /* вызывается перед чтением из БД, результат передается в putLoaded */
+    long startLoad() {
+        return sequence.get();
+    }
+
+    void putLoaded(int id, T value, long loadStart) {
+        synchronized (entries) {
+            var entry = entries.get(id);
+            var version = entry == null ? evictedVersion : entry.version;
+            if (version > loadStart || entry != null && entry.writers > 0) {
+                return;
+            }
+            put(id, new Entry<>(copy.apply(value), version, 0));
+        }
+    }
+
+    /* вызывается перед изменением записи в БД. пока изменение идет, запись не отдается из кеша и не вытесняется,
+    результат передается в endWrite */
+    long startWrite(int id) {
+        synchronized (entries) {
+            var entry = entries.get(id);
+            var version = sequence.incrementAndGet();
+            put(id, new Entry<>(null, version, entry == null ? 1 : entry.writers + 1));
+            return version;
+        }
+    }
+
+    /* value - новое значение записи или null, если запись удалена либо изменение не удалось.
+    внутри транзакции значение попадает в кеш только после ее фиксации, а до тех пор запись не отдается из кеша */
+    void endWrite(int id, long writeStart, T value) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            complete(id, writeStart, value);
+            return;
+        }
+        var written = value == null ? null : copy.apply(value);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                complete(id, writeStart, status == STATUS_COMMITTED ? written : null);
+            }
+        });
+    }
+
+    private void complete(int id, long writeStart, T value) {
+        synchronized (entries) {
+            var entry = entries.get(id);
+            var writers = entry.writers - 1;
+            var alone = writers == 0 && entry.version == writeStart;
+            put(id, new Entry<>(alone && value != null ? copy.apply(value) : null, sequence.incrementAndGet(), writers));
+        }
+    }
+
+    private void put(int id, Entry<T> entry) {
+        entries.put(id, entry);
+        var iterator = entries.entrySet().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            var eldest = iterator.next().getValue();
+            if (eldest.writers > 0) {
+                continue;
+            }
+            evictedVersion = Math.max(evictedVersion, eldest.version);
+            iterator.remove();
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /* метрики в тех же терминах, что и у кеша файлов: cache.gets{result=hit|miss}, cache.evictions, cache.size */
+    void bindTo(MeterRegistry registry, String name) {
+        var tags = Tags.of("cache", name);
+        FunctionCounter.builder("cache.gets", this, EntityCache::getHitCount)
+                .tags(tags).tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", this, EntityCache::getMissCount)
+                .tags(tags).tag("result", "miss").register(registry);
+        FunctionCounter.builder("cache.evictions", this, EntityCache::getEvictionCount)
+                .tags(tags).register(registry);
+        Gauge.builder("cache.size", this, EntityCache::getSize).tags(tags).register(registry);
+    }
+
+    private static final class Entry<T> {
+
+        /* null - значения в кеше нет: запись изменяется, удалена или изменение не удалось */
+        private final T value;
+
+        private final long version;
+
+        /* сколько изменений этой записи сейчас идет */
+        private final int writers;
+
+        private Entry(T value, long version, int writers) {
+            this.value = value;
+            this.version = version;
+            this.writers = writers;
+        }
+
+    }
+
+}
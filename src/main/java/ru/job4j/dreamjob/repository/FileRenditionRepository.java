@@ -0,0 +1,14 @@
+package ru.job4j.dreamjob.repository;
+
+import ru.job4j.dreamjob.model.FileRendition;
+
+import java.util.Optional;
+
+public interface FileRenditionRepository {
+
+    /* empty, если копия такой ширины для файла уже сохранена */
+    Optional<FileRendition> save(FileRendition rendition);
+
+    Optional<FileRendition> findByFileIdAndWidth(int fileId, int width);
+
+}
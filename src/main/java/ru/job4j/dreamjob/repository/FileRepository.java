@@ -2,6 +2,9 @@ package ru.job4j.dreamjob.repository;
 
 import ru.job4j.dreamjob.model.File;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 public interface FileRepository {
@@ -11,4 +14,33 @@ public interface FileRepository {
     Optional<File> findById(int id);
 
     boolean deleteById(int id);
+
+    void deleteAllById(Collection<Integer> ids);
+
+    Optional<File> findByHash(String hash);
+
+    /* увеличивает счетчик и обновляет время последнего использования записи */
+    boolean incrementReferenceCount(int id);
+
+    /* уменьшает счетчик, только если ссылка не последняя. false означает, что файл больше никому не нужен */
+    boolean decrementReferenceCount(int id);
+
+    /* порция записей с id больше заданного, по возрастанию id - для обхода всей таблицы частями */
+    Collection<File> findAllAfter(int id, int limit);
+
+    void updatePaths(Collection<File> files);
+
+    Collection<File> findAllBySegment(int segmentId);
+
+    /* суммарный размер живых файлов в каждом pack-сегменте: номер сегмента -> байты */
+    Map<Integer, Long> sumSizeBySegment();
+
+    void updateSegmentLocations(Collection<File> files);
+
+    /* записи, на которые не ссылается ни одна вакансия, ни один кандидат и ни одна запись об уменьшенной копии
+    и которые не использовались после referencedBefore */
+    Collection<File> findAllUnreferenced(LocalDateTime referencedBefore, int limit);
+
+    /* те из переданных путей, для которых есть запись в files */
+    Collection<String> findExistingPaths(Collection<String> paths);
 }
@@ -1,25 +1,51 @@
 package ru.job4j.dreamjob.repository;
 
 import org.springframework.stereotype.Repository;
+import ru.job4j.dreamjob.dto.CandidateSummary;
+import ru.job4j.dreamjob.dto.ListFilter;
+import ru.job4j.dreamjob.dto.PageCursor;
+import ru.job4j.dreamjob.model.City;
 import ru.job4j.dreamjob.model.Candidate;
 
 import javax.annotation.concurrent.ThreadSafe;
 import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+/* Кроме основной таблицы по id, записи лежат в упорядоченных по убыванию (creation_date, id) индексах: общем
+и отдельном для каждого города. Страница списка берется из нужного индекса с позиции после курсора и до
+границы по дате, поэтому отбор и постраничный вывод не перебирают все записи.
+Изменения идут под общей блокировкой, чтобы индексы не расходились с таблицей, чтение - без блокировок */
 @Repository
 @ThreadSafe
 public class MemoryCandidateRepository implements CandidateRepository {
 
+    private static final Comparator<PageCursor> NEWEST_FIRST = Comparator.comparing(PageCursor::getCreationDate)
+            .thenComparingInt(PageCursor::getId).reversed();
+
     private final AtomicInteger nextId = new AtomicInteger(1);
 
     private final Map<Integer, Candidate> candidates = new ConcurrentHashMap<>();
 
-    private MemoryCandidateRepository() {
+    private final NavigableMap<PageCursor, Candidate> byCreationDate = new ConcurrentSkipListMap<>(NEWEST_FIRST);
+
+    private final Map<Integer, NavigableMap<PageCursor, Candidate>> byCity = new ConcurrentHashMap<>();
+
+    private final Object lock = new Object();
+
+    private final CityRepository cityRepository;
+
+    private MemoryCandidateRepository(CityRepository memoryCityRepository) {
+        this.cityRepository = memoryCityRepository;
         save(new Candidate(0, "Anton Shilov", "Intern Java Developer", LocalDateTime.of(2023, 2, 10, 12, 30), true, 1, 0));
         save(new Candidate(0, "Lisa Rebova", "Middle Java Developer", LocalDateTime.of(2023, 4, 2, 8, 10), true, 3, 0));
         save(new Candidate(0, "Ivan Lenov", "Senior Java Developer", LocalDateTime.of(2023, 5, 29, 9, 44), true, 2, 0));
@@ -27,21 +53,68 @@ public class MemoryCandidateRepository implements CandidateRepository {
 
     @Override
     public Candidate save(Candidate candidate) {
-        candidate.setId(nextId.incrementAndGet());
-        candidates.putIfAbsent(candidate.getId(), candidate);
-        return candidate;
+        synchronized (lock) {
+            candidate.setId(nextId.incrementAndGet());
+            candidates.put(candidate.getId(), candidate);
+            addToIndexes(candidate);
+            return candidate;
+        }
+    }
+
+    @Override
+    public Collection<Candidate> saveAll(Collection<Candidate> candidates) {
+        candidates.forEach(this::save);
+        return candidates;
     }
 
     @Override
     public boolean deleteById(int id) {
-        return candidates.remove(id) != null;
+        synchronized (lock) {
+            var removed = candidates.remove(id);
+            if (removed == null) {
+                return false;
+            }
+            removeFromIndexes(removed);
+            return true;
+        }
+    }
+
+    @Override
+    public Optional<Integer> findFileIdForUpdate(int id) {
+        synchronized (lock) {
+            return Optional.ofNullable(candidates.get(id)).map(Candidate::getFileId);
+        }
     }
 
     @Override
     public boolean update(Candidate candidate) {
-        return candidates.computeIfPresent(candidate.getId(), (id, oldVacancy) ->
-                new Candidate(oldVacancy.getId(), candidate.getName(), candidate.getDescription(),
-                        candidate.getCreationDate(), candidate.getVisible(), candidate.getCityId(), candidate.getFileId())) != null;
+        synchronized (lock) {
+            var oldCandidate = candidates.get(candidate.getId());
+            if (oldCandidate == null) {
+                return false;
+            }
+            var updated = new Candidate(oldCandidate.getId(), candidate.getName(), candidate.getDescription(),
+                    candidate.getCreationDate(), candidate.getVisible(), candidate.getCityId(), candidate.getFileId());
+            removeFromIndexes(oldCandidate);
+            candidates.put(updated.getId(), updated);
+            addToIndexes(updated);
+            return true;
+        }
+    }
+
+    private void addToIndexes(Candidate candidate) {
+        var key = new PageCursor(candidate.getCreationDate(), candidate.getId());
+        byCreationDate.put(key, candidate);
+        byCity.computeIfAbsent(candidate.getCityId(), cityId -> new ConcurrentSkipListMap<>(NEWEST_FIRST)).put(key, candidate);
+    }
+
+    private void removeFromIndexes(Candidate candidate) {
+        var key = new PageCursor(candidate.getCreationDate(), candidate.getId());
+        byCreationDate.remove(key);
+        var cityIndex = byCity.get(candidate.getCityId());
+        if (cityIndex != null) {
+            cityIndex.remove(key);
+        }
     }
 
     @Override
@@ -53,4 +126,35 @@ public class MemoryCandidateRepository implements CandidateRepository {
     public Collection<Candidate> findAll() {
         return candidates.values();
     }
+
+    @Override
+    public void forEach(int fetchSize, Consumer<Candidate> action) {
+        candidates.values().stream().sorted(Comparator.comparingInt(Candidate::getId)).forEach(action);
+    }
+
+    @Override
+    public List<CandidateSummary> findPage(ListFilter filter, PageCursor after, int limit) {
+        /* последний по убыванию ключ с датой createdAfter: все, что до него, создано не раньше createdAfter */
+        var oldest = filter.getCreatedAfter() == null ? null : new PageCursor(filter.getCreatedAfter(), Integer.MIN_VALUE);
+        if (after != null && oldest != null && NEWEST_FIRST.compare(oldest, after) <= 0) {
+            return List.of();
+        }
+        NavigableMap<PageCursor, Candidate> index = filter.getCityId() == 0
+                ? byCreationDate
+                : byCity.getOrDefault(filter.getCityId(), new ConcurrentSkipListMap<>(NEWEST_FIRST));
+        if (after != null) {
+            index = index.tailMap(after, false);
+        }
+        if (oldest != null) {
+            index = index.headMap(oldest, true);
+        }
+        var cityNames = cityRepository.findAll().stream().collect(Collectors.toMap(City::getId, City::getName));
+        return index.values().stream()
+                .filter(candidate -> !filter.isVisibleOnly() || candidate.getVisible())
+                .limit(limit)
+                .map(candidate -> new CandidateSummary(candidate.getId(), candidate.getName(), candidate.getCreationDate(), candidate.getVisible(),
+                        cityNames.get(candidate.getCityId())))
+                .collect(Collectors.toList());
+    }
+
 }
@@ -3,10 +3,17 @@ package ru.job4j.dreamjob.repository;
 import org.springframework.stereotype.Repository;
 import ru.job4j.dreamjob.model.File;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 @Repository
 public class MemoryFileRepository implements FileRepository {
@@ -32,4 +39,106 @@ public class MemoryFileRepository implements FileRepository {
         return files.remove(id) != null;
     }
 
-}
\ No newline at end of file
+    @Override
+    public void deleteAllById(Collection<Integer> ids) {
+        ids.forEach(files::remove);
+    }
+
+    @Override
+    public Optional<File> findByHash(String hash) {
+        return files.values().stream()
+                .filter(file -> Objects.equals(file.getHash(), hash))
+                .min(Comparator.comparingInt(File::getId));
+    }
+
+    @Override
+    public boolean incrementReferenceCount(int id) {
+        var file = files.get(id);
+        if (file == null) {
+            return false;
+        }
+        synchronized (file) {
+            file.setReferenceCount(file.getReferenceCount() + 1);
+            file.setReferencedAt(LocalDateTime.now());
+        }
+        return true;
+    }
+
+    @Override
+    public boolean decrementReferenceCount(int id) {
+        var file = files.get(id);
+        if (file == null) {
+            return false;
+        }
+        synchronized (file) {
+            if (file.getReferenceCount() <= 1) {
+                return false;
+            }
+            file.setReferenceCount(file.getReferenceCount() - 1);
+        }
+        return true;
+    }
+
+    @Override
+    public Collection<File> findAllAfter(int id, int limit) {
+        return files.values().stream()
+                .filter(file -> file.getId() > id)
+                .sorted(Comparator.comparingInt(File::getId))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void updatePaths(Collection<File> updatedFiles) {
+        for (var file : updatedFiles) {
+            files.computeIfPresent(file.getId(), (id, oldFile) -> {
+                oldFile.setPath(file.getPath());
+                return oldFile;
+            });
+        }
+    }
+
+    @Override
+    public Collection<File> findAllBySegment(int segmentId) {
+        return files.values().stream()
+                .filter(file -> file.getSegmentId() == segmentId)
+                .sorted(Comparator.comparingLong(File::getSegmentOffset))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Map<Integer, Long> sumSizeBySegment() {
+        var result = new HashMap<Integer, Long>();
+        for (var file : files.values()) {
+            if (file.getSegmentId() > 0) {
+                result.merge(file.getSegmentId(), file.getSize(), Long::sum);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void updateSegmentLocations(Collection<File> updatedFiles) {
+        for (var file : updatedFiles) {
+            files.computeIfPresent(file.getId(), (id, oldFile) -> {
+                oldFile.setPath(file.getPath());
+                oldFile.setSegmentId(file.getSegmentId());
+                oldFile.setSegmentOffset(file.getSegmentOffset());
+                return oldFile;
+            });
+        }
+    }
+
+    /* вакансии и кандидаты в памяти этому репозиторию не видны, поэтому потерянными не считается ни один файл */
+    @Override
+    public Collection<File> findAllUnreferenced(LocalDateTime referencedBefore, int limit) {
+        return List.of();
+    }
+
+    @Override
+    public Collection<String> findExistingPaths(Collection<String> paths) {
+        var existing = files.values().stream().map(File::getPath).collect(Collectors.toSet());
+        return paths.stream().filter(existing::contains).collect(Collectors.toList());
+    }
+
+}
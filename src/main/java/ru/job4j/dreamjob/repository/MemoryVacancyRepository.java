@@ -1,25 +1,51 @@
 package ru.job4j.dreamjob.repository;
 
 import org.springframework.stereotype.Repository;
+import ru.job4j.dreamjob.dto.VacancySummary;
+import ru.job4j.dreamjob.dto.ListFilter;
+import ru.job4j.dreamjob.dto.PageCursor;
+import ru.job4j.dreamjob.model.City;
 import ru.job4j.dreamjob.model.Vacancy;
 
 import javax.annotation.concurrent.ThreadSafe;
 import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+/* Кроме основной таблицы по id, записи лежат в упорядоченных по убыванию (creation_date, id) индексах: общем
+и отдельном для каждого города. Страница списка берется из нужного индекса с позиции после курсора и до
+границы по дате, поэтому отбор и постраничный вывод не перебирают все записи.
+Изменения идут под общей блокировкой, чтобы индексы не расходились с таблицей, чтение - без блокировок */
 @Repository
 @ThreadSafe
 public class MemoryVacancyRepository implements VacancyRepository {
 
+    private static final Comparator<PageCursor> NEWEST_FIRST = Comparator.comparing(PageCursor::getCreationDate)
+            .thenComparingInt(PageCursor::getId).reversed();
+
     private final AtomicInteger nextId = new AtomicInteger(1);
 
     private final Map<Integer, Vacancy> vacancies = new ConcurrentHashMap<>();
 
-    private MemoryVacancyRepository() {
+    private final NavigableMap<PageCursor, Vacancy> byCreationDate = new ConcurrentSkipListMap<>(NEWEST_FIRST);
+
+    private final Map<Integer, NavigableMap<PageCursor, Vacancy>> byCity = new ConcurrentHashMap<>();
+
+    private final Object lock = new Object();
+
+    private final CityRepository cityRepository;
+
+    private MemoryVacancyRepository(CityRepository memoryCityRepository) {
+        this.cityRepository = memoryCityRepository;
         save(new Vacancy(0, "Intern Java Developer", "description1", LocalDateTime.of(2023, 1, 10, 12, 30), true, 1, 0));
         save(new Vacancy(0, "Junior Java Developer", "description2", LocalDateTime.of(2023, 2, 11, 12, 38), true, 2, 0));
         save(new Vacancy(0, "Junior+ Java Developer", "description3", LocalDateTime.of(2023, 4, 3, 15, 30), true, 1, 0));
@@ -30,21 +56,68 @@ public class MemoryVacancyRepository implements VacancyRepository {
 
     @Override
     public Vacancy save(Vacancy vacancy) {
-        vacancy.setId(nextId.incrementAndGet());
-        vacancies.putIfAbsent(vacancy.getId(), vacancy);
-        return vacancy;
+        synchronized (lock) {
+            vacancy.setId(nextId.incrementAndGet());
+            vacancies.put(vacancy.getId(), vacancy);
+            addToIndexes(vacancy);
+            return vacancy;
+        }
+    }
+
+    @Override
+    public Collection<Vacancy> saveAll(Collection<Vacancy> vacancies) {
+        vacancies.forEach(this::save);
+        return vacancies;
     }
 
     @Override
     public boolean deleteById(int id) {
-        return vacancies.remove(id) != null;
+        synchronized (lock) {
+            var removed = vacancies.remove(id);
+            if (removed == null) {
+                return false;
+            }
+            removeFromIndexes(removed);
+            return true;
+        }
+    }
+
+    @Override
+    public Optional<Integer> findFileIdForUpdate(int id) {
+        synchronized (lock) {
+            return Optional.ofNullable(vacancies.get(id)).map(Vacancy::getFileId);
+        }
     }
 
     @Override
     public boolean update(Vacancy vacancy) {
-        return vacancies.computeIfPresent(vacancy.getId(), (id, oldVacancy) ->
-                new Vacancy(oldVacancy.getId(), vacancy.getTitle(), vacancy.getDescription(),
-                        vacancy.getCreationDate(), vacancy.getVisible(), vacancy.getCityId(), vacancy.getFileId())) != null;
+        synchronized (lock) {
+            var oldVacancy = vacancies.get(vacancy.getId());
+            if (oldVacancy == null) {
+                return false;
+            }
+            var updated = new Vacancy(oldVacancy.getId(), vacancy.getTitle(), vacancy.getDescription(),
+                    vacancy.getCreationDate(), vacancy.getVisible(), vacancy.getCityId(), vacancy.getFileId());
+            removeFromIndexes(oldVacancy);
+            vacancies.put(updated.getId(), updated);
+            addToIndexes(updated);
+            return true;
+        }
+    }
+
+    private void addToIndexes(Vacancy vacancy) {
+        var key = new PageCursor(vacancy.getCreationDate(), vacancy.getId());
+        byCreationDate.put(key, vacancy);
+        byCity.computeIfAbsent(vacancy.getCityId(), cityId -> new ConcurrentSkipListMap<>(NEWEST_FIRST)).put(key, vacancy);
+    }
+
+    private void removeFromIndexes(Vacancy vacancy) {
+        var key = new PageCursor(vacancy.getCreationDate(), vacancy.getId());
+        byCreationDate.remove(key);
+        var cityIndex = byCity.get(vacancy.getCityId());
+        if (cityIndex != null) {
+            cityIndex.remove(key);
+        }
     }
 
     @Override
@@ -56,4 +129,35 @@ public class MemoryVacancyRepository implements VacancyRepository {
     public Collection<Vacancy> findAll() {
         return vacancies.values();
     }
+
+    @Override
+    public void forEach(int fetchSize, Consumer<Vacancy> action) {
+        vacancies.values().stream().sorted(Comparator.comparingInt(Vacancy::getId)).forEach(action);
+    }
+
+    @Override
+    public List<VacancySummary> findPage(ListFilter filter, PageCursor after, int limit) {
+        /* последний по убыванию ключ с датой createdAfter: все, что до него, создано не раньше createdAfter */
+        var oldest = filter.getCreatedAfter() == null ? null : new PageCursor(filter.getCreatedAfter(), Integer.MIN_VALUE);
+        if (after != null && oldest != null && NEWEST_FIRST.compare(oldest, after) <= 0) {
+            return List.of();
+        }
+        NavigableMap<PageCursor, Vacancy> index = filter.getCityId() == 0
+                ? byCreationDate
+                : byCity.getOrDefault(filter.getCityId(), new ConcurrentSkipListMap<>(NEWEST_FIRST));
+        if (after != null) {
+            index = index.tailMap(after, false);
+        }
+        if (oldest != null) {
+            index = index.headMap(oldest, true);
+        }
+        var cityNames = cityRepository.findAll().stream().collect(Collectors.toMap(City::getId, City::getName));
+        return index.values().stream()
+                .filter(vacancy -> !filter.isVisibleOnly() || vacancy.getVisible())
+                .limit(limit)
+                .map(vacancy -> new VacancySummary(vacancy.getId(), vacancy.getTitle(), vacancy.getCreationDate(), vacancy.getVisible(),
+                        cityNames.get(vacancy.getCityId())))
+                .collect(Collectors.toList());
+    }
+
 }
@@ -1,15 +1,30 @@
 package ru.job4j.dreamjob.repository;
 
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.sql2o.Query;
 import org.sql2o.Sql2o;
+import org.sql2o.Sql2oException;
+import ru.job4j.dreamjob.dto.CandidateSummary;
+import ru.job4j.dreamjob.dto.ListFilter;
+import ru.job4j.dreamjob.dto.PageCursor;
 import ru.job4j.dreamjob.model.Candidate;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
 public class Sql2oCandidateRepository implements CandidateRepository {
 
+    private static final String INSERT_SQL = """
+            INSERT INTO candidates(name, description, creation_date, visible, city_id, file_id)
+            VALUES (:name, :description, :creationDate, :visible, :cityId, :fileId)
+            """;
+
     private final Sql2o sql2o;
 
     public Sql2oCandidateRepository(Sql2o sql2o) {
@@ -19,23 +34,43 @@ public class Sql2oCandidateRepository implements CandidateRepository {
     @Override
     public Candidate save(Candidate candidate) {
         try (var connection = sql2o.open()) {
-            var sql = """
-                      INSERT INTO candidates(name, description, creation_date, visible, city_id, file_id)
-                      VALUES (:name, :description, :creationDate, :visible, :cityId, :fileId)
-                      """;
-            var query = connection.createQuery(sql, true)
-                    .addParameter("name", candidate.getName())
-                    .addParameter("description", candidate.getDescription())
-                    .addParameter("creationDate", candidate.getCreationDate())
-                    .addParameter("visible", candidate.getVisible())
-                    .addParameter("cityId", candidate.getCityId())
-                    .addParameter("fileId", candidate.getFileId());
+            var query = bindInsert(connection.createQuery(INSERT_SQL, true), candidate);
             int generatedId = query.executeUpdate().getKey(Integer.class);
             candidate.setId(generatedId);
             return candidate;
         }
     }
 
+    /* одна транзакция и один пакет JDBC на все записи: один обмен с БД вместо отдельного INSERT на каждую */
+    @Override
+    @Transactional
+    public Collection<Candidate> saveAll(Collection<Candidate> candidates) {
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        try (var connection = sql2o.open()) {
+            var query = connection.createQuery(INSERT_SQL, true);
+            for (var candidate : candidates) {
+                bindInsert(query, candidate).addToBatch();
+            }
+            var ids = query.executeBatch().getKeys(Integer.class).iterator();
+            for (var candidate : candidates) {
+                candidate.setId(ids.next());
+            }
+            return candidates;
+        }
+    }
+
+    /* fileId == 0 - резюме без фотографии, например загруженное списком */
+    private Query bindInsert(Query query, Candidate candidate) {
+        return query.addParameter("name", candidate.getName())
+                .addParameter("description", candidate.getDescription())
+                .addParameter("creationDate", candidate.getCreationDate())
+                .addParameter("visible", candidate.getVisible())
+                .addParameter("cityId", candidate.getCityId())
+                .addParameter("fileId", candidate.getFileId() == 0 ? null : candidate.getFileId());
+    }
+
     @Override
     public boolean deleteById(int id) {
         try (var connection = sql2o.open()) {
@@ -46,6 +81,15 @@ public class Sql2oCandidateRepository implements CandidateRepository {
         }
     }
 
+    @Override
+    public Optional<Integer> findFileIdForUpdate(int id) {
+        try (var connection = sql2o.open()) {
+            var query = connection.createQuery("SELECT COALESCE(file_id, 0) FROM candidates WHERE id = :id FOR UPDATE");
+            query.addParameter("id", id);
+            return Optional.ofNullable(query.executeScalar(Integer.class));
+        }
+    }
+
     @Override
     public boolean update(Candidate candidate) {
         try (var connection = sql2o.open()) {
@@ -61,7 +105,7 @@ public class Sql2oCandidateRepository implements CandidateRepository {
                     .addParameter("creationDate", candidate.getCreationDate())
                     .addParameter("visible", candidate.getVisible())
                     .addParameter("cityId", candidate.getCityId())
-                    .addParameter("fileId", candidate.getFileId())
+                    .addParameter("fileId", candidate.getFileId() == 0 ? null : candidate.getFileId())
                     .addParameter("id", candidate.getId());
             var affectedRows = query.executeUpdate().getResult();
             return affectedRows > 0;
@@ -69,20 +113,81 @@ public class Sql2oCandidateRepository implements CandidateRepository {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Candidate> findById(int id) {
         try (var connection = sql2o.open()) {
-            var query = connection.createQuery("SELECT * FROM candidates WHERE id = :id");
+            var query = connection.createQuery("SELECT " + RowMappers.CANDIDATE_COLUMNS + " FROM candidates WHERE id = :id");
             query.addParameter("id", id);
-            var candidate = query.setColumnMappings(Candidate.COLUMN_MAPPING).executeAndFetchFirst(Candidate.class);
+            var candidate = query.executeAndFetchFirst(RowMappers.CANDIDATE);
             return Optional.ofNullable(candidate);
         }
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Collection<Candidate> findAll() {
         try (var connection = sql2o.open()) {
-            var query = connection.createQuery("SELECT * FROM candidates");
-            return query.setColumnMappings(Candidate.COLUMN_MAPPING).executeAndFetch(Candidate.class);
+            var query = connection.createQuery("SELECT " + RowMappers.CANDIDATE_COLUMNS + " FROM candidates");
+            return query.executeAndFetch(RowMappers.CANDIDATE);
+        }
+    }
+
+    /* курсор на стороне БД: PostgreSQL отдает строки порциями по fetchSize только при выключенном autocommit,
+    поэтому чтение идет в транзакции только для чтения. sql2o не дает задать fetchSize, запрос выполняется через JDBC */
+    @Override
+    @Transactional(readOnly = true)
+    public void forEach(int fetchSize, Consumer<Candidate> action) {
+        try (var connection = sql2o.open();
+             var statement = connection.getJdbcConnection().prepareStatement(
+                     "SELECT " + RowMappers.CANDIDATE_COLUMNS + " FROM candidates ORDER BY id")) {
+            statement.setFetchSize(fetchSize);
+            try (var resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    action.accept(RowMappers.CANDIDATE.handle(resultSet));
+                }
+            }
+        } catch (SQLException e) {
+            throw new Sql2oException("Failed to read candidates", e);
+        }
+    }
+
+    /* поиск позиции по индексу (creation_date, id), без перебора предыдущих страниц, а при отборе по городу -
+    по индексу (city_id, visible, creation_date, id). выбираются только столбцы для списка, город подставляется соединением */
+    @Override
+    @Transactional(readOnly = true)
+    public List<CandidateSummary> findPage(ListFilter filter, PageCursor after, int limit) {
+        var conditions = new ArrayList<String>();
+        if (filter.getCityId() != 0) {
+            conditions.add("c.city_id = :cityId");
+        }
+        if (filter.isVisibleOnly()) {
+            conditions.add("c.visible = TRUE");
+        }
+        if (filter.getCreatedAfter() != null) {
+            conditions.add("c.creation_date >= :createdAfter");
+        }
+        if (after != null) {
+            conditions.add("(c.creation_date, c.id) < (:creationDate, :id)");
+        }
+        try (var connection = sql2o.open()) {
+            var sql = """
+                    SELECT c.id, c.name, c.creation_date, c.visible, city.name AS city_name
+                    FROM candidates c LEFT JOIN cities city ON city.id = c.city_id
+                    """ + (conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + "\n") + """
+                    ORDER BY c.creation_date DESC, c.id DESC LIMIT :limit
+                    """;
+            var query = connection.createQuery(sql).addParameter("limit", limit);
+            if (filter.getCityId() != 0) {
+                query.addParameter("cityId", filter.getCityId());
+            }
+            if (filter.getCreatedAfter() != null) {
+                query.addParameter("createdAfter", filter.getCreatedAfter());
+            }
+            if (after != null) {
+                query.addParameter("creationDate", after.getCreationDate())
+                        .addParameter("id", after.getId());
+            }
+            return query.executeAndFetch(RowMappers.CANDIDATE_SUMMARY);
         }
     }
 
@@ -1,6 +1,7 @@
 package ru.job4j.dreamjob.repository;
 
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.sql2o.Connection;
 import org.sql2o.Query;
 import org.sql2o.Sql2o;
@@ -18,10 +19,11 @@ public class Sql2oCityRepository implements CityRepository {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Collection<City> findAll() {
         try (Connection connection = sql2o.open()) {
-            Query query = connection.createQuery("SELECT * FROM cities");
-            return query.executeAndFetch(City.class);
+            Query query = connection.createQuery("SELECT " + RowMappers.CITY_COLUMNS + " FROM cities");
+            return query.executeAndFetch(RowMappers.CITY);
         }
     }
 
@@ -0,0 +1,52 @@
+package ru.job4j.dreamjob.repository;
+
+import org.springframework.stereotype.Repository;
+import org.sql2o.Connection;
+import org.sql2o.Query;
+import org.sql2o.Sql2o;
+import org.sql2o.Sql2oException;
+import ru.job4j.dreamjob.model.FileRendition;
+
+import java.util.Optional;
+
+/* записи удаляются каскадно вместе с исходным файлом или копией */
+@Repository
+public class Sql2oFileRenditionRepository implements FileRenditionRepository {
+
+    private final Sql2o sql2o;
+
+    public Sql2oFileRenditionRepository(Sql2o sql2o) {
+        this.sql2o = sql2o;
+    }
+
+    @Override
+    public Optional<FileRendition> save(FileRendition rendition) {
+        try (Connection connection = sql2o.open()) {
+            String sql = """
+                    INSERT INTO file_renditions (file_id, width, rendition_file_id)
+                    VALUES (:fileId, :width, :renditionFileId)
+                    """;
+            Query query = connection.createQuery(sql, true)
+                    .addParameter("fileId", rendition.getFileId())
+                    .addParameter("width", rendition.getWidth())
+                    .addParameter("renditionFileId", rendition.getRenditionFileId());
+            int generatedId = query.executeUpdate().getKey(Integer.class);
+            rendition.setId(generatedId);
+            return Optional.of(rendition);
+        } catch (Sql2oException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<FileRendition> findByFileIdAndWidth(int fileId, int width) {
+        try (Connection connection = sql2o.open()) {
+            Query query = connection.createQuery("SELECT " + RowMappers.FILE_RENDITION_COLUMNS + " FROM file_renditions WHERE file_id = :fileId AND width = :width")
+                    .addParameter("fileId", fileId)
+                    .addParameter("width", width);
+            var rendition = query.executeAndFetchFirst(RowMappers.FILE_RENDITION);
+            return Optional.ofNullable(rendition);
+        }
+    }
+
+}
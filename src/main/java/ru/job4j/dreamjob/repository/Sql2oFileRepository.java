@@ -1,11 +1,17 @@
 package ru.job4j.dreamjob.repository;
 
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.sql2o.Connection;
 import org.sql2o.Query;
 import org.sql2o.Sql2o;
 import ru.job4j.dreamjob.model.File;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
@@ -20,9 +26,19 @@ public class Sql2oFileRepository implements FileRepository {
     @Override
     public File save(File file) {
         try (Connection connection = sql2o.open()) {
-            Query query = connection.createQuery("INSERT INTO files (name, path) VALUES (:name, :path)", true)
+            String sql = """
+                    INSERT INTO files (name, path, size, hash, ref_count, segment_id, segment_offset, referenced_at)
+                    VALUES (:name, :path, :size, :hash, :referenceCount, :segmentId, :segmentOffset, :referencedAt)
+                    """;
+            Query query = connection.createQuery(sql, true)
                     .addParameter("name", file.getName())
-                    .addParameter("path", file.getPath());
+                    .addParameter("path", file.getPath())
+                    .addParameter("size", file.getSize())
+                    .addParameter("hash", file.getHash())
+                    .addParameter("referenceCount", file.getReferenceCount())
+                    .addParameter("segmentId", file.getSegmentId())
+                    .addParameter("segmentOffset", file.getSegmentOffset())
+                    .addParameter("referencedAt", file.getReferencedAt());
             int generatedId = query.executeUpdate().getKey(Integer.class);
             file.setId(generatedId);
             return file;
@@ -32,8 +48,8 @@ public class Sql2oFileRepository implements FileRepository {
     @Override
     public Optional<File> findById(int id) {
         try (Connection connection = sql2o.open()) {
-            Query query = connection.createQuery("SELECT * FROM files WHERE id = :id");
-            File file = query.addParameter("id", id).executeAndFetchFirst(File.class);
+            Query query = connection.createQuery("SELECT " + RowMappers.FILE_COLUMNS + " FROM files WHERE id = :id");
+            File file = query.addParameter("id", id).executeAndFetchFirst(RowMappers.FILE);
             return Optional.ofNullable(file);
         }
     }
@@ -47,4 +63,146 @@ public class Sql2oFileRepository implements FileRepository {
         }
     }
 
+    @Override
+    public void deleteAllById(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try (Connection connection = sql2o.open()) {
+            connection.createQuery("DELETE FROM files WHERE id IN (:ids)")
+                    .addParameter("ids", ids)
+                    .executeUpdate();
+        }
+    }
+
+    @Override
+    public Optional<File> findByHash(String hash) {
+        try (Connection connection = sql2o.open()) {
+            Query query = connection.createQuery("SELECT " + RowMappers.FILE_COLUMNS + " FROM files WHERE hash = :hash ORDER BY id");
+            File file = query.addParameter("hash", hash).executeAndFetchFirst(RowMappers.FILE);
+            return Optional.ofNullable(file);
+        }
+    }
+
+    @Override
+    public boolean incrementReferenceCount(int id) {
+        try (Connection connection = sql2o.open()) {
+            Query query = connection.createQuery("UPDATE files SET ref_count = ref_count + 1, referenced_at = :now WHERE id = :id")
+                    .addParameter("now", LocalDateTime.now());
+            int affectedRows = query.addParameter("id", id).executeUpdate().getResult();
+            return affectedRows > 0;
+        }
+    }
+
+    @Override
+    public boolean decrementReferenceCount(int id) {
+        try (Connection connection = sql2o.open()) {
+            Query query = connection.createQuery("UPDATE files SET ref_count = ref_count - 1 WHERE id = :id AND ref_count > 1");
+            int affectedRows = query.addParameter("id", id).executeUpdate().getResult();
+            return affectedRows > 0;
+        }
+    }
+
+    @Override
+    public Collection<File> findAllAfter(int id, int limit) {
+        try (Connection connection = sql2o.open()) {
+            Query query = connection.createQuery("SELECT " + RowMappers.FILE_COLUMNS + " FROM files WHERE id > :id ORDER BY id LIMIT :limit")
+                    .addParameter("id", id)
+                    .addParameter("limit", limit);
+            return query.executeAndFetch(RowMappers.FILE);
+        }
+    }
+
+    /* все пути обновляются одним пакетом JDBC в одной транзакции */
+    @Override
+    @Transactional
+    public void updatePaths(Collection<File> files) {
+        if (files.isEmpty()) {
+            return;
+        }
+        try (Connection connection = sql2o.open()) {
+            Query query = connection.createQuery("UPDATE files SET path = :path WHERE id = :id");
+            for (File file : files) {
+                query.addParameter("path", file.getPath())
+                        .addParameter("id", file.getId())
+                        .addToBatch();
+            }
+            query.executeBatch();
+        }
+    }
+
+    @Override
+    public Collection<File> findAllBySegment(int segmentId) {
+        try (Connection connection = sql2o.open()) {
+            Query query = connection.createQuery("SELECT " + RowMappers.FILE_COLUMNS + " FROM files WHERE segment_id = :segmentId ORDER BY segment_offset")
+                    .addParameter("segmentId", segmentId);
+            return query.executeAndFetch(RowMappers.FILE);
+        }
+    }
+
+    @Override
+    public Map<Integer, Long> sumSizeBySegment() {
+        try (Connection connection = sql2o.open()) {
+            Query query = connection.createQuery(
+                    "SELECT segment_id, SUM(size) AS live_size FROM files WHERE segment_id > 0 GROUP BY segment_id");
+            var result = new HashMap<Integer, Long>();
+            for (var row : query.executeAndFetchTable().rows()) {
+                result.put(row.getInteger("segment_id"), row.getLong("live_size"));
+            }
+            return result;
+        }
+    }
+
+    @Override
+    @Transactional
+    public void updateSegmentLocations(Collection<File> files) {
+        if (files.isEmpty()) {
+            return;
+        }
+        try (Connection connection = sql2o.open()) {
+            String sql = """
+                    UPDATE files SET path = :path, segment_id = :segmentId, segment_offset = :segmentOffset
+                    WHERE id = :id
+                    """;
+            Query query = connection.createQuery(sql);
+            for (File file : files) {
+                query.addParameter("path", file.getPath())
+                        .addParameter("segmentId", file.getSegmentId())
+                        .addParameter("segmentOffset", file.getSegmentOffset())
+                        .addParameter("id", file.getId())
+                        .addToBatch();
+            }
+            query.executeBatch();
+        }
+    }
+
+    @Override
+    public Collection<File> findAllUnreferenced(LocalDateTime referencedBefore, int limit) {
+        try (Connection connection = sql2o.open()) {
+            String sql = "SELECT " + RowMappers.FILE_COLUMNS + " FROM files f\n" + """
+                    WHERE f.referenced_at < :referencedBefore
+                    AND NOT EXISTS (SELECT 1 FROM vacancies v WHERE v.file_id = f.id)
+                    AND NOT EXISTS (SELECT 1 FROM candidates c WHERE c.file_id = f.id)
+                    AND NOT EXISTS (SELECT 1 FROM file_renditions r WHERE r.rendition_file_id = f.id AND r.file_id <> f.id)
+                    ORDER BY f.id LIMIT :limit
+                    """;
+            Query query = connection.createQuery(sql)
+                    .addParameter("referencedBefore", referencedBefore)
+                    .addParameter("limit", limit);
+            return query.executeAndFetch(RowMappers.FILE);
+        }
+    }
+
+    @Override
+    public Collection<String> findExistingPaths(Collection<String> paths) {
+        if (paths.isEmpty()) {
+            return List.of();
+        }
+        try (Connection connection = sql2o.open()) {
+            Query query = connection.createQuery("SELECT path FROM files WHERE path IN (:paths)")
+                    .addParameter("paths", paths);
+            return query.executeScalarList(String.class);
+        }
+    }
+
 }
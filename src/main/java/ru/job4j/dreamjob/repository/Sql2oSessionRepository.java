@@ -0,0 +1,433 @@
+package ru.job4j.dreamjob.repository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.springframework.stereotype.Repository;
+import org.sql2o.Sql2o;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Сессии в БД (session.store=jdbc): любой экземпляр приложения видит сессию, созданную другим, поэтому
+балансировщику не нужно привязывать браузер к экземпляру. Атрибуты сессии хранятся одним сериализованным блоком.
+Запись ленивая: блок пишется, только если атрибуты, id или время жизни изменились. Одно лишь обращение к сессии
+обновляет время последнего доступа в БД не чаще раза в session.jdbc.touch-interval, поэтому простаивающая сессия
+может истечь на столько раньше. Одновременные запросы одной сессии, изменившие атрибуты, - побеждает последний.
+Недавно прочитанные сессии держатся в памяти экземпляра (session.jdbc.near-cache-size записей) не дольше
+session.jdbc.near-cache-ttl: столько экземпляр может не видеть изменение сессии, сделанное на другом экземпляре.
+Истекшие сессии удаляются фоном порциями по session.jdbc.cleanup-batch-size */
+@Repository
+@ThreadSafe
+@ConditionalOnProperty(name = "session.store", havingValue = "jdbc")
+public class Sql2oSessionRepository implements SessionRepository<Sql2oSessionRepository.StoredSession>, MeterBinder {
+
+    private final Sql2o sql2o;
+
+    private final Duration maxInactiveInterval;
+
+    private final Duration touchInterval;
+
+    private final int nearCacheSize;
+
+    private final long nearCacheTtlNanos;
+
+    private final int cleanupBatchSize;
+
+    private final SerializingConverter serializer = new SerializingConverter();
+
+    private final DeserializingConverter deserializer = new DeserializingConverter(getClass().getClassLoader());
+
+    /* порядок доступа: первой идет сессия, к которой дольше всех не обращались */
+    private final Map<String, Cached> nearCache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong nearCacheHitCount = new AtomicLong();
+
+    private final AtomicLong readCount = new AtomicLong();
+
+    private final AtomicLong writeCount = new AtomicLong();
+
+    private final AtomicLong skippedWriteCount = new AtomicLong();
+
+    private final AtomicLong expiredCount = new AtomicLong();
+
+    public Sql2oSessionRepository(Sql2o sql2o,
+                                  @Value("${server.servlet.session.timeout:PT30M}") Duration maxInactiveInterval,
+                                  @Value("${session.jdbc.touch-interval:PT1M}") Duration touchInterval,
+                                  @Value("${session.jdbc.near-cache-size:1000}") int nearCacheSize,
+                                  @Value("${session.jdbc.near-cache-ttl:PT5S}") Duration nearCacheTtl,
+                                  @Value("${session.jdbc.cleanup-batch-size:500}") int cleanupBatchSize) {
+        this.sql2o = sql2o;
+        this.maxInactiveInterval = maxInactiveInterval;
+        this.touchInterval = touchInterval;
+        this.nearCacheSize = nearCacheSize;
+        this.nearCacheTtlNanos = nearCacheTtl.toNanos();
+        this.cleanupBatchSize = cleanupBatchSize;
+    }
+
+    @Override
+    public StoredSession createSession() {
+        var session = new MapSession();
+        session.setMaxInactiveInterval(maxInactiveInterval);
+        return new StoredSession(session, null);
+    }
+
+    @Override
+    public void save(StoredSession session) {
+        var savedId = session.savedId;
+        if (savedId == null) {
+            insert(session);
+        } else if (session.changed || !session.getId().equals(savedId)) {
+            update(session);
+        } else if (Duration.between(session.savedLastAccessedTime, session.getLastAccessedTime()).compareTo(touchInterval) >= 0) {
+            touch(session);
+        } else {
+            skippedWriteCount.incrementAndGet();
+            return;
+        }
+        writeCount.incrementAndGet();
+        if (savedId != null && !savedId.equals(session.getId())) {
+            evict(savedId);
+        }
+        session.markSaved();
+        cache(session.delegate, session.savedLastAccessedTime);
+    }
+
+    private void insert(StoredSession session) {
+        try (var connection = sql2o.open()) {
+            connection.createQuery("""
+                    INSERT INTO http_sessions(id, creation_time, last_access_time, max_inactive_interval, expiry_time, attributes)
+                    VALUES (:id, :creationTime, :lastAccessTime, :maxInactiveInterval, :expiryTime, :attributes)
+                    """)
+                    .addParameter("id", session.getId())
+                    .addParameter("creationTime", session.getCreationTime().toEpochMilli())
+                    .addParameter("lastAccessTime", session.getLastAccessedTime().toEpochMilli())
+                    .addParameter("maxInactiveInterval", (int) session.getMaxInactiveInterval().toSeconds())
+                    .addParameter("expiryTime", getExpiryTime(session))
+                    .addParameter("attributes", serialize(session.delegate))
+                    .executeUpdate();
+        }
+    }
+
+    private void update(StoredSession session) {
+        try (var connection = sql2o.open()) {
+            connection.createQuery("""
+                    UPDATE http_sessions
+                    SET id = :id, last_access_time = :lastAccessTime, max_inactive_interval = :maxInactiveInterval,
+                        expiry_time = :expiryTime, attributes = :attributes
+                    WHERE id = :savedId
+                    """)
+                    .addParameter("id", session.getId())
+                    .addParameter("lastAccessTime", session.getLastAccessedTime().toEpochMilli())
+                    .addParameter("maxInactiveInterval", (int) session.getMaxInactiveInterval().toSeconds())
+                    .addParameter("expiryTime", getExpiryTime(session))
+                    .addParameter("attributes", serialize(session.delegate))
+                    .addParameter("savedId", session.savedId)
+                    .executeUpdate();
+        }
+    }
+
+    private void touch(StoredSession session) {
+        try (var connection = sql2o.open()) {
+            connection.createQuery("UPDATE http_sessions SET last_access_time = :lastAccessTime, expiry_time = :expiryTime WHERE id = :id")
+                    .addParameter("lastAccessTime", session.getLastAccessedTime().toEpochMilli())
+                    .addParameter("expiryTime", getExpiryTime(session))
+                    .addParameter("id", session.getId())
+                    .executeUpdate();
+        }
+    }
+
+    /* отрицательное время жизни - сессия не истекает */
+    private static long getExpiryTime(Session session) {
+        var interval = session.getMaxInactiveInterval();
+        return interval.isNegative() ? Long.MAX_VALUE : session.getLastAccessedTime().plus(interval).toEpochMilli();
+    }
+
+    private byte[] serialize(MapSession session) {
+        var attributes = new HashMap<String, Object>();
+        for (var name : session.getAttributeNames()) {
+            attributes.put(name, session.getAttribute(name));
+        }
+        return serializer.convert(attributes);
+    }
+
+    @Override
+    public StoredSession findById(String id) {
+        var cached = getCached(id);
+        if (cached != null) {
+            nearCacheHitCount.incrementAndGet();
+            return open(cached.session, cached.savedLastAccessedTime);
+        }
+        MapSession session;
+        try (var connection = sql2o.open()) {
+            session = connection.createQuery("""
+                    SELECT id, creation_time, last_access_time, max_inactive_interval, attributes
+                    FROM http_sessions WHERE id = :id
+                    """)
+                    .addParameter("id", id)
+                    .executeAndFetchFirst(this::toSession);
+        }
+        readCount.incrementAndGet();
+        if (session == null) {
+            return null;
+        }
+        if (session.isExpired()) {
+            deleteById(id);
+            return null;
+        }
+        cache(session, session.getLastAccessedTime());
+        return open(session, session.getLastAccessedTime());
+    }
+
+    @SuppressWarnings("unchecked")
+    private MapSession toSession(ResultSet resultSet) throws SQLException {
+        var session = new MapSession(resultSet.getString(1));
+        session.setCreationTime(Instant.ofEpochMilli(resultSet.getLong(2)));
+        session.setLastAccessedTime(Instant.ofEpochMilli(resultSet.getLong(3)));
+        session.setMaxInactiveInterval(Duration.ofSeconds(resultSet.getInt(4)));
+        var attributes = (Map<String, Object>) deserializer.convert(resultSet.getBytes(5));
+        attributes.forEach(session::setAttribute);
+        return session;
+    }
+
+    /* каждый запрос получает свою копию: изменения одного запроса не видны другим до сохранения */
+    private StoredSession open(MapSession session, Instant savedLastAccessedTime) {
+        var stored = new StoredSession(new MapSession(session), session.getId());
+        stored.savedLastAccessedTime = savedLastAccessedTime;
+        return stored;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        evict(id);
+        try (var connection = sql2o.open()) {
+            connection.createQuery("DELETE FROM http_sessions WHERE id = :id")
+                    .addParameter("id", id)
+                    .executeUpdate();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${session.jdbc.cleanup-interval:PT1M}")
+    public void deleteExpired() {
+        int deleted;
+        do {
+            try (var connection = sql2o.open()) {
+                deleted = connection.createQuery("""
+                        DELETE FROM http_sessions WHERE id IN (
+                            SELECT id FROM http_sessions WHERE expiry_time < :now LIMIT :limit
+                        )
+                        """)
+                        .addParameter("now", System.currentTimeMillis())
+                        .addParameter("limit", cleanupBatchSize)
+                        .executeUpdate()
+                        .getResult();
+            }
+            expiredCount.addAndGet(deleted);
+        } while (deleted == cleanupBatchSize);
+    }
+
+    private Cached getCached(String id) {
+        synchronized (nearCache) {
+            var cached = nearCache.get(id);
+            if (cached == null) {
+                return null;
+            }
+            if (System.nanoTime() - cached.cachedAt >= nearCacheTtlNanos || cached.session.isExpired()) {
+                nearCache.remove(id);
+                return null;
+            }
+            return cached;
+        }
+    }
+
+    private void cache(MapSession session, Instant savedLastAccessedTime) {
+        if (nearCacheSize <= 0) {
+            return;
+        }
+        var cached = new Cached(new MapSession(session), savedLastAccessedTime, System.nanoTime());
+        synchronized (nearCache) {
+            nearCache.put(session.getId(), cached);
+            var iterator = nearCache.values().iterator();
+            while (nearCache.size() > nearCacheSize && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+
+    private void evict(String id) {
+        synchronized (nearCache) {
+            nearCache.remove(id);
+        }
+    }
+
+    public int getNearCacheSize() {
+        synchronized (nearCache) {
+            return nearCache.size();
+        }
+    }
+
+    public long getNearCacheHitCount() {
+        return nearCacheHitCount.get();
+    }
+
+    public long getReadCount() {
+        return readCount.get();
+    }
+
+    public long getWriteCount() {
+        return writeCount.get();
+    }
+
+    public long getSkippedWriteCount() {
+        return skippedWriteCount.get();
+    }
+
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("sessions.store.reads", this, Sql2oSessionRepository::getNearCacheHitCount)
+                .tag("source", "near-cache").register(registry);
+        FunctionCounter.builder("sessions.store.reads", this, Sql2oSessionRepository::getReadCount)
+                .tag("source", "database").register(registry);
+        FunctionCounter.builder("sessions.store.writes", this, Sql2oSessionRepository::getWriteCount)
+                .tag("result", "written").register(registry);
+        FunctionCounter.builder("sessions.store.writes", this, Sql2oSessionRepository::getSkippedWriteCount)
+                .tag("result", "skipped").register(registry);
+        FunctionCounter.builder("sessions.store.expired", this, Sql2oSessionRepository::getExpiredCount)
+                .register(registry);
+        Gauge.builder("sessions.store.near-cache.size", this, Sql2oSessionRepository::getNearCacheSize)
+                .register(registry);
+    }
+
+    private static final class Cached {
+
+        private final MapSession session;
+
+        private final Instant savedLastAccessedTime;
+
+        private final long cachedAt;
+
+        private Cached(MapSession session, Instant savedLastAccessedTime, long cachedAt) {
+            this.session = session;
+            this.savedLastAccessedTime = savedLastAccessedTime;
+            this.cachedAt = cachedAt;
+        }
+
+    }
+
+    /* сессия одного запроса. помнит, под каким id и с каким временем доступа она лежит в БД,
+    и менялись ли атрибуты или время жизни - по этому save решает, что и нужно ли писать */
+    public static final class StoredSession implements Session {
+
+        private final MapSession delegate;
+
+        /* null - сессия еще не сохранялась */
+        private String savedId;
+
+        private Instant savedLastAccessedTime;
+
+        private boolean changed;
+
+        private StoredSession(MapSession delegate, String savedId) {
+            this.delegate = delegate;
+            this.savedId = savedId;
+            this.savedLastAccessedTime = delegate.getLastAccessedTime();
+        }
+
+        private void markSaved() {
+            savedId = delegate.getId();
+            savedLastAccessedTime = delegate.getLastAccessedTime();
+            changed = false;
+        }
+
+        @Override
+        public String getId() {
+            return delegate.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            return delegate.changeSessionId();
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return delegate.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return delegate.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            delegate.setAttribute(attributeName, attributeValue);
+            changed = true;
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            if (delegate.getAttribute(attributeName) != null) {
+                delegate.removeAttribute(attributeName);
+                changed = true;
+            }
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return delegate.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            delegate.setLastAccessedTime(lastAccessedTime);
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            if (!interval.equals(delegate.getMaxInactiveInterval())) {
+                delegate.setMaxInactiveInterval(interval);
+                changed = true;
+            }
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return delegate.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return delegate.isExpired();
+        }
+
+    }
+
+}
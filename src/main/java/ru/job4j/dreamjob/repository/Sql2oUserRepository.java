@@ -38,18 +38,33 @@ public class Sql2oUserRepository implements UserRepository {
     }
 
     @Override
-    public Optional<User> findByEmailAndPassword(String email, String password) {
+    public Optional<User> findByEmail(String email) {
         try (Connection connection = sql2o.open()) {
-            String sql = """
-                    SELECT * FROM users WHERE email = :email and password = :password
-                    """;
-            Query query = connection.createQuery(sql);
+            Query query = connection.createQuery("SELECT " + RowMappers.USER_COLUMNS + " FROM users WHERE email = :email");
             query.addParameter("email", email);
+            return Optional.ofNullable(query.executeAndFetchFirst(RowMappers.USER));
+        }
+    }
+
+    @Override
+    public Optional<User> findById(int id) {
+        try (Connection connection = sql2o.open()) {
+            Query query = connection.createQuery("SELECT " + RowMappers.USER_COLUMNS + " FROM users WHERE id = :id");
+            query.addParameter("id", id);
+            return Optional.ofNullable(query.executeAndFetchFirst(RowMappers.USER));
+        }
+    }
+
+    @Override
+    public boolean updatePassword(int id, String password) {
+        try (Connection connection = sql2o.open()) {
+            Query query = connection.createQuery("UPDATE users SET password = :password WHERE id = :id");
             query.addParameter("password", password);
-            User user = query.executeAndFetchFirst(User.class);
-            return Optional.ofNullable(user);
+            query.addParameter("id", id);
+            return query.executeUpdate().getResult() > 0;
         }
     }
+
     public void deleteAllUsers() {
         try (Connection connection = sql2o.open()) {
             Query query = connection.createQuery("DELETE FROM users");
@@ -1,17 +1,31 @@
 package ru.job4j.dreamjob.repository;
 
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.sql2o.Connection;
 import org.sql2o.Query;
 import org.sql2o.Sql2o;
+import org.sql2o.Sql2oException;
+import ru.job4j.dreamjob.dto.VacancySummary;
+import ru.job4j.dreamjob.dto.ListFilter;
+import ru.job4j.dreamjob.dto.PageCursor;
 import ru.job4j.dreamjob.model.Vacancy;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
 public class Sql2oVacancyRepository implements VacancyRepository {
 
+    private static final String INSERT_SQL = """
+            INSERT INTO vacancies(title, description, creation_date, visible, city_id, file_id)
+            VALUES (:title, :description, :creationDate, :visible, :cityId, :fileId)
+            """;
+
     private final Sql2o sql2o;
 
     public Sql2oVacancyRepository(Sql2o sql2o) {
@@ -21,23 +35,43 @@ public class Sql2oVacancyRepository implements VacancyRepository {
     @Override
     public Vacancy save(Vacancy vacancy) {
         try (Connection connection = sql2o.open()) {
-            String sql = """
-                      INSERT INTO vacancies(title, description, creation_date, visible, city_id, file_id)
-                      VALUES (:title, :description, :creationDate, :visible, :cityId, :fileId)
-                      """;
-            Query query = connection.createQuery(sql, true)
-                    .addParameter("title", vacancy.getTitle())
-                    .addParameter("description", vacancy.getDescription())
-                    .addParameter("creationDate", vacancy.getCreationDate())
-                    .addParameter("visible", vacancy.getVisible())
-                    .addParameter("cityId", vacancy.getCityId())
-                    .addParameter("fileId", vacancy.getFileId());
+            Query query = bindInsert(connection.createQuery(INSERT_SQL, true), vacancy);
             int generatedId = query.executeUpdate().getKey(Integer.class);
             vacancy.setId(generatedId);
             return vacancy;
         }
     }
 
+    /* одна транзакция и один пакет JDBC на все записи: один обмен с БД вместо отдельного INSERT на каждую */
+    @Override
+    @Transactional
+    public Collection<Vacancy> saveAll(Collection<Vacancy> vacancies) {
+        if (vacancies.isEmpty()) {
+            return vacancies;
+        }
+        try (var connection = sql2o.open()) {
+            var query = connection.createQuery(INSERT_SQL, true);
+            for (var vacancy : vacancies) {
+                bindInsert(query, vacancy).addToBatch();
+            }
+            var ids = query.executeBatch().getKeys(Integer.class).iterator();
+            for (var vacancy : vacancies) {
+                vacancy.setId(ids.next());
+            }
+            return vacancies;
+        }
+    }
+
+    /* fileId == 0 - вакансия без картинки, например загруженная списком */
+    private Query bindInsert(Query query, Vacancy vacancy) {
+        return query.addParameter("title", vacancy.getTitle())
+                .addParameter("description", vacancy.getDescription())
+                .addParameter("creationDate", vacancy.getCreationDate())
+                .addParameter("visible", vacancy.getVisible())
+                .addParameter("cityId", vacancy.getCityId())
+                .addParameter("fileId", vacancy.getFileId() == 0 ? null : vacancy.getFileId());
+    }
+
     @Override
     public boolean deleteById(int id) {
         try (Connection connection = sql2o.open()) {
@@ -48,6 +82,15 @@ public class Sql2oVacancyRepository implements VacancyRepository {
         }
     }
 
+    @Override
+    public Optional<Integer> findFileIdForUpdate(int id) {
+        try (var connection = sql2o.open()) {
+            var query = connection.createQuery("SELECT COALESCE(file_id, 0) FROM vacancies WHERE id = :id FOR UPDATE");
+            query.addParameter("id", id);
+            return Optional.ofNullable(query.executeScalar(Integer.class));
+        }
+    }
+
     @Override
     public boolean update(Vacancy vacancy) {
         try (var connection = sql2o.open()) {
@@ -63,7 +106,7 @@ public class Sql2oVacancyRepository implements VacancyRepository {
                     .addParameter("creationDate", vacancy.getCreationDate())
                     .addParameter("visible", vacancy.getVisible())
                     .addParameter("cityId", vacancy.getCityId())
-                    .addParameter("fileId", vacancy.getFileId())
+                    .addParameter("fileId", vacancy.getFileId() == 0 ? null : vacancy.getFileId())
                     .addParameter("id", vacancy.getId());
             int affectedRows = query.executeUpdate().getResult();
             return affectedRows > 0;
@@ -71,20 +114,81 @@ public class Sql2oVacancyRepository implements VacancyRepository {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Vacancy> findById(int id) {
         try (Connection connection = sql2o.open()) {
-            Query query = connection.createQuery("SELECT * FROM vacancies WHERE id = :id");
+            Query query = connection.createQuery("SELECT " + RowMappers.VACANCY_COLUMNS + " FROM vacancies WHERE id = :id");
             query.addParameter("id", id);
-            Vacancy vacancy = query.setColumnMappings(Vacancy.COLUMN_MAPPING).executeAndFetchFirst(Vacancy.class);
+            Vacancy vacancy = query.executeAndFetchFirst(RowMappers.VACANCY);
             return Optional.ofNullable(vacancy);
         }
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Collection<Vacancy> findAll() {
         try (var connection = sql2o.open()) {
-            var query = connection.createQuery("SELECT * FROM vacancies");
-            return query.setColumnMappings(Vacancy.COLUMN_MAPPING).executeAndFetch(Vacancy.class);
+            var query = connection.createQuery("SELECT " + RowMappers.VACANCY_COLUMNS + " FROM vacancies");
+            return query.executeAndFetch(RowMappers.VACANCY);
+        }
+    }
+
+    /* курсор на стороне БД: PostgreSQL отдает строки порциями по fetchSize только при выключенном autocommit,
+    поэтому чтение идет в транзакции только для чтения. sql2o не дает задать fetchSize, запрос выполняется через JDBC */
+    @Override
+    @Transactional(readOnly = true)
+    public void forEach(int fetchSize, Consumer<Vacancy> action) {
+        try (var connection = sql2o.open();
+             var statement = connection.getJdbcConnection().prepareStatement(
+                     "SELECT " + RowMappers.VACANCY_COLUMNS + " FROM vacancies ORDER BY id")) {
+            statement.setFetchSize(fetchSize);
+            try (var resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    action.accept(RowMappers.VACANCY.handle(resultSet));
+                }
+            }
+        } catch (SQLException e) {
+            throw new Sql2oException("Failed to read vacancies", e);
+        }
+    }
+
+    /* поиск позиции по индексу (creation_date, id), без перебора предыдущих страниц, а при отборе по городу -
+    по индексу (city_id, visible, creation_date, id). выбираются только столбцы для списка, город подставляется соединением */
+    @Override
+    @Transactional(readOnly = true)
+    public List<VacancySummary> findPage(ListFilter filter, PageCursor after, int limit) {
+        var conditions = new ArrayList<String>();
+        if (filter.getCityId() != 0) {
+            conditions.add("v.city_id = :cityId");
+        }
+        if (filter.isVisibleOnly()) {
+            conditions.add("v.visible = TRUE");
+        }
+        if (filter.getCreatedAfter() != null) {
+            conditions.add("v.creation_date >= :createdAfter");
+        }
+        if (after != null) {
+            conditions.add("(v.creation_date, v.id) < (:creationDate, :id)");
+        }
+        try (var connection = sql2o.open()) {
+            var sql = """
+                    SELECT v.id, v.title, v.creation_date, v.visible, city.name AS city_name
+                    FROM vacancies v LEFT JOIN cities city ON city.id = v.city_id
+                    """ + (conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + "\n") + """
+                    ORDER BY v.creation_date DESC, v.id DESC LIMIT :limit
+                    """;
+            var query = connection.createQuery(sql).addParameter("limit", limit);
+            if (filter.getCityId() != 0) {
+                query.addParameter("cityId", filter.getCityId());
+            }
+            if (filter.getCreatedAfter() != null) {
+                query.addParameter("createdAfter", filter.getCreatedAfter());
+            }
+            if (after != null) {
+                query.addParameter("creationDate", after.getCreationDate())
+                        .addParameter("id", after.getId());
+            }
+            return query.executeAndFetch(RowMappers.VACANCY_SUMMARY);
         }
     }
 
@@ -8,6 +8,10 @@ public interface UserRepository {
 
     Optional<User> save(User user);
 
-    Optional<User> findByEmailAndPassword(String email, String password);
+    Optional<User> findByEmail(String email);
+
+    Optional<User> findById(int id);
+
+    boolean updatePassword(int id, String password);
 
 }
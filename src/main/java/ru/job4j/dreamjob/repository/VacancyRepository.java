@@ -1,20 +1,40 @@
 package ru.job4j.dreamjob.repository;
 
+import ru.job4j.dreamjob.dto.VacancySummary;
+import ru.job4j.dreamjob.dto.ListFilter;
+import ru.job4j.dreamjob.dto.PageCursor;
 import ru.job4j.dreamjob.model.Vacancy;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface VacancyRepository {
 
     Vacancy save(Vacancy vacancy);
 
+    /* сохраняет все записи и проставляет им id */
+    Collection<Vacancy> saveAll(Collection<Vacancy> vacancies);
+
     boolean deleteById(int id);
 
+    /* file_id записи из основной БД (0 - записи без картинки), строка блокируется до конца транзакции.
+    пусто - записи нет */
+    Optional<Integer> findFileIdForUpdate(int id);
+
     boolean update(Vacancy vacancy);
 
     Optional<Vacancy> findById(int id);
 
     Collection<Vacancy> findAll();
 
+    /* передает action все записи по возрастанию id, не собирая их в памяти. fetchSize - сколько строк
+    драйвер забирает из БД за раз */
+    void forEach(int fetchSize, Consumer<Vacancy> action);
+
+    /* до limit записей, подходящих под filter, по убыванию (creation_date, id), идущих после after.
+    after == null - с начала списка */
+    List<VacancySummary> findPage(ListFilter filter, PageCursor after, int limit);
+
 }
@@ -0,0 +1,101 @@
+package ru.job4j.dreamjob.service;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/* Resource поверх ByteBuffer (в том числе выделенного вне кучи). Отдается клиенту так же, как файл с диска:
+с Content-Length, Last-Modified и поддержкой Range. Каждый вызов getInputStream читает свою копию позиции,
+поэтому один экземпляр можно отдавать нескольким запросам одновременно */
+public class ByteBufferResource extends AbstractResource {
+
+    /* время изменения неизвестно */
+    public static final long UNKNOWN_LAST_MODIFIED = -1;
+
+    private final String filename;
+
+    private final ByteBuffer content;
+
+    private final long lastModified;
+
+    public ByteBufferResource(String filename, ByteBuffer content, long lastModified) {
+        this.filename = filename;
+        this.content = content.asReadOnlyBuffer();
+        this.lastModified = lastModified;
+    }
+
+    @Override
+    public String getFilename() {
+        return filename;
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return content.remaining();
+    }
+
+    @Override
+    public long lastModified() throws FileNotFoundException {
+        if (lastModified == UNKNOWN_LAST_MODIFIED) {
+            throw new FileNotFoundException(getDescription() + " has no last-modified time");
+        }
+        return lastModified;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ByteBufferInputStream(content.duplicate());
+    }
+
+    @Override
+    public String getDescription() {
+        return "Byte buffer resource [" + filename + "]";
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            var count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long count) {
+            var skipped = (int) Math.max(0, Math.min(count, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+}
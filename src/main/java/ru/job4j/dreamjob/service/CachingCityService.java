@@ -0,0 +1,129 @@
+package ru.job4j.dreamjob.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import ru.job4j.dreamjob.model.City;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/* Справочник городов в памяти перед SimpleCityService. Города почти не меняются, а нужны почти на каждой странице,
+поэтому они читаются из БД при старте приложения и затем не чаще раза в city.cache.ttl, либо по вызову refresh.
+Прочитанный справочник не изменяется и заменяется целиком, так что чтение идет без блокировок.
+Пока справочник перечитывается, остальные потоки получают прежний; если перечитать не удалось, прежний остается
+еще на city.cache.ttl, чтобы запросы к недоступной БД не шли на каждой странице */
+@Service
+@Primary
+@ThreadSafe
+public class CachingCityService implements CityService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CachingCityService.class);
+
+    private final CityService cityService;
+
+    private final long ttlNanos;
+
+    private final Lock refreshLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot;
+
+    public CachingCityService(CityService simpleCityService,
+                              @Value("${city.cache.ttl:PT10M}") Duration ttl) {
+        this.cityService = simpleCityService;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /* если БД при старте недоступна, приложение все равно запускается, а справочник читается при первом запросе */
+    @PostConstruct
+    public void preload() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to preload cities, they will be loaded on first request", e);
+        }
+    }
+
+    public void refresh() {
+        refreshLock.lock();
+        try {
+            snapshot = new Snapshot(cityService.findAll(), System.nanoTime());
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    @Override
+    public Collection<City> findAll() {
+        return getSnapshot().cities;
+    }
+
+    @Override
+    public Optional<City> findById(int id) {
+        return Optional.ofNullable(getSnapshot().citiesById.get(id));
+    }
+
+    private Snapshot getSnapshot() {
+        var current = snapshot;
+        if (current == null) {
+            refreshLock.lock();
+            try {
+                if (snapshot == null) {
+                    refresh();
+                }
+                return snapshot;
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+        if (System.nanoTime() - current.loadedAt >= ttlNanos && refreshLock.tryLock()) {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                LOG.warn("Failed to refresh cities, keeping the loaded ones", e);
+                snapshot = new Snapshot(current, System.nanoTime());
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+        return snapshot;
+    }
+
+    private static final class Snapshot {
+
+        private final List<City> cities;
+
+        private final Map<Integer, City> citiesById;
+
+        private final long loadedAt;
+
+        private Snapshot(Collection<City> cities, long loadedAt) {
+            this.cities = cities.stream()
+                    .sorted(Comparator.comparingInt(City::getId))
+                    .collect(Collectors.toUnmodifiableList());
+            this.citiesById = this.cities.stream()
+                    .collect(Collectors.toUnmodifiableMap(City::getId, Function.identity()));
+            this.loadedAt = loadedAt;
+        }
+
+        private Snapshot(Snapshot snapshot, long loadedAt) {
+            this.cities = snapshot.cities;
+            this.citiesById = snapshot.citiesById;
+            this.loadedAt = loadedAt;
+        }
+
+    }
+
+}
@@ -0,0 +1,259 @@
+package ru.job4j.dreamjob.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.model.File;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Кеш содержимого часто запрашиваемых файлов перед основным FileService.
+Суммарный размер содержимого в кеше ограничен в байтах, при переполнении вытесняются давно не запрошенные файлы (LRU).
+Содержимое может храниться вне кучи (direct ByteBuffer), чтобы крупные картинки не нагружали сборщик мусора.
+Файлы больше file.cache.max-file-size не кешируются и отдаются потоком с диска */
+@Service
+@Primary
+@ThreadSafe
+@ConditionalOnProperty(name = "file.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class CachingFileService implements FileService, MeterBinder {
+
+    private final FileService fileService;
+
+    private final long maxSize;
+
+    private final long maxFileSize;
+
+    private final boolean offHeap;
+
+    /* порядок доступа: первым идет файл, который дольше всех не запрашивали */
+    private final Map<Integer, ByteBufferResource> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long usedBytes;
+
+    /* сколько чтений каждого файла сейчас идет мимо кеша. поля ниже защищены блокировкой entries */
+    private final Map<Integer, Integer> loads = new HashMap<>();
+
+    /* версия последнего удаления файла, пока его читают: хранится, только пока чтения не закончились */
+    private final Map<Integer, Long> invalidatedAt = new HashMap<>();
+
+    private long sequence;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public CachingFileService(FileService fileService,
+                              @Value("${file.cache.max-size:64MB}") DataSize maxSize,
+                              @Value("${file.cache.max-file-size:1MB}") DataSize maxFileSize,
+                              @Value("${file.cache.off-heap:false}") boolean offHeap) {
+        this.fileService = fileService;
+        this.maxSize = maxSize.toBytes();
+        this.maxFileSize = Math.min(maxFileSize.toBytes(), this.maxSize);
+        this.offHeap = offHeap;
+    }
+
+    @Override
+    public File save(FileDto fileDto) {
+        return fileService.save(fileDto);
+    }
+
+    @Override
+    public Optional<Resource> getResourceById(int id) {
+        var cached = get(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        var loadStart = startLoad(id);
+        ByteBufferResource loaded = null;
+        try {
+            var resourceOptional = fileService.getResourceById(id);
+            if (resourceOptional.isEmpty()) {
+                return Optional.empty();
+            }
+            loaded = load(resourceOptional.get());
+            return loaded == null ? resourceOptional : Optional.of(loaded);
+        } finally {
+            endLoad(id, loadStart, loaded);
+        }
+    }
+
+    @Override
+    public boolean deleteById(int id) {
+        invalidate(id);
+        return fileService.deleteById(id);
+    }
+
+    @Override
+    public void deleteAllById(Collection<Integer> ids) {
+        ids.forEach(this::invalidate);
+        fileService.deleteAllById(ids);
+    }
+
+    @Override
+    public Collection<Integer> deleteUnreferenced(LocalDateTime referencedBefore, int limit) {
+        var deleted = fileService.deleteUnreferenced(referencedBefore, limit);
+        deleted.forEach(this::invalidate);
+        return deleted;
+    }
+
+    @Override
+    public int deleteUntracked(LocalDateTime modifiedBefore) {
+        return fileService.deleteUntracked(modifiedBefore);
+    }
+
+    private ByteBufferResource get(int id) {
+        ByteBufferResource cached;
+        synchronized (entries) {
+            cached = entries.get(id);
+        }
+        if (cached == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        return cached;
+    }
+
+    /* null, если файл слишком большой для кеша */
+    private ByteBufferResource load(Resource resource) {
+        try {
+            var length = resource.contentLength();
+            if (length > maxFileSize) {
+                return null;
+            }
+            var buffer = offHeap ? ByteBuffer.allocateDirect((int) length) : ByteBuffer.allocate((int) length);
+            try (var channel = resource.readableChannel()) {
+                var read = 0;
+                while (buffer.hasRemaining() && read != -1) {
+                    read = channel.read(buffer);
+                }
+            }
+            buffer.flip();
+            return new ByteBufferResource(resource.getFilename(), buffer, getLastModified(resource));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long getLastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            return ByteBufferResource.UNKNOWN_LAST_MODIFIED;
+        }
+    }
+
+    /* вызывается перед чтением файла мимо кеша, результат передается в endLoad */
+    private long startLoad(int id) {
+        synchronized (entries) {
+            loads.merge(id, 1, Integer::sum);
+            return ++sequence;
+        }
+    }
+
+    /* прочитанное содержимое не кладется в кеш, если файл удалили, пока оно читалось:
+    иначе удаленный файл отдавался бы из кеша до вытеснения */
+    private void endLoad(int id, long loadStart, ByteBufferResource resource) {
+        synchronized (entries) {
+            var stale = invalidatedAt.getOrDefault(id, 0L) > loadStart;
+            if (loads.merge(id, -1, Integer::sum) == 0) {
+                loads.remove(id);
+                invalidatedAt.remove(id);
+            }
+            if (resource != null && !stale) {
+                put(id, resource);
+            }
+        }
+    }
+
+    private void put(int id, ByteBufferResource resource) {
+        synchronized (entries) {
+            var previous = entries.put(id, resource);
+            if (previous != null) {
+                usedBytes -= previous.contentLength();
+            }
+            usedBytes += resource.contentLength();
+            var iterator = entries.entrySet().iterator();
+            while (usedBytes > maxSize && iterator.hasNext()) {
+                var eldest = iterator.next();
+                if (eldest.getKey() == id) {
+                    break;
+                }
+                usedBytes -= eldest.getValue().contentLength();
+                iterator.remove();
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    private void invalidate(int id) {
+        synchronized (entries) {
+            var removed = entries.remove(id);
+            if (removed != null) {
+                usedBytes -= removed.contentLength();
+            }
+            if (loads.containsKey(id)) {
+                invalidatedAt.put(id, ++sequence);
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public long getUsedBytes() {
+        synchronized (entries) {
+            return usedBytes;
+        }
+    }
+
+    /* метрики в терминах micrometer для кешей: cache.gets{result=hit|miss}, cache.evictions, cache.size */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        var tags = Tags.of("cache", "files");
+        FunctionCounter.builder("cache.gets", this, CachingFileService::getHitCount)
+                .tags(tags).tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", this, CachingFileService::getMissCount)
+                .tags(tags).tag("result", "miss").register(registry);
+        FunctionCounter.builder("cache.evictions", this, CachingFileService::getEvictionCount)
+                .tags(tags).register(registry);
+        Gauge.builder("cache.size", this, cache -> {
+            synchronized (cache.entries) {
+                return cache.entries.size();
+            }
+        }).tags(tags).register(registry);
+        Gauge.builder("cache.used.bytes", this, CachingFileService::getUsedBytes)
+                .tags(tags).baseUnit("bytes").register(registry);
+    }
+
+}
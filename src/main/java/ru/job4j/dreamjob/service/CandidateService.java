@@ -1,9 +1,14 @@
 package ru.job4j.dreamjob.service;
 
 import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.dto.CandidateSummary;
 import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.ListFilter;
+import ru.job4j.dreamjob.dto.Page;
+import ru.job4j.dreamjob.dto.PageCursor;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface CandidateService {
@@ -18,4 +23,10 @@ public interface CandidateService {
 
     Collection<Candidate> findAll();
 
+    /* страница из size записей, подходящих под filter, начиная сразу после after. after == null - первая страница */
+    Page<CandidateSummary> findPage(ListFilter filter, PageCursor after, int size);
+
+    /* до limit записей, подходящих под поисковый запрос, от самых подходящих */
+    List<CandidateSummary> search(String query, int limit);
+
 }
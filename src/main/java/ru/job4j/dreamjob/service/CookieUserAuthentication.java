@@ -0,0 +1,151 @@
+package ru.job4j.dreamjob.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Service;
+import ru.job4j.dreamjob.dto.UserPrincipal;
+import ru.job4j.dreamjob.model.User;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/* Вход без сессии (auth.mode=cookie): id и имя вошедшего пользователя хранятся в cookie, подписанной
+HMAC-SHA256 ключом auth.cookie.secret. Любой экземпляр приложения с тем же ключом проверяет cookie сам,
+без общего хранилища сессий и без привязки браузера к экземпляру.
+Выход удаляет cookie в браузере, но отозвать уже выданную cookie нельзя: она действует до истечения
+auth.cookie.max-age. Смена ключа делает недействительными все выданные cookie */
+@Service
+@ConditionalOnProperty(name = "auth.mode", havingValue = "cookie")
+public class CookieUserAuthentication implements UserAuthentication {
+
+    static final String COOKIE_NAME = "dreamjob_auth";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final int MIN_SECRET_LENGTH = 32;
+
+    /* фильтры спрашивают пользователя дважды за запрос, подпись проверяется один раз */
+    private static final String RESOLVED_USER = CookieUserAuthentication.class.getName() + ".user";
+
+    private final SecretKeySpec key;
+
+    private final Duration maxAge;
+
+    private final boolean secure;
+
+    /* Mac не потокобезопасен, а создавать его на каждый запрос дороже проверки подписи */
+    private final ThreadLocal<Mac> macs;
+
+    public CookieUserAuthentication(@Value("${auth.cookie.secret:}") String secret,
+                                    @Value("${auth.cookie.max-age:P7D}") Duration maxAge,
+                                    @Value("${auth.cookie.secure:false}") boolean secure) {
+        if (secret.length() < MIN_SECRET_LENGTH) {
+            throw new IllegalStateException("auth.cookie.secret must be at least " + MIN_SECRET_LENGTH + " characters long");
+        }
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.maxAge = maxAge;
+        this.secure = secure;
+        this.macs = ThreadLocal.withInitial(this::createMac);
+    }
+
+    private Mac createMac() {
+        try {
+            var mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC is not available", e);
+        }
+    }
+
+    @Override
+    public Optional<UserPrincipal> getPrincipal(HttpServletRequest request) {
+        var resolved = request.getAttribute(RESOLVED_USER);
+        if (resolved == null) {
+            resolved = findCookie(request).flatMap(this::verify);
+            request.setAttribute(RESOLVED_USER, resolved);
+        }
+        @SuppressWarnings("unchecked")
+        var principal = (Optional<UserPrincipal>) resolved;
+        return principal;
+    }
+
+    private Optional<String> findCookie(HttpServletRequest request) {
+        var cookies = request.getCookies();
+        if (cookies == null) {
+            return Optional.empty();
+        }
+        for (var cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                return Optional.of(cookie.getValue());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /* значение - base64url("id:срок действия:имя") + "." + base64url(подпись) */
+    private Optional<UserPrincipal> verify(String value) {
+        var dot = value.indexOf('.');
+        if (dot < 0) {
+            return Optional.empty();
+        }
+        try {
+            var decoder = Base64.getUrlDecoder();
+            var payload = decoder.decode(value.substring(0, dot));
+            var signature = decoder.decode(value.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(payload), signature)) {
+                return Optional.empty();
+            }
+            var fields = new String(payload, StandardCharsets.UTF_8).split(":", 3);
+            if (fields.length != 3 || Long.parseLong(fields[1]) <= Instant.now().getEpochSecond()) {
+                return Optional.empty();
+            }
+            return Optional.of(new UserPrincipal(Integer.parseInt(fields[0]), fields[2]));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(byte[] payload) {
+        return macs.get().doFinal(payload);
+    }
+
+    @Override
+    public void login(User user, HttpServletRequest request, HttpServletResponse response) {
+        var expires = Instant.now().plus(maxAge).getEpochSecond();
+        var payload = (user.getId() + ":" + expires + ":" + user.getName()).getBytes(StandardCharsets.UTF_8);
+        var encoder = Base64.getUrlEncoder().withoutPadding();
+        var value = encoder.encodeToString(payload) + "." + encoder.encodeToString(sign(payload));
+        addCookie(response, value, maxAge);
+        request.setAttribute(RESOLVED_USER, Optional.of(UserPrincipal.of(user)));
+    }
+
+    @Override
+    public void logout(HttpServletRequest request, HttpServletResponse response) {
+        addCookie(response, "", Duration.ZERO);
+        request.setAttribute(RESOLVED_USER, Optional.empty());
+    }
+
+    private void addCookie(HttpServletResponse response, String value, Duration cookieMaxAge) {
+        var cookie = ResponseCookie.from(COOKIE_NAME, value)
+                .path("/")
+                .httpOnly(true)
+                .secure(secure)
+                .sameSite("Lax")
+                .maxAge(cookieMaxAge)
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+
+}
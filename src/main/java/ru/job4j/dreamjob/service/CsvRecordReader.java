@@ -0,0 +1,88 @@
+package ru.job4j.dreamjob.service;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/* CSV в UTF-8 по RFC 4180: поля через запятую, поле в кавычках может содержать запятые, переводы строк
+и удвоенные кавычки. первая строка - имена полей, пустые строки пропускаются */
+final class CsvRecordReader implements RecordReader {
+
+    private final Reader reader;
+
+    private final List<String> header;
+
+    CsvRecordReader(InputStream inputStream) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        var names = readRow();
+        if (names == null) {
+            throw new EOFException("CSV header is missing");
+        }
+        if (!names.isEmpty() && names.get(0).startsWith("\uFEFF")) {
+            names.set(0, names.get(0).substring(1));
+        }
+        this.header = names;
+    }
+
+    /* поля сверх заголовка отбрасываются, недостающих полей в записи просто нет */
+    @Override
+    public Map<String, String> next() throws IOException {
+        var row = readRow();
+        while (row != null && row.size() == 1 && row.get(0).isEmpty()) {
+            row = readRow();
+        }
+        if (row == null) {
+            return null;
+        }
+        var record = new HashMap<String, String>();
+        for (int i = 0; i < Math.min(header.size(), row.size()); i++) {
+            record.put(header.get(i).trim(), row.get(i));
+        }
+        return record;
+    }
+
+    private List<String> readRow() throws IOException {
+        var c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        var fields = new ArrayList<String>();
+        var field = new StringBuilder();
+        var quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new EOFException("CSV quoted field is not closed");
+                }
+                if (c == '"') {
+                    c = reader.read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package ru.job4j.dreamjob.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/* CSV в UTF-8 в том же виде, который читает CsvRecordReader: первая строка - имена полей, поле с запятой,
+кавычкой или переводом строки берется в кавычки, кавычки внутри удваиваются */
+final class CsvRecordWriter implements RecordWriter {
+
+    private final Writer writer;
+
+    CsvRecordWriter(OutputStream outputStream, List<String> columns) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        write(new ArrayList<>(columns));
+    }
+
+    @Override
+    public void write(List<Object> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            var value = values.get(i);
+            if (value != null) {
+                writer.write(escape(value.toString()));
+            }
+        }
+        writer.write('\n');
+    }
+
+    private String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+
+}
@@ -0,0 +1,17 @@
+package ru.job4j.dreamjob.service;
+
+import ru.job4j.dreamjob.dto.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ExportService {
+
+    /* пишет все вакансии по возрастанию id и возвращает их число. поток не закрывается.
+    поля: id, title, description, creationDate, visible, cityId - CSV можно загрузить обратно через ImportService */
+    long exportVacancies(OutputStream outputStream, ExportFormat format) throws IOException;
+
+    /* поля те же, что у вакансии, только вместо title - name */
+    long exportCandidates(OutputStream outputStream, ExportFormat format) throws IOException;
+
+}
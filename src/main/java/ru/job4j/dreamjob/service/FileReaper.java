@@ -0,0 +1,152 @@
+package ru.job4j.dreamjob.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Фоновое удаление файлов. Сервисы вакансий и кандидатов не удаляют ставшие ненужными файлы в потоке запроса,
+а ставят их в очередь. Раз в file.reaper.interval очередь разбирается порциями по file.reaper.batch-size:
+записи каждой порции удаляются одним запросом, затем удаляется содержимое.
+Раз в file.reaper.sweep-interval ищутся потерянные файлы: записи в files, на которые не ссылается ни одна вакансия
+и ни один кандидат, и файлы в хранилище без записи в files. Файлы моложе file.reaper.grace-period не трогаются -
+это могут быть загрузки, для которых вакансия или кандидат еще сохраняются. Поиск начинается не раньше
+file.reaper.sweep-initial-delay после старта и только после того, как закончен перенос файлов ShardedStorageMigration.
+Очередь хранится только в памяти: то, что не успело удалиться до аварийной остановки, найдет периодический поиск */
+@Service
+@ThreadSafe
+public class FileReaper implements MeterBinder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileReaper.class);
+
+    private final FileService fileService;
+
+    private final Optional<ShardedStorageMigration> migration;
+
+    private final int batchSize;
+
+    private final Duration gracePeriod;
+
+    private final BlockingQueue<Integer> queue = new LinkedBlockingQueue<>();
+
+    private final AtomicLong releasedCount = new AtomicLong();
+
+    private final AtomicLong unreferencedCount = new AtomicLong();
+
+    private final AtomicLong untrackedCount = new AtomicLong();
+
+    public FileReaper(FileService fileService,
+                      Optional<ShardedStorageMigration> migration,
+                      @Value("${file.reaper.batch-size:100}") int batchSize,
+                      @Value("${file.reaper.grace-period:PT1H}") Duration gracePeriod) {
+        this.fileService = fileService;
+        this.migration = migration;
+        this.batchSize = batchSize;
+        this.gracePeriod = gracePeriod;
+    }
+
+    /* файл будет удален фоновым потоком, если на него не осталось других ссылок.
+    внутри транзакции файл ставится в очередь только после ее фиксации: при откате ссылка на него остается */
+    public void enqueue(int fileId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            queue.add(fileId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                queue.add(fileId);
+            }
+        });
+    }
+
+    /* ошибка не возвращает порцию в очередь: часть ссылок в ней уже могла быть освобождена,
+    а повторное освобождение удалило бы чужой файл. недоудаленное найдет sweep */
+    @Scheduled(fixedDelayString = "${file.reaper.interval:PT5S}")
+    public void reap() {
+        var batch = drainBatch();
+        while (!batch.isEmpty()) {
+            try {
+                fileService.deleteAllById(batch);
+                releasedCount.addAndGet(batch.size());
+            } catch (RuntimeException e) {
+                LOG.warn("File reaper failed to delete {} files, they are left for the sweep", batch.size(), e);
+            }
+            batch = drainBatch();
+        }
+    }
+
+    private List<Integer> drainBatch() {
+        var batch = new ArrayList<Integer>(batchSize);
+        queue.drainTo(batch, batchSize);
+        return batch;
+    }
+
+    @Scheduled(initialDelayString = "${file.reaper.sweep-initial-delay:PT10M}",
+            fixedDelayString = "${file.reaper.sweep-interval:PT1H}")
+    public void sweep() {
+        if (migration.isPresent() && !migration.get().isCompleted()) {
+            LOG.info("File reaper sweep postponed until the sharded storage migration is completed");
+            return;
+        }
+        var before = LocalDateTime.now().minus(gracePeriod);
+        int deleted;
+        do {
+            deleted = fileService.deleteUnreferenced(before, batchSize).size();
+            unreferencedCount.addAndGet(deleted);
+        } while (deleted == batchSize);
+        untrackedCount.addAndGet(fileService.deleteUntracked(before));
+    }
+
+    /* при штатной остановке очередь дорабатывается до конца */
+    @PreDestroy
+    public void close() {
+        reap();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getReleasedCount() {
+        return releasedCount.get();
+    }
+
+    public long getUnreferencedCount() {
+        return unreferencedCount.get();
+    }
+
+    public long getUntrackedCount() {
+        return untrackedCount.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("files.reaper.queue.size", this, FileReaper::getQueueSize).register(registry);
+        FunctionCounter.builder("files.reaper.deleted", this, FileReaper::getReleasedCount)
+                .tag("source", "queue").register(registry);
+        FunctionCounter.builder("files.reaper.deleted", this, FileReaper::getUnreferencedCount)
+                .tag("source", "unreferenced").register(registry);
+        FunctionCounter.builder("files.reaper.deleted", this, FileReaper::getUntrackedCount)
+                .tag("source", "untracked").register(registry);
+    }
+
+}
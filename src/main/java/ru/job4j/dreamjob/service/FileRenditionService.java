@@ -0,0 +1,13 @@
+package ru.job4j.dreamjob.service;
+
+import ru.job4j.dreamjob.dto.RenditionDto;
+
+import java.util.Optional;
+
+public interface FileRenditionService {
+
+    /* уменьшенная копия картинки шириной около width. если картинку не нужно или нельзя уменьшить
+    (она и так узкая, это не картинка) - исходный файл, а если копия еще не готова - исходный файл с признаком fallback */
+    Optional<RenditionDto> getRenditionById(int fileId, int width);
+
+}
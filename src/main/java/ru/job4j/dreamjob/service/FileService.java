@@ -1,16 +1,31 @@
 package ru.job4j.dreamjob.service;
 
+import org.springframework.core.io.Resource;
 import ru.job4j.dreamjob.dto.FileDto;
 import ru.job4j.dreamjob.model.File;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 
 public interface FileService {
 
     File save(FileDto fileDto);
 
-    Optional<FileDto> getFileById(int id);
+    /* содержимое файла без загрузки в память целиком - отдается потоком прямо с диска */
+    Optional<Resource> getResourceById(int id);
 
     boolean deleteById(int id);
 
+    /* то же, что deleteById для каждого файла, но записи удаляются одним запросом */
+    void deleteAllById(Collection<Integer> ids);
+
+    /* удаляет до limit файлов, на которые никто не ссылается и которые не использовались после referencedBefore.
+    возвращает идентификаторы удаленных */
+    Collection<Integer> deleteUnreferenced(LocalDateTime referencedBefore, int limit);
+
+    /* удаляет из хранилища содержимое без записи в БД (например, оставшееся после аварийной остановки),
+    измененное раньше modifiedBefore. возвращает количество удаленных файлов */
+    int deleteUntracked(LocalDateTime modifiedBefore);
+
 }
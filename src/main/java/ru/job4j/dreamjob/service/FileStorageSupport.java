@@ -0,0 +1,163 @@
+package ru.job4j.dreamjob.service;
+
+import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.model.File;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+/* общие для движков хранения файлов операции: потоковая запись загружаемого содержимого с подсчетом размера и хеша,
+раскладка файлов по подкаталогам и атомарный перенос в хранилище */
+final class FileStorageSupport {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int SHARD_LEVELS = 2;
+
+    private static final int SHARD_WIDTH = 2;
+
+    private static final String TEMPORARY_PREFIX = "upload";
+
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private FileStorageSupport() {
+    }
+
+    /* отказ еще до чтения содержимого, если заявленный размер уже превышает допустимый */
+    static void checkDeclaredSize(FileDto fileDto, long maxFileSize) {
+        if (fileDto.getSize() > maxFileSize) {
+            throw new IllegalArgumentException("Размер файла превышает допустимые " + maxFileSize + " байт");
+        }
+    }
+
+    /* от исходного имени оставляем только последний сегмент, чтобы имя не могло указывать за пределы хранилища */
+    static String getSafeName(String sourceName) {
+        if (sourceName == null) {
+            return "";
+        }
+        return sourceName.substring(Math.max(sourceName.lastIndexOf('/'), sourceName.lastIndexOf('\\')) + 1);
+    }
+
+    static Path createTemporaryFile(String directory) {
+        try {
+            return Files.createTempFile(Path.of(directory), TEMPORARY_PREFIX, TEMPORARY_SUFFIX);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static boolean isTemporaryFile(Path path) {
+        var name = path.getFileName().toString();
+        return name.startsWith(TEMPORARY_PREFIX) && name.endsWith(TEMPORARY_SUFFIX) && Files.isRegularFile(path);
+    }
+
+    /* копирование буфером фиксированного размера: расход памяти не зависит от размера файла.
+    попутно считаются размер и SHA-256, запись прерывается, как только превышен допустимый размер */
+    static File writeContent(FileDto fileDto, Path path, long maxFileSize) throws IOException {
+        var digest = createDigest();
+        var buffer = new byte[BUFFER_SIZE];
+        long size = 0;
+        try (var inputStream = fileDto.getInputStream();
+             var outputStream = Files.newOutputStream(path)) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                size += read;
+                if (size > maxFileSize) {
+                    throw new IllegalArgumentException("Размер файла превышает допустимые " + maxFileSize + " байт");
+                }
+                digest.update(buffer, 0, read);
+                outputStream.write(buffer, 0, read);
+            }
+        }
+        if (size != fileDto.getSize()) {
+            throw new IllegalArgumentException("Файл передан не полностью");
+        }
+        return new File(getSafeName(fileDto.getName()), path.toString(), size, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /* файлы раскладываются по подкаталогам по первым символам имени (это hex из UUID или хеша содержимого),
+    например files/3f/a2/3fa2..., чтобы в одном каталоге не скапливались сотни тысяч файлов */
+    static String getShardedPath(String directory, String fileName) {
+        var path = new StringBuilder(directory);
+        if (fileName.length() > SHARD_LEVELS * SHARD_WIDTH) {
+            for (int level = 0; level < SHARD_LEVELS; level++) {
+                path.append(java.io.File.separator).append(fileName, level * SHARD_WIDTH, (level + 1) * SHARD_WIDTH);
+            }
+        }
+        return path.append(java.io.File.separator).append(fileName).toString();
+    }
+
+    /* файлы в тех местах хранилища, куда их кладет сохранение: в корне (временные и сохраненные до раскладки
+    по подкаталогам) и на глубине раскладки. остальное, например каталог pack-сегментов, не затрагивается.
+    поток нужно закрыть */
+    static Stream<Path> listStoredFiles(String directory) throws IOException {
+        var root = Path.of(directory);
+        return Files.walk(root, SHARD_LEVELS + 1).filter(path -> {
+            var depth = root.relativize(path).getNameCount();
+            return (depth == 1 || depth == SHARD_LEVELS + 1) && Files.isRegularFile(path);
+        });
+    }
+
+    /* учитывается и время изменения записи о файле (ctime): перенос файла не меняет mtime, а ctime меняет.
+    иначе файл, который только что перенесли по новому пути и еще не записали этот путь в БД,
+    выглядел бы давно не тронутым файлом без записи */
+    static boolean isModifiedBefore(Path path, LocalDateTime time) {
+        var instant = time.atZone(ZoneId.systemDefault()).toInstant();
+        try {
+            return Files.getLastModifiedTime(path).toInstant().isBefore(instant) && getChangeTime(path).isBefore(instant);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /* там, где ctime недоступен, остается только mtime */
+    private static Instant getChangeTime(Path path) throws IOException {
+        try {
+            return ((FileTime) Files.getAttribute(path, "unix:ctime")).toInstant();
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            return Instant.MIN;
+        }
+    }
+
+    /* переименование в пределах одного каталога хранилища атомарно: файл по итоговому пути всегда записан целиком */
+    static void moveToStorage(Path source, String path) throws IOException {
+        var target = Path.of(path);
+        Files.createDirectories(target.getParent());
+        Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static void createDirectory(String path) {
+        try {
+            Files.createDirectories(Path.of(path));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static void deleteFile(String path) {
+        try {
+            Files.deleteIfExists(Path.of(path));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
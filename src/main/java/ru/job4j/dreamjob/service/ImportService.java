@@ -0,0 +1,16 @@
+package ru.job4j.dreamjob.service;
+
+import ru.job4j.dreamjob.dto.ImportFormat;
+import ru.job4j.dreamjob.dto.ImportResult;
+
+import java.io.InputStream;
+
+public interface ImportService {
+
+    /* поля записи: title, description, creationDate (ISO, по умолчанию - сейчас), visible (по умолчанию true), cityId */
+    ImportResult importVacancies(InputStream inputStream, ImportFormat format);
+
+    /* поля записи те же, что у вакансии, только вместо title - name */
+    ImportResult importCandidates(InputStream inputStream, ImportFormat format);
+
+}
@@ -0,0 +1,50 @@
+package ru.job4j.dreamjob.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/* JSON - массив плоских объектов. парсер потоковый: в памяти одновременно только текущий объект.
+значения-объекты и массивы внутри записи пропускаются */
+final class JsonRecordReader implements RecordReader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonParser parser;
+
+    JsonRecordReader(InputStream inputStream) throws IOException {
+        this.parser = JSON_FACTORY.createParser(inputStream);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "JSON array of records is expected");
+        }
+    }
+
+    @Override
+    public Map<String, String> next() throws IOException {
+        var token = parser.nextToken();
+        if (token == JsonToken.END_ARRAY) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "JSON object is expected");
+        }
+        var record = new HashMap<String, String>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var name = parser.getCurrentName();
+            var value = parser.nextToken();
+            if (value.isStructStart()) {
+                parser.skipChildren();
+            } else if (value != JsonToken.VALUE_NULL) {
+                record.put(name, parser.getText());
+            }
+        }
+        return record;
+    }
+
+}
@@ -0,0 +1,52 @@
+package ru.job4j.dreamjob.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/* NDJSON: каждая запись - отдельный JSON-объект на своей строке, без общего массива вокруг.
+такой файл можно читать построчно, не разбирая его целиком */
+final class JsonRecordWriter implements RecordWriter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .setRootValueSeparator(null);
+
+    private final JsonGenerator generator;
+
+    private final List<String> columns;
+
+    JsonRecordWriter(OutputStream outputStream, List<String> columns) throws IOException {
+        this.generator = JSON_FACTORY.createGenerator(outputStream);
+        this.columns = columns;
+    }
+
+    @Override
+    public void write(List<Object> values) throws IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < columns.size(); i++) {
+            generator.writeFieldName(columns.get(i));
+            var value = values.get(i);
+            if (value == null) {
+                generator.writeNull();
+            } else if (value instanceof Integer) {
+                generator.writeNumber((Integer) value);
+            } else if (value instanceof Boolean) {
+                generator.writeBoolean((Boolean) value);
+            } else {
+                generator.writeString(value.toString());
+            }
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+
+}
@@ -0,0 +1,382 @@
+package ru.job4j.dreamjob.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.repository.FileRepository;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static ru.job4j.dreamjob.service.FileStorageSupport.checkDeclaredSize;
+import static ru.job4j.dreamjob.service.FileStorageSupport.createDirectory;
+import static ru.job4j.dreamjob.service.FileStorageSupport.createTemporaryFile;
+import static ru.job4j.dreamjob.service.FileStorageSupport.deleteFile;
+import static ru.job4j.dreamjob.service.FileStorageSupport.isModifiedBefore;
+import static ru.job4j.dreamjob.service.FileStorageSupport.isTemporaryFile;
+import static ru.job4j.dreamjob.service.FileStorageSupport.writeContent;
+
+/* Хранение файлов в больших append-only pack-сегментах (file.storage=pack).
+Содержимое каждого файла дописывается в конец активного сегмента, а в таблице files запоминаются номер сегмента,
+смещение и размер. Так небольшие аватары и логотипы не занимают по inode и записи в каталоге на каждый файл.
+Чтение идет через отображение сегментов в память, без открытия файла на каждый запрос.
+Удаление только убирает запись из files, а место в сегментах освобождает периодическая компактизация:
+живые файлы из почти пустых сегментов переносятся в активный сегмент, старый сегмент удаляется.
+Файлы, сохраненные раньше отдельными файлами (segment_id = 0), продолжают читаться по своему path.
+Рассчитано на то, что в каталог сегментов пишет один экземпляр приложения */
+@Service
+@ThreadSafe
+@ConditionalOnProperty(name = "file.storage", havingValue = "pack")
+public class PackFileService implements FileService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PackFileService.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private static final String SEGMENT_SUFFIX = ".pack";
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final FileRepository fileRepository;
+
+    private final String storageDirectory;
+
+    private final String segmentDirectory;
+
+    private final long maxFileSize;
+
+    private final long segmentSize;
+
+    private final double compactionThreshold;
+
+    private final Duration compactionDelay;
+
+    private final boolean contentAddressed;
+
+    private final StripedLocks locks = new StripedLocks(LOCK_STRIPES);
+
+    /* отображения сегментов в память. активный сегмент растет, поэтому его отображение создается заново,
+    когда запрошенный диапазон выходит за границы уже отображенного */
+    private final Map<Integer, MappedByteBuffer> mappings = new ConcurrentHashMap<>();
+
+    /* дописывание в активный сегмент и переход к новому сегменту выполняются под этой блокировкой */
+    private final Object appendLock = new Object();
+
+    private int activeSegmentId;
+
+    private FileChannel activeChannel;
+
+    public PackFileService(FileRepository sql2oFileRepository,
+                           @Value("${file.directory}") String storageDirectory,
+                           @Value("${file.pack.directory:${file.directory}/packs}") String segmentDirectory,
+                           @Value("${spring.servlet.multipart.max-file-size}") DataSize maxFileSize,
+                           @Value("${file.pack.segment-size:256MB}") DataSize segmentSize,
+                           @Value("${file.pack.compaction-threshold:0.5}") double compactionThreshold,
+                           @Value("${file.pack.compaction-delay:PT1M}") Duration compactionDelay,
+                           @Value("${file.content-addressed:false}") boolean contentAddressed) {
+        this.fileRepository = sql2oFileRepository;
+        this.storageDirectory = storageDirectory;
+        this.segmentDirectory = segmentDirectory;
+        this.maxFileSize = maxFileSize.toBytes();
+        this.segmentSize = Math.min(segmentSize.toBytes(), Integer.MAX_VALUE - this.maxFileSize);
+        this.compactionThreshold = compactionThreshold;
+        this.compactionDelay = compactionDelay;
+        this.contentAddressed = contentAddressed;
+        createDirectory(storageDirectory);
+        createDirectory(segmentDirectory);
+        openSegment(listSegmentIds().stream().max(Integer::compare).orElse(1));
+    }
+
+    @Override
+    public File save(FileDto fileDto) {
+        checkDeclaredSize(fileDto, maxFileSize);
+        var temporaryPath = createTemporaryFile(storageDirectory);
+        try {
+            var file = writeContent(fileDto, temporaryPath, maxFileSize);
+            if (!contentAddressed) {
+                return append(file, temporaryPath);
+            }
+            var lock = locks.get(file.getHash());
+            lock.lock();
+            try {
+                var existingOptional = fileRepository.findByHash(file.getHash());
+                if (existingOptional.isPresent() && fileRepository.incrementReferenceCount(existingOptional.get().getId())) {
+                    return existingOptional.get();
+                }
+                return append(file, temporaryPath);
+            } finally {
+                StripedLocks.unlock(lock);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deleteFile(temporaryPath.toString());
+        }
+    }
+
+    /* содержимое сбрасывается на диск до сохранения записи: после аварии запись не должна указывать
+    на байты, которые так и не были записаны. если запись в БД не удастся, дописанные байты станут мертвыми
+    и их уберет компактизация */
+    private File append(File file, Path temporaryPath) throws IOException {
+        try (var source = FileChannel.open(temporaryPath, StandardOpenOption.READ)) {
+            synchronized (appendLock) {
+                var offset = reserve(file.getSize());
+                long transferred = 0;
+                while (transferred < file.getSize()) {
+                    transferred += source.transferTo(transferred, file.getSize() - transferred, activeChannel);
+                }
+                activeChannel.force(false);
+                setLocation(file, activeSegmentId, offset);
+            }
+        }
+        return fileRepository.save(file);
+    }
+
+    /* вызывается под appendLock. возвращает смещение, с которого будет записано содержимое */
+    private long reserve(long size) throws IOException {
+        var position = activeChannel.position();
+        if (position > 0 && position + size > segmentSize) {
+            activeChannel.force(false);
+            activeChannel.close();
+            openSegment(activeSegmentId + 1);
+            position = 0;
+        }
+        return position;
+    }
+
+    private void openSegment(int segmentId) {
+        try {
+            activeChannel = FileChannel.open(getSegmentPath(segmentId), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            activeChannel.position(activeChannel.size());
+            activeSegmentId = segmentId;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void setLocation(File file, int segmentId, long offset) {
+        file.setSegmentId(segmentId);
+        file.setSegmentOffset(offset);
+        file.setPath(getSegmentPath(segmentId) + "#" + offset);
+    }
+
+    private Path getSegmentPath(int segmentId) {
+        return Path.of(segmentDirectory, String.format("%s%06d%s", SEGMENT_PREFIX, segmentId, SEGMENT_SUFFIX));
+    }
+
+    private List<Integer> listSegmentIds() {
+        try (var paths = Files.list(Path.of(segmentDirectory))) {
+            return paths.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /* сегмент мог быть удален компактизацией между чтением записи и отображением сегмента,
+    тогда запись перечитывается один раз - в ней уже новое расположение файла */
+    @Override
+    public Optional<Resource> getResourceById(int id) {
+        try {
+            return read(id);
+        } catch (NoSuchFileException e) {
+            try {
+                return read(id);
+            } catch (IOException retryException) {
+                throw new UncheckedIOException(retryException);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Optional<Resource> read(int id) throws IOException {
+        var fileOptional = fileRepository.findById(id);
+        if (fileOptional.isEmpty()) {
+            return Optional.empty();
+        }
+        var file = fileOptional.get();
+        if (file.getSegmentId() == 0) {
+            var resource = new FileSystemResource(Path.of(file.getPath()));
+            return resource.isReadable() ? Optional.of(resource) : Optional.empty();
+        }
+        return Optional.of(new ByteBufferResource(file.getName(), slice(file), ByteBufferResource.UNKNOWN_LAST_MODIFIED));
+    }
+
+    private ByteBuffer slice(File file) throws IOException {
+        var end = file.getSegmentOffset() + file.getSize();
+        var mapping = mappings.get(file.getSegmentId());
+        if (mapping == null || mapping.capacity() < end) {
+            mapping = map(file.getSegmentId());
+            mappings.put(file.getSegmentId(), mapping);
+        }
+        return mapping.slice((int) file.getSegmentOffset(), (int) file.getSize());
+    }
+
+    private MappedByteBuffer map(int segmentId) throws IOException {
+        try (var channel = FileChannel.open(getSegmentPath(segmentId), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /* удаляется одна ссылка на файл. вместе с последней ссылкой удаляется запись, а место в сегменте
+    освободит компактизация */
+    @Override
+    public boolean deleteById(int id) {
+        var fileOptional = fileRepository.findById(id);
+        if (fileOptional.isEmpty()) {
+            return false;
+        }
+        var file = fileOptional.get();
+        var lock = locks.get(StripedLocks.getKey(file));
+        lock.lock();
+        try {
+            if (fileRepository.decrementReferenceCount(id)) {
+                return true;
+            }
+            if (file.getSegmentId() == 0) {
+                deleteFile(file.getPath());
+            }
+            return fileRepository.deleteById(id);
+        } finally {
+            StripedLocks.unlock(lock);
+        }
+    }
+
+    @Override
+    public void deleteAllById(Collection<Integer> ids) {
+        var files = ids.stream().map(fileRepository::findById).flatMap(Optional::stream).collect(Collectors.toList());
+        var acquired = locks.lockAll(files.stream().map(StripedLocks::getKey).collect(Collectors.toList()));
+        try {
+            var released = files.stream()
+                    .filter(file -> !fileRepository.decrementReferenceCount(file.getId()))
+                    .collect(Collectors.toList());
+            delete(released);
+        } finally {
+            StripedLocks.unlockAll(acquired);
+        }
+    }
+
+    /* под блокировками список перечитывается: пока они брались, файл могла переиспользовать новая загрузка */
+    @Override
+    public Collection<Integer> deleteUnreferenced(LocalDateTime referencedBefore, int limit) {
+        var candidates = fileRepository.findAllUnreferenced(referencedBefore, limit);
+        var acquired = locks.lockAll(candidates.stream().map(StripedLocks::getKey).collect(Collectors.toList()));
+        try {
+            var candidateIds = candidates.stream().map(File::getId).collect(Collectors.toSet());
+            var unreferenced = fileRepository.findAllUnreferenced(referencedBefore, limit).stream()
+                    .filter(file -> candidateIds.contains(file.getId()))
+                    .collect(Collectors.toList());
+            delete(unreferenced);
+            return unreferenced.stream().map(File::getId).collect(Collectors.toList());
+        } finally {
+            StripedLocks.unlockAll(acquired);
+        }
+    }
+
+    private void delete(Collection<File> files) {
+        fileRepository.deleteAllById(files.stream().map(File::getId).collect(Collectors.toList()));
+        files.stream()
+                .filter(file -> file.getSegmentId() == 0)
+                .forEach(file -> deleteFile(file.getPath()));
+    }
+
+    /* содержимое без записей внутри сегментов освобождает компактизация, поэтому здесь удаляются только
+    временные файлы загрузок, прерванных аварийной остановкой */
+    @Override
+    public int deleteUntracked(LocalDateTime modifiedBefore) {
+        try (var paths = Files.list(Path.of(storageDirectory))) {
+            var stale = paths.filter(path -> isTemporaryFile(path) && isModifiedBefore(path, modifiedBefore))
+                    .collect(Collectors.toList());
+            stale.forEach(path -> deleteFile(path.toString()));
+            return stale.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /* сегменты без живых файлов удаляются, а сегменты, где живых байт меньше file.pack.compaction-threshold
+    от размера, переписываются в активный сегмент. активный сегмент и сегменты, менявшиеся позже
+    file.pack.compaction-delay назад, не трогаются: в них могут быть файлы, запись о которых еще не попала в БД */
+    @Scheduled(fixedDelayString = "${file.pack.compaction-interval:PT10M}")
+    public void compact() {
+        var liveSizes = fileRepository.sumSizeBySegment();
+        for (var segmentId : listSegmentIds()) {
+            try {
+                compact(segmentId, liveSizes.getOrDefault(segmentId, 0L));
+            } catch (IOException e) {
+                LOG.warn("Pack segment {} compaction failed", segmentId, e);
+            }
+        }
+    }
+
+    private void compact(int segmentId, long liveSize) throws IOException {
+        var segmentPath = getSegmentPath(segmentId);
+        synchronized (appendLock) {
+            if (segmentId == activeSegmentId) {
+                return;
+            }
+        }
+        var settledBefore = Instant.now().minus(compactionDelay);
+        if (Files.getLastModifiedTime(segmentPath).toInstant().isAfter(settledBefore)) {
+            return;
+        }
+        if (liveSize >= Files.size(segmentPath) * compactionThreshold) {
+            return;
+        }
+        var files = fileRepository.findAllBySegment(segmentId);
+        for (var file : files) {
+            var content = slice(file);
+            synchronized (appendLock) {
+                var offset = reserve(file.getSize());
+                while (content.hasRemaining()) {
+                    activeChannel.write(content);
+                }
+                setLocation(file, activeSegmentId, offset);
+            }
+        }
+        synchronized (appendLock) {
+            activeChannel.force(false);
+        }
+        fileRepository.updateSegmentLocations(files);
+        mappings.remove(segmentId);
+        Files.deleteIfExists(segmentPath);
+        LOG.info("Pack segment {} compacted: {} live files moved", segmentId, files.size());
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        synchronized (appendLock) {
+            activeChannel.close();
+        }
+    }
+
+}
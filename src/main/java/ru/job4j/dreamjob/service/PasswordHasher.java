@@ -0,0 +1,116 @@
+package ru.job4j.dreamjob.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/* Хеширование паролей PBKDF2-HMAC-SHA256 из JDK со случайной солью.
+Хеш хранится строкой pbkdf2_sha256$<итерации>$<соль>$<хеш>, поэтому после увеличения password.hash.iterations
+старые хеши продолжают проверяться со своим числом итераций, а needsRehash подсказывает, что их пора пересчитать.
+Значение без префикса - пароль, сохраненный открытым текстом до перехода на хеши: он сравнивается как есть
+и тоже требует пересчета. Один вызов hash или matches занимает процессор на десятки и сотни миллисекунд */
+@Service
+@ThreadSafe
+public class PasswordHasher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PasswordHasher.class);
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+
+    private static final String PREFIX = "pbkdf2_sha256";
+
+    private static final int SALT_LENGTH = 16;
+
+    private static final int KEY_LENGTH = 256;
+
+    private static final Base64.Encoder ENCODER = Base64.getEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getDecoder();
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final int iterations;
+
+    /* хеш для проверки пароля несуществующего пользователя: время ответа не выдает, есть ли такая почта */
+    private final String dummyHash;
+
+    public PasswordHasher(@Value("${password.hash.iterations:310000}") int iterations) {
+        if (iterations < 1) {
+            throw new IllegalStateException("password.hash.iterations must be positive");
+        }
+        this.iterations = iterations;
+        this.dummyHash = hash("");
+    }
+
+    public String hash(String password) {
+        var salt = new byte[SALT_LENGTH];
+        random.nextBytes(salt);
+        return String.join("$", PREFIX, Integer.toString(iterations),
+                ENCODER.encodeToString(salt), ENCODER.encodeToString(derive(password, salt, iterations)));
+    }
+
+    public boolean matches(String password, String stored) {
+        if (password == null || stored == null) {
+            return false;
+        }
+        var parts = stored.split("\\$");
+        if (!PREFIX.equals(parts[0])) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+        }
+        if (parts.length != 4) {
+            LOG.warn("Malformed password hash: expected 4 parts, found {}", parts.length);
+            return false;
+        }
+        try {
+            var expected = DECODER.decode(parts[3]);
+            return MessageDigest.isEqual(derive(password, DECODER.decode(parts[2]), Integer.parseInt(parts[1])), expected);
+        } catch (IllegalArgumentException e) {
+            LOG.warn("Malformed password hash: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /* тратит столько же времени, сколько matches, когда сравнивать не с чем */
+    public void simulateMatch(String password) {
+        matches(password == null ? "" : password, dummyHash);
+    }
+
+    /* испорченный хеш тоже требует пересчета, хотя пароль с ним и не совпадет */
+    public boolean needsRehash(String stored) {
+        var parts = stored.split("\\$");
+        if (parts.length != 4 || !PREFIX.equals(parts[0])) {
+            return true;
+        }
+        try {
+            return Integer.parseInt(parts[1]) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        var spec = new PBEKeySpec(password.toCharArray(), salt, iterations, KEY_LENGTH);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2 is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+}
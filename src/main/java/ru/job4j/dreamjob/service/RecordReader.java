@@ -0,0 +1,20 @@
+package ru.job4j.dreamjob.service;
+
+import ru.job4j.dreamjob.dto.ImportFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/* последовательное чтение записей файла массовой загрузки: имя поля -> значение.
+записи читаются из потока по одной, файл целиком в память не загружается */
+interface RecordReader {
+
+    /* null, если записи закончились. IOException - файл поврежден, дальше читать нельзя */
+    Map<String, String> next() throws IOException;
+
+    static RecordReader open(InputStream inputStream, ImportFormat format) throws IOException {
+        return format == ImportFormat.CSV ? new CsvRecordReader(inputStream) : new JsonRecordReader(inputStream);
+    }
+
+}
@@ -0,0 +1,23 @@
+package ru.job4j.dreamjob.service;
+
+import ru.job4j.dreamjob.dto.ExportFormat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/* последовательная запись выгрузки: записи пишутся в поток по одной через буфер, в памяти не копятся.
+close дописывает буфер, но сам поток не закрывает */
+interface RecordWriter extends Closeable {
+
+    /* значения в порядке columns, переданных при открытии */
+    void write(List<Object> values) throws IOException;
+
+    static RecordWriter open(OutputStream outputStream, ExportFormat format, List<String> columns) throws IOException {
+        return format == ExportFormat.CSV
+                ? new CsvRecordWriter(outputStream, columns)
+                : new JsonRecordWriter(outputStream, columns);
+    }
+
+}
@@ -0,0 +1,240 @@
+package ru.job4j.dreamjob.service;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/* Инвертированный индекс в памяти с ранжированием BM25.
+Для каждого терма хранится список документов с частотой терма в массивах int, без объектов на каждое вхождение.
+Документы пронумерованы плотно, номера удаленных используются повторно, поэтому длины документов и баллы при поиске
+лежат в массивах по номеру документа, а не в Map. Слова заголовка весят TITLE_WEIGHT слов описания.
+Поиск идет под блокировкой чтения и не мешает другим поискам, изменения - под блокировкой записи */
+@ThreadSafe
+final class SearchIndex {
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    private static final int TITLE_WEIGHT = 2;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    /* id записи -> номер документа */
+    private final Map<Integer, Integer> documents = new HashMap<>();
+
+    private final Deque<Integer> freeDocuments = new ArrayDeque<>();
+
+    private int[] ids = new int[16];
+
+    private int[] lengths = new int[16];
+
+    /* списки термов документа, чтобы при удалении не перебирать все списки */
+    private Postings[][] documentPostings = new Postings[16][];
+
+    private int documentCount;
+
+    private long totalLength;
+
+    /* добавляет запись или заменяет прежнюю с тем же id */
+    void put(int id, String title, String description) {
+        var frequencies = new HashMap<String, Integer>();
+        for (var term : Tokenizer.tokenize(title)) {
+            frequencies.merge(term, TITLE_WEIGHT, Integer::sum);
+        }
+        for (var term : Tokenizer.tokenize(description)) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        var length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            if (frequencies.isEmpty()) {
+                return;
+            }
+            var document = freeDocuments.isEmpty() ? documentCount++ : freeDocuments.pop();
+            if (document == ids.length) {
+                ids = Arrays.copyOf(ids, document * 2);
+                lengths = Arrays.copyOf(lengths, document * 2);
+                documentPostings = Arrays.copyOf(documentPostings, document * 2);
+            }
+            ids[document] = id;
+            lengths[document] = length;
+            documents.put(id, document);
+            totalLength += length;
+            var added = new Postings[frequencies.size()];
+            var i = 0;
+            for (var entry : frequencies.entrySet()) {
+                var termPostings = postings.computeIfAbsent(entry.getKey(), Postings::new);
+                termPostings.add(document, entry.getValue());
+                added[i++] = termPostings;
+            }
+            documentPostings[document] = added;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(int id) {
+        var document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (var termPostings : documentPostings[document]) {
+            termPostings.remove(document);
+            if (termPostings.size == 0) {
+                postings.remove(termPostings.term);
+            }
+        }
+        totalLength -= lengths[document];
+        documentPostings[document] = null;
+        freeDocuments.push(document);
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* id до limit записей, в которых есть хотя бы одно слово запроса, от самых подходящих.
+    при равных баллах первыми идут записи с большим id, то есть более новые */
+    List<Integer> search(String query, int limit) {
+        var queryTerms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            var size = documents.size();
+            if (size == 0) {
+                return List.of();
+            }
+            var averageLength = (double) totalLength / size;
+            var matched = new ArrayList<Postings>(queryTerms.size());
+            var matchedCount = 0;
+            for (var term : queryTerms) {
+                var termPostings = postings.get(term);
+                if (termPostings != null) {
+                    matched.add(termPostings);
+                    matchedCount += termPostings.size;
+                }
+            }
+            if (matched.isEmpty()) {
+                return List.of();
+            }
+            var scores = new double[documentCount];
+            /* найденные документы, чтобы не просматривать весь массив баллов ради редкого слова */
+            var found = new int[Math.min(matchedCount, documentCount)];
+            var foundCount = 0;
+            /* tf * (k1 + 1) / (tf + k1 * (1 - b + b * length / averageLength)) с вынесенными из цикла множителями */
+            var baseNorm = K1 * (1 - B);
+            var lengthNorm = K1 * B / averageLength;
+            for (var termPostings : matched) {
+                var idf = Math.log(1 + (size - termPostings.size + 0.5) / (termPostings.size + 0.5));
+                var weight = idf * (K1 + 1);
+                for (int i = 0; i < termPostings.size; i++) {
+                    var document = termPostings.documents[i];
+                    var frequency = termPostings.frequencies[i];
+                    if (scores[document] == 0) {
+                        found[foundCount++] = document;
+                    }
+                    scores[document] += weight * frequency / (frequency + baseNorm + lengthNorm * lengths[document]);
+                }
+            }
+            return top(scores, found, foundCount, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* выбор лучших без сортировки всех найденных: top хранит до limit документов по убыванию, и документ
+    не лучше последнего в нем отбрасывается одним сравнением. обход идет с конца: новые записи обычно получают
+    последние номера и попадают в конец списков, так что при равных баллах более старые сразу отбрасываются */
+    private List<Integer> top(double[] scores, int[] found, int foundCount, int limit) {
+        var top = new int[limit];
+        var count = 0;
+        for (int i = foundCount - 1; i >= 0; i--) {
+            var document = found[i];
+            if (count == limit && !isBetter(scores, document, top[count - 1])) {
+                continue;
+            }
+            var position = count < limit ? count++ : limit - 1;
+            while (position > 0 && isBetter(scores, document, top[position - 1])) {
+                top[position] = top[position - 1];
+                position--;
+            }
+            top[position] = document;
+        }
+        var result = new ArrayList<Integer>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(ids[top[i]]);
+        }
+        return result;
+    }
+
+    private boolean isBetter(double[] scores, int document, int other) {
+        return scores[document] > scores[other] || scores[document] == scores[other] && ids[document] > ids[other];
+    }
+
+    /* документы с термом. порядок не важен, поэтому удаление переносит на место удаленного последний */
+    private static final class Postings {
+
+        private final String term;
+
+        private int[] documents = new int[4];
+
+        private int[] frequencies = new int[4];
+
+        private int size;
+
+        private Postings(String term) {
+            this.term = term;
+        }
+
+        private void add(int document, int frequency) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            documents[size] = document;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        private void remove(int document) {
+            for (int i = 0; i < size; i++) {
+                if (documents[i] == document) {
+                    size--;
+                    documents[i] = documents[size];
+                    frequencies[i] = frequencies[size];
+                    return;
+                }
+            }
+        }
+
+    }
+
+}
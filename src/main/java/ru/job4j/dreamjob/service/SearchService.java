@@ -0,0 +1,24 @@
+package ru.job4j.dreamjob.service;
+
+import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.Vacancy;
+
+import java.util.List;
+
+public interface SearchService {
+
+    /* id до limit вакансий по убыванию соответствия запросу: слова ищутся в названии и описании */
+    List<Integer> searchVacancies(String query, int limit);
+
+    List<Integer> searchCandidates(String query, int limit);
+
+    /* вызывается после сохранения или изменения; внутри транзакции индекс меняется только после ее фиксации */
+    void indexVacancy(Vacancy vacancy);
+
+    void removeVacancy(int id);
+
+    void indexCandidate(Candidate candidate);
+
+    void removeCandidate(int id);
+
+}
@@ -0,0 +1,42 @@
+package ru.job4j.dreamjob.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.job4j.dreamjob.dto.UserPrincipal;
+import ru.job4j.dreamjob.model.User;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Optional;
+
+/* вошедший пользователь хранится в сессии. сессия создается только при входе */
+@Service
+@ConditionalOnProperty(name = "auth.mode", havingValue = "session", matchIfMissing = true)
+public class SessionUserAuthentication implements UserAuthentication {
+
+    static final String USER_ATTRIBUTE = "user";
+
+    @Override
+    public Optional<UserPrincipal> getPrincipal(HttpServletRequest request) {
+        var session = request.getSession(false);
+        return session == null ? Optional.empty() : Optional.ofNullable((UserPrincipal) session.getAttribute(USER_ATTRIBUTE));
+    }
+
+    /* если сессия уже была, ее id меняется: id, известный до входа, не должен давать доступ после него */
+    @Override
+    public void login(User user, HttpServletRequest request, HttpServletResponse response) {
+        if (request.getSession(false) != null) {
+            request.changeSessionId();
+        }
+        request.getSession().setAttribute(USER_ATTRIBUTE, UserPrincipal.of(user));
+    }
+
+    @Override
+    public void logout(HttpServletRequest request, HttpServletResponse response) {
+        var session = request.getSession(false);
+        if (session != null) {
+            session.invalidate();
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package ru.job4j.dreamjob.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.repository.FileRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/* Одноразовый перенос файлов, сохраненных раньше в плоский каталог file.directory, в подкаталоги по префиксу имени.
+Запускается при старте приложения с file.migration.sharded-layout=true. Таблица files обходится порциями
+по file.migration.batch-size записей, новые пути каждой порции записываются одним пакетом.
+Повторный запуск безопасен: уже перенесенные файлы пропускаются, а файл, перенесенный без обновления пути в БД
+(например, при аварийной остановке), будет найден по новому пути и путь будет дописан */
+@Component
+@ConditionalOnProperty(name = "file.migration.sharded-layout", havingValue = "true")
+public class ShardedStorageMigration implements ApplicationRunner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShardedStorageMigration.class);
+
+    private final FileRepository fileRepository;
+
+    private final String storageDirectory;
+
+    private final int batchSize;
+
+    /* пока перенос не закончен, FileReaper не ищет потерянные файлы: перенесенный файл, новый путь которого
+    еще не записан в БД, выглядел бы файлом без записи */
+    private volatile boolean completed;
+
+    public ShardedStorageMigration(FileRepository sql2oFileRepository,
+                                   @Value("${file.directory}") String storageDirectory,
+                                   @Value("${file.migration.batch-size:500}") int batchSize) {
+        this.fileRepository = sql2oFileRepository;
+        this.storageDirectory = storageDirectory;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        migrate();
+    }
+
+    /* возвращает количество перенесенных файлов */
+    public int migrate() throws IOException {
+        var lastId = 0;
+        var migrated = 0;
+        var batch = fileRepository.findAllAfter(lastId, batchSize);
+        while (!batch.isEmpty()) {
+            var moved = new ArrayList<File>();
+            for (var file : batch) {
+                lastId = file.getId();
+                if (move(file)) {
+                    moved.add(file);
+                }
+            }
+            fileRepository.updatePaths(moved);
+            migrated += moved.size();
+            LOG.info("Sharded storage migration: {} files moved, last id {}", migrated, lastId);
+            batch = fileRepository.findAllAfter(lastId, batchSize);
+        }
+        completed = true;
+        return migrated;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    private boolean move(File file) throws IOException {
+        if (file.getSegmentId() > 0) {
+            return false;
+        }
+        var source = Path.of(file.getPath());
+        var target = FileStorageSupport.getShardedPath(storageDirectory, source.getFileName().toString());
+        if (source.equals(Path.of(target))) {
+            return false;
+        }
+        if (Files.exists(source)) {
+            FileStorageSupport.moveToStorage(source, target);
+        } else if (!Files.exists(Path.of(target))) {
+            LOG.warn("Sharded storage migration: file {} with id {} not found, skipped", source, file.getId());
+            return false;
+        }
+        file.setPath(target);
+        return true;
+    }
+
+}
@@ -1,11 +1,19 @@
 package ru.job4j.dreamjob.service;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.job4j.dreamjob.dto.CandidateSummary;
 import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.ListFilter;
+import ru.job4j.dreamjob.dto.Page;
+import ru.job4j.dreamjob.dto.PageCursor;
 import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.City;
 import ru.job4j.dreamjob.repository.CandidateRepository;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class SimpleCandidateService implements CandidateService {
@@ -14,15 +22,28 @@ public class SimpleCandidateService implements CandidateService {
 
     private final FileService fileService;
 
-    private SimpleCandidateService(CandidateRepository sql2oCandidateRepository, FileService fileService) {
+    private final FileReaper fileReaper;
+
+    private final SearchService searchService;
+
+    private final CityService cityService;
+
+    public SimpleCandidateService(CandidateRepository sql2oCandidateRepository, FileService fileService, FileReaper fileReaper,
+                                  SearchService searchService, CityService cityService) {
         this.candidateRepository = sql2oCandidateRepository;
         this.fileService = fileService;
+        this.fileReaper = fileReaper;
+        this.searchService = searchService;
+        this.cityService = cityService;
     }
 
     @Override
+    @Transactional
     public Candidate save(Candidate candidate, FileDto image) {
         saveNewFile(candidate, image);
-        return candidateRepository.save(candidate);
+        var saved = candidateRepository.save(candidate);
+        searchService.indexCandidate(saved);
+        return saved;
     }
 
     private void saveNewFile(Candidate candidate, FileDto image) {
@@ -31,26 +52,43 @@ public class SimpleCandidateService implements CandidateService {
     }
 
     @Override
+    @Transactional
     public boolean deleteById(int id) {
-        var fileOptional = findById(id);
-        if (fileOptional.isEmpty()) {
+        var fileIdOptional = candidateRepository.findFileIdForUpdate(id);
+        if (fileIdOptional.isEmpty() || !candidateRepository.deleteById(id)) {
             return false;
         }
-        var isDeleted = candidateRepository.deleteById(id);
-        fileService.deleteById(fileOptional.get().getFileId());
-        return isDeleted;
+        searchService.removeCandidate(id);
+        fileReaper.enqueue(fileIdOptional.get());
+        return true;
     }
 
+    /* старый file_id читается из БД под блокировкой строки, а не берется из формы: устаревшее или подмененное
+    значение освободило бы ссылку на файл, которым пользуется другая запись */
     @Override
+    @Transactional
     public boolean update(Candidate candidate, FileDto image) {
-        var isNewFileEmpty = image.getContent().length == 0;
-        if (isNewFileEmpty) {
-            return candidateRepository.update(candidate);
+        var fileIdOptional = candidateRepository.findFileIdForUpdate(candidate.getId());
+        if (fileIdOptional.isEmpty()) {
+            return false;
+        }
+        var oldFileId = fileIdOptional.get();
+        if (image.isEmpty()) {
+            candidate.setFileId(oldFileId);
+            return updateAndIndex(candidate);
         }
-        var oldFileId = candidate.getFileId();
         saveNewFile(candidate, image);
+        var isUpdated = updateAndIndex(candidate);
+        /* не обновилась - не нужен только что сохраненный файл */
+        fileReaper.enqueue(isUpdated ? oldFileId : candidate.getFileId());
+        return isUpdated;
+    }
+
+    private boolean updateAndIndex(Candidate candidate) {
         var isUpdated = candidateRepository.update(candidate);
-        fileService.deleteById(oldFileId);
+        if (isUpdated) {
+            searchService.indexCandidate(candidate);
+        }
         return isUpdated;
     }
 
@@ -63,4 +101,23 @@ public class SimpleCandidateService implements CandidateService {
     public Collection<Candidate> findAll() {
         return candidateRepository.findAll();
     }
+
+    /* на одну запись больше, чтобы узнать, есть ли следующая страница */
+    @Override
+    public Page<CandidateSummary> findPage(ListFilter filter, PageCursor after, int size) {
+        var rows = candidateRepository.findPage(filter, after, size + 1);
+        return Page.of(rows, size, candidate -> new PageCursor(candidate.getCreationDate(), candidate.getId()));
+    }
+
+    /* записи читаются по id из репозитория (через кеш), поэтому в выдачу не попадают удаленные из БД */
+    @Override
+    public List<CandidateSummary> search(String query, int limit) {
+        return searchService.searchCandidates(query, limit).stream()
+                .map(candidateRepository::findById)
+                .flatMap(Optional::stream)
+                .map(candidate -> new CandidateSummary(candidate.getId(), candidate.getName(), candidate.getCreationDate(),
+                        candidate.getVisible(), cityService.findById(candidate.getCityId()).map(City::getName).orElse(null)))
+                .collect(Collectors.toList());
+    }
+
 }
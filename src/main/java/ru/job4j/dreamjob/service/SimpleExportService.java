@@ -0,0 +1,120 @@
+package ru.job4j.dreamjob.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.job4j.dreamjob.dto.ExportFormat;
+import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.repository.CandidateRepository;
+import ru.job4j.dreamjob.repository.VacancyRepository;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/* Выгрузка всех вакансий и кандидатов в CSV или NDJSON.
+Строки читаются курсором БД порциями по export.fetch-size и сразу пишутся в поток ответа через буфер записи,
+поэтому расход памяти не зависит от размера таблицы. Если клиент оборвал соединение, чтение курсора прекращается */
+@Service
+@ThreadSafe
+public class SimpleExportService implements ExportService, MeterBinder {
+
+    private static final List<String> VACANCY_COLUMNS =
+            List.of("id", "title", "description", "creationDate", "visible", "cityId");
+
+    private static final List<String> CANDIDATE_COLUMNS =
+            List.of("id", "name", "description", "creationDate", "visible", "cityId");
+
+    private final VacancyRepository vacancyRepository;
+
+    private final CandidateRepository candidateRepository;
+
+    private final int fetchSize;
+
+    private final AtomicLong vacancyCount = new AtomicLong();
+
+    private final AtomicLong candidateCount = new AtomicLong();
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    public SimpleExportService(VacancyRepository sql2oVacancyRepository,
+                               CandidateRepository sql2oCandidateRepository,
+                               @Value("${export.fetch-size:500}") int fetchSize) {
+        this.vacancyRepository = sql2oVacancyRepository;
+        this.candidateRepository = sql2oCandidateRepository;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public long exportVacancies(OutputStream outputStream, ExportFormat format) throws IOException {
+        return exportRecords(outputStream, format, VACANCY_COLUMNS, vacancyRepository::forEach,
+                vacancy -> Arrays.asList(vacancy.getId(), vacancy.getTitle(), vacancy.getDescription(),
+                        vacancy.getCreationDate(), vacancy.getVisible(), vacancy.getCityId()),
+                vacancyCount);
+    }
+
+    @Override
+    public long exportCandidates(OutputStream outputStream, ExportFormat format) throws IOException {
+        return exportRecords(outputStream, format, CANDIDATE_COLUMNS, candidateRepository::forEach,
+                candidate -> Arrays.asList(candidate.getId(), candidate.getName(), candidate.getDescription(),
+                        candidate.getCreationDate(), candidate.getVisible(), candidate.getCityId()),
+                candidateCount);
+    }
+
+    private <T> long exportRecords(OutputStream outputStream, ExportFormat format, List<String> columns,
+                                   BiConsumer<Integer, Consumer<T>> forEach, Function<T, List<Object>> mapper,
+                                   AtomicLong totalCount) throws IOException {
+        activeCount.incrementAndGet();
+        try (var writer = RecordWriter.open(outputStream, format, columns)) {
+            var count = new AtomicLong();
+            forEach.accept(fetchSize, record -> {
+                try {
+                    writer.write(mapper.apply(record));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                count.incrementAndGet();
+                totalCount.incrementAndGet();
+            });
+            return count.get();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            activeCount.decrementAndGet();
+        }
+    }
+
+    public long getVacancyCount() {
+        return vacancyCount.get();
+    }
+
+    public long getCandidateCount() {
+        return candidateCount.get();
+    }
+
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("export.rows", this, SimpleExportService::getVacancyCount)
+                .tag("entity", "vacancies").register(registry);
+        FunctionCounter.builder("export.rows", this, SimpleExportService::getCandidateCount)
+                .tag("entity", "candidates").register(registry);
+        Gauge.builder("export.active", this, SimpleExportService::getActiveCount).register(registry);
+    }
+
+}
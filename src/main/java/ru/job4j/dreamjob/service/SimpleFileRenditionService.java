@@ -0,0 +1,262 @@
+package ru.job4j.dreamjob.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.RenditionDto;
+import ru.job4j.dreamjob.model.FileRendition;
+import ru.job4j.dreamjob.repository.FileRenditionRepository;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.imageio.ImageIO;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Уменьшенные копии картинок для /files/{id}?w=...
+Запрошенная ширина округляется вверх до одной из file.rendition.widths, чтобы копий одного файла было немного.
+Копия создается один раз: сохраняется через FileService обычным файлом, а связь с исходным файлом записывается
+в file_renditions. Если копии не будет (это не картинка или она не шире нужного), в file_renditions записывается
+ссылка на сам исходный файл, чтобы не распаковывать его заново при каждом запросе. Создание идет в пуле из file.rendition.threads потоков с очередью на file.rendition.queue-capacity
+задач, одновременные запросы одной и той же копии ждут одну задачу. Если очередь полна или копия не успела
+создаться за file.rendition.timeout, отдается исходный файл, а начатая задача доделывается в фоне */
+@Service
+@ThreadSafe
+public class SimpleFileRenditionService implements FileRenditionService, MeterBinder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SimpleFileRenditionService.class);
+
+    private final FileService fileService;
+
+    private final FileRenditionRepository fileRenditionRepository;
+
+    private final int[] widths;
+
+    private final long maxSourcePixels;
+
+    private final Duration timeout;
+
+    private final ThreadPoolExecutor executor;
+
+    /* задачи, которые сейчас создают копии: ключ - id файла и ширина */
+    private final Map<Long, Future<Optional<Integer>>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong createdCount = new AtomicLong();
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public SimpleFileRenditionService(FileService fileService,
+                                      FileRenditionRepository sql2oFileRenditionRepository,
+                                      @Value("${file.rendition.widths:160,320,640,1280}") int[] widths,
+                                      @Value("${file.rendition.threads:2}") int threads,
+                                      @Value("${file.rendition.queue-capacity:16}") int queueCapacity,
+                                      @Value("${file.rendition.timeout:PT5S}") Duration timeout,
+                                      @Value("${file.rendition.max-source-pixels:40000000}") long maxSourcePixels) {
+        this.fileService = fileService;
+        this.fileRenditionRepository = sql2oFileRenditionRepository;
+        this.widths = Arrays.stream(widths).sorted().toArray();
+        this.timeout = timeout;
+        this.maxSourcePixels = maxSourcePixels;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("file-rendition-"));
+    }
+
+    @Override
+    public Optional<RenditionDto> getRenditionById(int fileId, int width) {
+        var renditionWidth = getRenditionWidth(width);
+        var renditionOptional = fileRenditionRepository.findByFileIdAndWidth(fileId, renditionWidth)
+                .map(FileRendition::getRenditionFileId)
+                .flatMap(this::getRendition);
+        if (renditionOptional.isPresent()) {
+            return renditionOptional;
+        }
+        return await(fileId, renditionWidth)
+                .flatMap(this::getRendition)
+                .or(() -> fileService.getResourceById(fileId).map(resource -> new RenditionDto(fileId, resource, true)));
+    }
+
+    private Optional<RenditionDto> getRendition(int renditionFileId) {
+        return fileService.getResourceById(renditionFileId).map(resource -> new RenditionDto(renditionFileId, resource, false));
+    }
+
+    private int getRenditionWidth(int width) {
+        for (var renditionWidth : widths) {
+            if (renditionWidth >= width) {
+                return renditionWidth;
+            }
+        }
+        return widths[widths.length - 1];
+    }
+
+    /* id файла с копией или empty, если вместо копии нужно отдать исходный файл */
+    private Optional<Integer> await(int fileId, int width) {
+        var key = (long) fileId << Integer.SIZE | width;
+        var task = new FutureTask<>(() -> create(fileId, width));
+        var future = inFlight.putIfAbsent(key, task);
+        if (future == null) {
+            future = task;
+            try {
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        inFlight.remove(key, task);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.remove(key, task);
+                task.cancel(false);
+                rejectedCount.incrementAndGet();
+                return Optional.empty();
+            }
+        }
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | CancellationException e) {
+            return Optional.empty();
+        } catch (ExecutionException e) {
+            LOG.warn("Failed to create rendition of file {} with width {}", fileId, width, e.getCause());
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    private Optional<Integer> create(int fileId, int width) throws IOException {
+        var sourceOptional = fileService.getResourceById(fileId);
+        if (sourceOptional.isEmpty()) {
+            return Optional.empty();
+        }
+        var source = sourceOptional.get();
+        var image = read(source, width);
+        if (image == null) {
+            return saveRendition(fileId, width, fileId);
+        }
+        var scaled = scale(image, width);
+        var format = scaled.getColorModel().hasAlpha() ? "png" : "jpg";
+        var file = fileService.save(new FileDto(getBaseName(source.getFilename()) + "-" + width + "." + format,
+                write(scaled, format)));
+        var saved = saveRendition(fileId, width, file.getId());
+        if (saved.isEmpty() || saved.get() != file.getId()) {
+            fileService.deleteById(file.getId());
+            return saved;
+        }
+        createdCount.incrementAndGet();
+        return saved;
+    }
+
+    /* если копию уже сохранил другой экземпляр приложения, возвращается его копия,
+    а если исходный файл успели удалить - empty */
+    private Optional<Integer> saveRendition(int fileId, int width, int renditionFileId) {
+        if (fileRenditionRepository.save(new FileRendition(fileId, width, renditionFileId)).isPresent()) {
+            return Optional.of(renditionFileId);
+        }
+        return fileRenditionRepository.findByFileIdAndWidth(fileId, width).map(FileRendition::getRenditionFileId);
+    }
+
+    /* null, если это не картинка, она не шире нужного или слишком велика для распаковки.
+    размеры читаются из заголовка, а большая картинка распаковывается с прореживанием - сразу примерно
+    вдвое шире нужного, без полноразмерного растра в памяти */
+    private BufferedImage read(Resource source, int width) throws IOException {
+        try (var inputStream = source.getInputStream();
+             var imageStream = new MemoryCacheImageInputStream(inputStream)) {
+            var readers = ImageIO.getImageReaders(imageStream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            var reader = readers.next();
+            try {
+                reader.setInput(imageStream, true, true);
+                var sourceWidth = reader.getWidth(0);
+                if (sourceWidth <= width || (long) sourceWidth * reader.getHeight(0) > maxSourcePixels) {
+                    return null;
+                }
+                var subsampling = Math.max(1, sourceWidth / (width * 2));
+                var param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scale(BufferedImage image, int width) {
+        var height = Math.max(1, (int) Math.round((double) image.getHeight() * width / image.getWidth()));
+        var type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        var scaled = new BufferedImage(width, height, type);
+        var graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private byte[] write(BufferedImage image, String format) throws IOException {
+        var outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, format, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private String getBaseName(String name) {
+        if (name == null) {
+            return "";
+        }
+        var extensionIndex = name.lastIndexOf('.');
+        return extensionIndex < 0 ? name : name.substring(0, extensionIndex);
+    }
+
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdown();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("files.renditions.created", this, SimpleFileRenditionService::getCreatedCount)
+                .register(registry);
+        FunctionCounter.builder("files.renditions.rejected", this, SimpleFileRenditionService::getRejectedCount)
+                .register(registry);
+        Gauge.builder("files.renditions.queue.size", executor, pool -> pool.getQueue().size()).register(registry);
+    }
+
+}
@@ -1,93 +1,254 @@
 package ru.job4j.dreamjob.service;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import ru.job4j.dreamjob.dto.FileDto;
 import ru.job4j.dreamjob.model.File;
 import ru.job4j.dreamjob.repository.FileRepository;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
+import static ru.job4j.dreamjob.service.FileStorageSupport.checkDeclaredSize;
+import static ru.job4j.dreamjob.service.FileStorageSupport.createDirectory;
+import static ru.job4j.dreamjob.service.FileStorageSupport.createTemporaryFile;
+import static ru.job4j.dreamjob.service.FileStorageSupport.deleteFile;
+import static ru.job4j.dreamjob.service.FileStorageSupport.getShardedPath;
+import static ru.job4j.dreamjob.service.FileStorageSupport.isModifiedBefore;
+import static ru.job4j.dreamjob.service.FileStorageSupport.listStoredFiles;
+import static ru.job4j.dreamjob.service.FileStorageSupport.moveToStorage;
+import static ru.job4j.dreamjob.service.FileStorageSupport.writeContent;
+
+/* хранение каждого загруженного файла отдельным файлом в каталоге file.directory (file.storage=files) */
 @Service
+@ConditionalOnProperty(name = "file.storage", havingValue = "files", matchIfMissing = true)
 public class SimpleFileService implements FileService {
 
+    private static final int LOCK_STRIPES = 64;
+
+    private static final int UNTRACKED_BATCH_SIZE = 500;
+
     private final FileRepository fileRepository;
 
     private final String storageDirectory;
 
+    private final long maxFileSize;
+
+    private final boolean contentAddressed;
+
+    private final StripedLocks locks = new StripedLocks(LOCK_STRIPES);
+
     public SimpleFileService(FileRepository sql2oFileRepository,
-                             @Value("${file.directory}") String storageDirectory) {
+                             @Value("${file.directory}") String storageDirectory,
+                             @Value("${spring.servlet.multipart.max-file-size}") DataSize maxFileSize,
+                             @Value("${file.content-addressed:false}") boolean contentAddressed) {
         this.fileRepository = sql2oFileRepository;
         this.storageDirectory = storageDirectory;
-        createStorageDirectory(storageDirectory);
+        this.maxFileSize = maxFileSize.toBytes();
+        this.contentAddressed = contentAddressed;
+        createDirectory(storageDirectory);
     }
 
-    private void createStorageDirectory(String path) {
+    /* содержимое пишется потоком во временный файл в каталоге хранилища, попутно считаются размер и SHA-256.
+    после успешной записи временный файл переименовывается в постоянный, поэтому недописанный файл
+    никогда не окажется по пути, сохраненному в БД */
+    @Override
+    public File save(FileDto fileDto) {
+        checkDeclaredSize(fileDto, maxFileSize);
+        var temporaryPath = createTemporaryFile(storageDirectory);
         try {
-            Files.createDirectories(Path.of(path));
+            var file = writeContent(fileDto, temporaryPath, maxFileSize);
+            if (contentAddressed) {
+                return saveContentAddressed(file, temporaryPath);
+            }
+            var path = getNewFilePath(file.getName());
+            moveToStorage(temporaryPath, path);
+            file.setPath(path);
+            return fileRepository.save(file);
         } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            deleteFile(temporaryPath.toString());
         }
     }
 
-    @Override
-    public File save(FileDto fileDto) {
-        var path = getNewFilePath(fileDto.getName());
-        writeFileBytes(path, fileDto.getContent());
-        return fileRepository.save(new File(fileDto.getName(), path));
+    /* если файл с таким же SHA-256 уже хранится, то новая загрузка только увеличивает его счетчик ссылок,
+    а временный файл удаляется. иначе файл сохраняется по пути, построенному из хеша содержимого */
+    private File saveContentAddressed(File file, Path temporaryPath) throws IOException {
+        var lock = locks.get(file.getHash());
+        lock.lock();
+        try {
+            var existingOptional = fileRepository.findByHash(file.getHash());
+            if (existingOptional.isPresent() && fileRepository.incrementReferenceCount(existingOptional.get().getId())) {
+                return existingOptional.get();
+            }
+            var path = getContentAddressedPath(file.getHash(), file.getName());
+            moveToStorage(temporaryPath, path);
+            file.setPath(path);
+            return fileRepository.save(file);
+        } finally {
+            StripedLocks.unlock(lock);
+        }
     }
 
-    /* создание уникального пути для нового файла. UUID это просто рандомная строка определенного формата */
-    private String getNewFilePath(String sourceName) {
-        return storageDirectory + java.io.File.separator + UUID.randomUUID() + sourceName;
+    /* расширение исходного имени сохраняется, чтобы по пути можно было определить тип содержимого */
+    private String getContentAddressedPath(String hash, String sourceName) {
+        var extensionIndex = sourceName.lastIndexOf('.');
+        var extension = extensionIndex < 0 ? "" : sourceName.substring(extensionIndex);
+        return getShardedPath(storageDirectory, hash + extension);
     }
 
-    private void writeFileBytes(String path, byte[] content) {
-        try {
-            Files.write(Path.of(path), content);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+    /* создание уникального пути для нового файла. UUID это просто рандомная строка определенного формата */
+    private String getNewFilePath(String sourceName) {
+        return getShardedPath(storageDirectory, UUID.randomUUID() + sourceName);
     }
 
     @Override
-    public Optional<FileDto> getFileById(int id) {
+    public Optional<Resource> getResourceById(int id) {
         var fileOptional = fileRepository.findById(id);
         if (fileOptional.isEmpty()) {
             return Optional.empty();
         }
-        var content = readFileAsBytes(fileOptional.get().getPath());
-        return Optional.of(new FileDto(fileOptional.get().getName(), content));
-    }
-
-    private byte[] readFileAsBytes(String path) {
-        try {
-            return Files.readAllBytes(Path.of(path));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        var resource = new FileSystemResource(Path.of(fileOptional.get().getPath()));
+        if (!resource.isReadable()) {
+            return Optional.empty();
         }
+        return Optional.of(resource);
     }
 
+    /* удаляется одна ссылка на файл. сам файл и запись о нем удаляются вместе с последней ссылкой */
     @Override
     public boolean deleteById(int id) {
         var fileOptional = fileRepository.findById(id);
         if (fileOptional.isEmpty()) {
             return false;
         }
-        deleteFile(fileOptional.get().getPath());
-        return fileRepository.deleteById(id);
+        var file = fileOptional.get();
+        var lock = locks.get(StripedLocks.getKey(file));
+        lock.lock();
+        try {
+            if (fileRepository.decrementReferenceCount(id)) {
+                return true;
+            }
+            deleteFile(file.getPath());
+            return fileRepository.deleteById(id);
+        } finally {
+            StripedLocks.unlock(lock);
+        }
     }
 
-    private void deleteFile(String path) {
+    /* сначала одним запросом удаляются записи, потом файлы: при сбое между ними остаются только файлы без записей,
+    которые найдет deleteUntracked */
+    @Override
+    public void deleteAllById(Collection<Integer> ids) {
+        var files = ids.stream().map(fileRepository::findById).flatMap(Optional::stream).collect(Collectors.toList());
+        var acquired = locks.lockAll(files.stream().map(StripedLocks::getKey).collect(Collectors.toList()));
         try {
-            Files.deleteIfExists(Path.of(path));
+            var released = files.stream()
+                    .filter(file -> !fileRepository.decrementReferenceCount(file.getId()))
+                    .collect(Collectors.toList());
+            delete(released);
+        } finally {
+            StripedLocks.unlockAll(acquired);
+        }
+    }
+
+    /* под блокировками список перечитывается: пока они брались, файл могла переиспользовать новая загрузка */
+    @Override
+    public Collection<Integer> deleteUnreferenced(LocalDateTime referencedBefore, int limit) {
+        var candidates = fileRepository.findAllUnreferenced(referencedBefore, limit);
+        var acquired = locks.lockAll(candidates.stream().map(StripedLocks::getKey).collect(Collectors.toList()));
+        try {
+            var candidateIds = candidates.stream().map(File::getId).collect(Collectors.toSet());
+            var unreferenced = fileRepository.findAllUnreferenced(referencedBefore, limit).stream()
+                    .filter(file -> candidateIds.contains(file.getId()))
+                    .collect(Collectors.toList());
+            delete(unreferenced);
+            return unreferenced.stream().map(File::getId).collect(Collectors.toList());
+        } finally {
+            StripedLocks.unlockAll(acquired);
+        }
+    }
+
+    private void delete(Collection<File> files) {
+        fileRepository.deleteAllById(files.stream().map(File::getId).collect(Collectors.toList()));
+        files.forEach(file -> deleteFile(file.getPath()));
+    }
+
+    @Override
+    public int deleteUntracked(LocalDateTime modifiedBefore) {
+        var deleted = 0;
+        try (var paths = listStoredFiles(storageDirectory)) {
+            var iterator = paths.iterator();
+            var batch = new ArrayList<Path>();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == UNTRACKED_BATCH_SIZE || !iterator.hasNext()) {
+                    deleted += deleteUntracked(batch, modifiedBefore);
+                    batch.clear();
+                }
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        return deleted;
+    }
+
+    /* файл проверяется повторно под блокировкой по его имени (для файлов, названных по хешу, это та же блокировка,
+    что и при сохранении), чтобы не удалить содержимое, которое новая загрузка только что положила по этому пути */
+    private int deleteUntracked(List<Path> paths, LocalDateTime modifiedBefore) {
+        var deleted = 0;
+        var tracked = new HashSet<>(fileRepository.findExistingPaths(getStoredPaths(paths)));
+        for (var path : paths) {
+            if (isTracked(path, tracked) || !isModifiedBefore(path, modifiedBefore)) {
+                continue;
+            }
+            var name = path.getFileName().toString();
+            var lock = locks.get(name.contains(".") ? name.substring(0, name.indexOf('.')) : name);
+            lock.lock();
+            try {
+                var trackedNow = new HashSet<>(fileRepository.findExistingPaths(getStoredPaths(List.of(path))));
+                if (!isTracked(path, trackedNow) && isModifiedBefore(path, modifiedBefore)) {
+                    deleteFile(path.toString());
+                    deleted++;
+                }
+            } finally {
+                StripedLocks.unlock(lock);
+            }
+        }
+        return deleted;
+    }
+
+    private List<String> getStoredPaths(List<Path> paths) {
+        var result = new ArrayList<String>();
+        for (var path : paths) {
+            result.add(path.toString());
+            result.add(getStoredPath(path));
+        }
+        return result;
+    }
+
+    private boolean isTracked(Path path, Set<String> tracked) {
+        return tracked.contains(path.toString()) || tracked.contains(getStoredPath(path));
+    }
+
+    /* в БД путь записан так, как его построил сервис: каталог хранилища в том виде, как он задан в настройках,
+    и дальше путь внутри хранилища. обход каталога может вернуть тот же файл в другом написании */
+    private String getStoredPath(Path path) {
+        return storageDirectory + java.io.File.separator + Path.of(storageDirectory).relativize(path);
     }
 
 }
@@ -0,0 +1,178 @@
+package ru.job4j.dreamjob.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.job4j.dreamjob.dto.ImportFormat;
+import ru.job4j.dreamjob.dto.ImportResult;
+import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.repository.CandidateRepository;
+import ru.job4j.dreamjob.repository.VacancyRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/* Массовая загрузка вакансий и кандидатов из CSV или JSON.
+Записи читаются из потока по одной и копятся порциями по import.chunk-size. Каждая порция сохраняется через saveAll
+одним пакетом JDBC в своей транзакции, поэтому уже сохраненные порции не откатываются из-за ошибок в следующих.
+Строка с неверными полями не попадает в порцию и сразу записывается в ошибки. Если БД отвергла порцию целиком,
+ее строки сохраняются по одной, чтобы найти виноватые и не потерять остальные.
+Если файл поврежден, загрузка останавливается на этом месте, а прочитанное до него сохраняется.
+Сохраненные записи сразу добавляются в поисковый индекс */
+@Service
+public class SimpleImportService implements ImportService {
+
+    private final VacancyRepository vacancyRepository;
+
+    private final CandidateRepository candidateRepository;
+
+    private final CityService cityService;
+
+    private final SearchService searchService;
+
+    private final int chunkSize;
+
+    public SimpleImportService(VacancyRepository sql2oVacancyRepository,
+                               CandidateRepository sql2oCandidateRepository,
+                               CityService cityService,
+                               SearchService searchService,
+                               @Value("${import.chunk-size:500}") int chunkSize) {
+        this.vacancyRepository = sql2oVacancyRepository;
+        this.candidateRepository = sql2oCandidateRepository;
+        this.cityService = cityService;
+        this.searchService = searchService;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public ImportResult importVacancies(InputStream inputStream, ImportFormat format) {
+        return importRecords(inputStream, format,
+                record -> new Vacancy(0, getRequired(record, "title"), getRequired(record, "description"),
+                        getCreationDate(record), getVisible(record), getCityId(record), 0),
+                vacancies -> {
+                    vacancyRepository.saveAll(vacancies);
+                    vacancies.forEach(searchService::indexVacancy);
+                },
+                vacancy -> searchService.indexVacancy(vacancyRepository.save(vacancy)));
+    }
+
+    @Override
+    public ImportResult importCandidates(InputStream inputStream, ImportFormat format) {
+        return importRecords(inputStream, format,
+                record -> new Candidate(0, getRequired(record, "name"), getRequired(record, "description"),
+                        getCreationDate(record), getVisible(record), getCityId(record), 0),
+                candidates -> {
+                    candidateRepository.saveAll(candidates);
+                    candidates.forEach(searchService::indexCandidate);
+                },
+                candidate -> searchService.indexCandidate(candidateRepository.save(candidate)));
+    }
+
+    private <T> ImportResult importRecords(InputStream inputStream, ImportFormat format,
+                                           Function<Map<String, String>, T> mapper,
+                                           Consumer<Collection<T>> saveAll, Consumer<T> save) {
+        var result = new ImportResult();
+        var chunk = new ArrayList<T>(chunkSize);
+        var chunkRows = new ArrayList<Integer>(chunkSize);
+        var row = 0;
+        try {
+            var reader = RecordReader.open(inputStream, format);
+            Map<String, String> record;
+            while ((record = reader.next()) != null) {
+                row++;
+                try {
+                    chunk.add(mapper.apply(record));
+                    chunkRows.add(row);
+                } catch (IllegalArgumentException e) {
+                    result.addError(row, e.getMessage());
+                    continue;
+                }
+                if (chunk.size() == chunkSize) {
+                    saveChunk(chunk, chunkRows, saveAll, save, result);
+                    chunk = new ArrayList<>(chunkSize);
+                    chunkRows = new ArrayList<>(chunkSize);
+                }
+            }
+        } catch (IOException e) {
+            result.addError(row + 1, "Malformed " + format + ", import stopped: " + e.getMessage());
+        }
+        saveChunk(chunk, chunkRows, saveAll, save, result);
+        return result;
+    }
+
+    private <T> void saveChunk(List<T> chunk, List<Integer> chunkRows, Consumer<Collection<T>> saveAll,
+                               Consumer<T> save, ImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            saveAll.accept(chunk);
+            result.addImported(chunk.size());
+            return;
+        } catch (RuntimeException e) {
+            /* порция откатилась целиком, ниже строки сохраняются по одной */
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            try {
+                save.accept(chunk.get(i));
+                result.addImported(1);
+            } catch (RuntimeException e) {
+                result.addError(chunkRows.get(i), e.getMessage());
+            }
+        }
+    }
+
+    private String getRequired(Map<String, String> record, String name) {
+        var value = record.get(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Field " + name + " is required");
+        }
+        return value.trim();
+    }
+
+    private LocalDateTime getCreationDate(Map<String, String> record) {
+        var value = record.get("creationDate");
+        if (value == null || value.isBlank()) {
+            return LocalDateTime.now();
+        }
+        try {
+            return LocalDateTime.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Field creationDate is not an ISO date-time: " + value);
+        }
+    }
+
+    private boolean getVisible(Map<String, String> record) {
+        var value = record.get("visible");
+        if (value == null || value.isBlank()) {
+            return true;
+        }
+        if (!"true".equalsIgnoreCase(value.trim()) && !"false".equalsIgnoreCase(value.trim())) {
+            throw new IllegalArgumentException("Field visible must be true or false: " + value);
+        }
+        return Boolean.parseBoolean(value.trim());
+    }
+
+    private int getCityId(Map<String, String> record) {
+        var value = getRequired(record, "cityId");
+        int cityId;
+        try {
+            cityId = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Field cityId is not a number: " + value);
+        }
+        if (cityService.findById(cityId).isEmpty()) {
+            throw new IllegalArgumentException("Unknown city " + cityId);
+        }
+        return cityId;
+    }
+
+}
@@ -0,0 +1,140 @@
+package ru.job4j.dreamjob.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.repository.CandidateRepository;
+import ru.job4j.dreamjob.repository.VacancyRepository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.List;
+
+/* Полнотекстовый поиск по вакансиям и кандидатам в индексах SearchIndex.
+При старте индексы строятся заново из БД: строки читаются курсором порциями по search.rebuild.fetch-size.
+Дальше индексы поддерживают сервисы вакансий и кандидатов при каждом сохранении, изменении и удалении.
+Индекс есть только в памяти этого экземпляра приложения: изменения, сделанные в обход сервисов или другими
+экземплярами, в нем появятся только после rebuild */
+@Service
+@ThreadSafe
+public class SimpleSearchService implements SearchService, MeterBinder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SimpleSearchService.class);
+
+    private final VacancyRepository vacancyRepository;
+
+    private final CandidateRepository candidateRepository;
+
+    private final int fetchSize;
+
+    private volatile SearchIndex vacancyIndex = new SearchIndex();
+
+    private volatile SearchIndex candidateIndex = new SearchIndex();
+
+    public SimpleSearchService(VacancyRepository sql2oVacancyRepository,
+                               CandidateRepository sql2oCandidateRepository,
+                               @Value("${search.rebuild.fetch-size:500}") int fetchSize) {
+        this.vacancyRepository = sql2oVacancyRepository;
+        this.candidateRepository = sql2oCandidateRepository;
+        this.fetchSize = fetchSize;
+    }
+
+    /* если БД при старте недоступна, приложение запускается с пустыми индексами */
+    @PostConstruct
+    public void preload() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to build search indexes, search will find nothing until rebuild", e);
+        }
+    }
+
+    /* новые индексы строятся рядом со старыми и заменяют их целиком; изменения, сделанные за время построения,
+    могут в них не попасть, поэтому вызывать при старте или когда записи не меняются */
+    public void rebuild() {
+        var vacancies = new SearchIndex();
+        vacancyRepository.forEach(fetchSize,
+                vacancy -> vacancies.put(vacancy.getId(), vacancy.getTitle(), vacancy.getDescription()));
+        var candidates = new SearchIndex();
+        candidateRepository.forEach(fetchSize,
+                candidate -> candidates.put(candidate.getId(), candidate.getName(), candidate.getDescription()));
+        vacancyIndex = vacancies;
+        candidateIndex = candidates;
+        LOG.info("Search indexes built: {} vacancies, {} candidates", vacancies.size(), candidates.size());
+    }
+
+    @Override
+    public List<Integer> searchVacancies(String query, int limit) {
+        return vacancyIndex.search(query, limit);
+    }
+
+    @Override
+    public List<Integer> searchCandidates(String query, int limit) {
+        return candidateIndex.search(query, limit);
+    }
+
+    @Override
+    public void indexVacancy(Vacancy vacancy) {
+        var id = vacancy.getId();
+        var title = vacancy.getTitle();
+        var description = vacancy.getDescription();
+        afterCommit(() -> vacancyIndex.put(id, title, description));
+    }
+
+    @Override
+    public void removeVacancy(int id) {
+        afterCommit(() -> vacancyIndex.remove(id));
+    }
+
+    @Override
+    public void indexCandidate(Candidate candidate) {
+        var id = candidate.getId();
+        var name = candidate.getName();
+        var description = candidate.getDescription();
+        afterCommit(() -> candidateIndex.put(id, name, description));
+    }
+
+    @Override
+    public void removeCandidate(int id) {
+        afterCommit(() -> candidateIndex.remove(id));
+    }
+
+    /* при откате индекс не меняется, а до фиксации поиск не находит того, чего еще не видно в БД */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    public int getVacancyCount() {
+        return vacancyIndex.size();
+    }
+
+    public int getCandidateCount() {
+        return candidateIndex.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("search.index.size", this, SimpleSearchService::getVacancyCount)
+                .tag("entity", "vacancies").register(registry);
+        Gauge.builder("search.index.size", this, SimpleSearchService::getCandidateCount)
+                .tag("entity", "candidates").register(registry);
+    }
+
+}
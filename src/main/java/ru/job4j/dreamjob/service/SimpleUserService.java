@@ -1,27 +1,159 @@
 package ru.job4j.dreamjob.service;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import ru.job4j.dreamjob.model.User;
 import ru.job4j.dreamjob.repository.UserRepository;
 
+import javax.annotation.PreDestroy;
+import javax.annotation.concurrent.ThreadSafe;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/* Пароли хранятся хешами PasswordHasher. Хеширование и проверка идут не в потоке запроса, а в пуле
+из password.hash.threads потоков с очередью на password.hash.queue-capacity задач: всплеск входов занимает
+не больше этих потоков, и остальные страницы продолжают открываться. Если очередь полна,
+бросается RejectedExecutionException, и вход предлагается повторить позже.
+Хеш, посчитанный с меньшим числом итераций, чем сейчас в настройках, или пароль открытым текстом
+пересчитываются при успешном входе */
 @Service
-public class SimpleUserService implements UserService {
+@ThreadSafe
+public class SimpleUserService implements UserService, MeterBinder {
 
     private final UserRepository userRepository;
 
-    public SimpleUserService(UserRepository sql2oUserRepository) {
+    private final PasswordHasher passwordHasher;
+
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong matchedCount = new AtomicLong();
+
+    private final AtomicLong mismatchedCount = new AtomicLong();
+
+    private final AtomicLong rehashedCount = new AtomicLong();
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public SimpleUserService(UserRepository sql2oUserRepository,
+                             PasswordHasher passwordHasher,
+                             @Value("${password.hash.threads:2}") int threads,
+                             @Value("${password.hash.queue-capacity:32}") int queueCapacity) {
         this.userRepository = sql2oUserRepository;
+        this.passwordHasher = passwordHasher;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hash-"));
     }
 
     @Override
     public Optional<User> save(User user) {
-        return userRepository.save(user);
+        var hash = execute(() -> passwordHasher.hash(user.getPassword()));
+        return userRepository.save(new User(user.getId(), user.getEmail(), user.getName(), hash));
     }
 
+    /* для неизвестной почты тоже тратится время на проверку пароля, чтобы по времени ответа
+    нельзя было узнать, зарегистрирована ли она */
     @Override
     public Optional<User> findByEmailAndPassword(String email, String password) {
-        return userRepository.findByEmailAndPassword(email, password);
+        var userOptional = userRepository.findByEmail(email);
+        var stored = userOptional.map(User::getPassword).orElse(null);
+        var hash = execute(() -> verify(password, stored));
+        if (hash == null) {
+            mismatchedCount.incrementAndGet();
+            return Optional.empty();
+        }
+        matchedCount.incrementAndGet();
+        var user = userOptional.get();
+        if (!hash.equals(stored) && userRepository.updatePassword(user.getId(), hash)) {
+            user.setPassword(hash);
+            rehashedCount.incrementAndGet();
+        }
+        return Optional.of(user);
+    }
+
+    /* null - пароль не подошел, иначе хеш, который должен храниться: прежний или пересчитанный */
+    private String verify(String password, String stored) {
+        if (stored == null) {
+            passwordHasher.simulateMatch(password);
+            return null;
+        }
+        if (!passwordHasher.matches(password, stored)) {
+            return null;
+        }
+        return passwordHasher.needsRehash(stored) ? passwordHasher.hash(password) : stored;
+    }
+
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCount.incrementAndGet();
+            throw e;
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        }
+    }
+
+    @Override
+    public Optional<User> findById(int id) {
+        return userRepository.findById(id);
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
     }
+
+    public long getMatchedCount() {
+        return matchedCount.get();
+    }
+
+    public long getMismatchedCount() {
+        return mismatchedCount.get();
+    }
+
+    public long getRehashedCount() {
+        return rehashedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdown();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("users.password.verifications", this, SimpleUserService::getMatchedCount)
+                .tag("result", "match").register(registry);
+        FunctionCounter.builder("users.password.verifications", this, SimpleUserService::getMismatchedCount)
+                .tag("result", "mismatch").register(registry);
+        FunctionCounter.builder("users.password.rehashed", this, SimpleUserService::getRehashedCount)
+                .register(registry);
+        FunctionCounter.builder("users.password.rejected", this, SimpleUserService::getRejectedCount)
+                .register(registry);
+        Gauge.builder("users.password.queue.size", this, SimpleUserService::getQueueSize).register(registry);
+    }
+
 }
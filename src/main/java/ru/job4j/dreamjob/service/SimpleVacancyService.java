@@ -1,11 +1,19 @@
 package ru.job4j.dreamjob.service;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.ListFilter;
+import ru.job4j.dreamjob.dto.Page;
+import ru.job4j.dreamjob.dto.PageCursor;
+import ru.job4j.dreamjob.dto.VacancySummary;
+import ru.job4j.dreamjob.model.City;
 import ru.job4j.dreamjob.model.Vacancy;
 import ru.job4j.dreamjob.repository.VacancyRepository;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class SimpleVacancyService implements VacancyService {
@@ -14,15 +22,28 @@ public class SimpleVacancyService implements VacancyService {
 
     private final FileService fileService;
 
-    private SimpleVacancyService(VacancyRepository sql2oVacancyRepository, FileService fileService) {
+    private final FileReaper fileReaper;
+
+    private final SearchService searchService;
+
+    private final CityService cityService;
+
+    public SimpleVacancyService(VacancyRepository sql2oVacancyRepository, FileService fileService, FileReaper fileReaper,
+                                SearchService searchService, CityService cityService) {
         this.vacancyRepository = sql2oVacancyRepository;
         this.fileService = fileService;
+        this.fileReaper = fileReaper;
+        this.searchService = searchService;
+        this.cityService = cityService;
     }
 
     @Override
+    @Transactional
     public Vacancy save(Vacancy vacancy, FileDto image) {
         saveNewFile(vacancy, image);
-        return vacancyRepository.save(vacancy);
+        var saved = vacancyRepository.save(vacancy);
+        searchService.indexVacancy(saved);
+        return saved;
     }
 
     private void saveNewFile(Vacancy vacancy, FileDto image) {
@@ -31,27 +52,43 @@ public class SimpleVacancyService implements VacancyService {
     }
 
     @Override
+    @Transactional
     public boolean deleteById(int id) {
-        var fileOptional = findById(id);
-        if (fileOptional.isEmpty()) {
+        var fileIdOptional = vacancyRepository.findFileIdForUpdate(id);
+        if (fileIdOptional.isEmpty() || !vacancyRepository.deleteById(id)) {
             return false;
         }
-        var isDeleted = vacancyRepository.deleteById(id);
-        fileService.deleteById(fileOptional.get().getFileId());
-        return isDeleted;
+        searchService.removeVacancy(id);
+        fileReaper.enqueue(fileIdOptional.get());
+        return true;
     }
 
+    /* старый file_id читается из БД под блокировкой строки, а не берется из формы: устаревшее или подмененное
+    значение освободило бы ссылку на файл, которым пользуется другая запись */
     @Override
+    @Transactional
     public boolean update(Vacancy vacancy, FileDto image) {
-        boolean isNewFileEmpty = image.getContent().length == 0;
-        if (isNewFileEmpty) {
-            return vacancyRepository.update(vacancy);
+        var fileIdOptional = vacancyRepository.findFileIdForUpdate(vacancy.getId());
+        if (fileIdOptional.isEmpty()) {
+            return false;
+        }
+        var oldFileId = fileIdOptional.get();
+        if (image.isEmpty()) {
+            vacancy.setFileId(oldFileId);
+            return updateAndIndex(vacancy);
         }
-        /* если передан новый не пустой файл, то старый удаляем, а новый сохраняем */
-        int oldFileId = vacancy.getFileId();
         saveNewFile(vacancy, image);
+        var isUpdated = updateAndIndex(vacancy);
+        /* не обновилась - не нужен только что сохраненный файл */
+        fileReaper.enqueue(isUpdated ? oldFileId : vacancy.getFileId());
+        return isUpdated;
+    }
+
+    private boolean updateAndIndex(Vacancy vacancy) {
         var isUpdated = vacancyRepository.update(vacancy);
-        fileService.deleteById(oldFileId);
+        if (isUpdated) {
+            searchService.indexVacancy(vacancy);
+        }
         return isUpdated;
     }
 
@@ -65,4 +102,22 @@ public class SimpleVacancyService implements VacancyService {
         return vacancyRepository.findAll();
     }
 
+    /* на одну запись больше, чтобы узнать, есть ли следующая страница */
+    @Override
+    public Page<VacancySummary> findPage(ListFilter filter, PageCursor after, int size) {
+        var rows = vacancyRepository.findPage(filter, after, size + 1);
+        return Page.of(rows, size, vacancy -> new PageCursor(vacancy.getCreationDate(), vacancy.getId()));
+    }
+
+    /* записи читаются по id из репозитория (через кеш), поэтому в выдачу не попадают удаленные из БД */
+    @Override
+    public List<VacancySummary> search(String query, int limit) {
+        return searchService.searchVacancies(query, limit).stream()
+                .map(vacancyRepository::findById)
+                .flatMap(Optional::stream)
+                .map(vacancy -> new VacancySummary(vacancy.getId(), vacancy.getTitle(), vacancy.getCreationDate(),
+                        vacancy.getVisible(), cityService.findById(vacancy.getCityId()).map(City::getName).orElse(null)))
+                .collect(Collectors.toList());
+    }
+
 }
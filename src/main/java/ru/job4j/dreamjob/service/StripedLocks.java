@@ -0,0 +1,71 @@
+package ru.job4j.dreamjob.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.job4j.dreamjob.model.File;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/* блокировки по ключу файла (хешу содержимого). сохранение и удаление файлов с одинаковым содержимым не должны
+пересекаться: иначе удаление последней ссылки может стереть файл, который только что переиспользовала новая загрузка.
+операции над файлами с разным содержимым почти всегда попадают на разные блокировки и идут параллельно */
+final class StripedLocks {
+
+    private final Lock[] locks;
+
+    StripedLocks(int stripes) {
+        locks = new Lock[stripes];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    static String getKey(File file) {
+        return file.getHash() == null ? file.getPath() : file.getHash();
+    }
+
+    Lock get(String key) {
+        return locks[getIndex(key)];
+    }
+
+    /* внутри транзакции блокировка освобождается только после ее завершения: до фиксации другие потоки не видят
+    сделанного под блокировкой и, например, сохранили бы второй файл с тем же хешем */
+    static void unlock(Lock lock) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            lock.unlock();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    /* блокировки для пакетной операции берутся по возрастанию номера, поэтому две пакетные операции
+    не могут заблокировать друг друга. освобождать через unlockAll */
+    List<Lock> lockAll(Collection<String> keys) {
+        var acquired = new ArrayList<Lock>();
+        keys.stream().mapToInt(this::getIndex).distinct().sorted().forEach(index -> {
+            locks[index].lock();
+            acquired.add(locks[index]);
+        });
+        return acquired;
+    }
+
+    static void unlockAll(List<Lock> acquired) {
+        for (int i = acquired.size() - 1; i >= 0; i--) {
+            unlock(acquired.get(i));
+        }
+    }
+
+    private int getIndex(String key) {
+        return Math.floorMod(key.hashCode(), locks.length);
+    }
+
+}
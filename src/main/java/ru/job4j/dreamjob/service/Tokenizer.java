@@ -0,0 +1,91 @@
+package ru.job4j.dreamjob.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/* Разбор текста на термы для поиска: слова из букв и цифр в нижнем регистре, ё заменяется на е, служебные слова
+отбрасываются. От русских слов отрезаются падежные окончания, от английских - окончания множественного числа,
+так что "разработчика" и "разработчики", "developer" и "developers" дают один терм */
+final class Tokenizer {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "и", "в", "во", "не", "на", "с", "со", "к", "ко", "у", "о", "об", "от", "до", "по", "за", "из", "для",
+            "или", "а", "но", "же", "ли", "бы", "что", "как", "это",
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it", "of", "on", "or",
+            "the", "to", "with");
+
+    /* сначала длинные: иначе от "ами" отрезалось бы только "и" */
+    private static final String[] RUSSIAN_ENDINGS = {
+            "иями", "ями", "ами", "ого", "его", "ому", "ему", "ыми", "ими", "иях", "ией",
+            "ой", "ей", "ий", "ый", "ая", "яя", "ое", "ее", "ые", "ие", "ым", "им", "ую", "юю",
+            "ов", "ев", "ам", "ям", "ах", "ях", "ом", "ем", "ия", "ию", "ии",
+            "а", "я", "о", "е", "ы", "и", "у", "ю", "ь", "й"};
+
+    /* короче не обрезаются: у коротких слов окончание не отделить от основы */
+    private static final int MIN_STEM_LENGTH = 3;
+
+    private Tokenizer() {
+    }
+
+    static List<String> tokenize(String text) {
+        var tokens = new ArrayList<String>();
+        if (text == null) {
+            return tokens;
+        }
+        var lowerCase = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int start = -1;
+        for (int i = 0; i <= lowerCase.length(); i++) {
+            var isWordChar = i < lowerCase.length() && Character.isLetterOrDigit(lowerCase.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                var word = lowerCase.substring(start, i);
+                if (!STOP_WORDS.contains(word)) {
+                    tokens.add(stem(word));
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    static String stem(String word) {
+        var last = word.charAt(word.length() - 1);
+        if (last >= 'а' && last <= 'я') {
+            return stemRussian(word);
+        }
+        if (last >= 'a' && last <= 'z') {
+            return stemEnglish(word);
+        }
+        return word;
+    }
+
+    private static String stemRussian(String word) {
+        for (var ending : RUSSIAN_ENDINGS) {
+            if (word.endsWith(ending) && word.length() - ending.length() >= MIN_STEM_LENGTH) {
+                return word.substring(0, word.length() - ending.length());
+            }
+        }
+        return word;
+    }
+
+    /* как минимальный английский стеммер: только множественное число, чтобы не склеивать разные слова */
+    private static String stemEnglish(String word) {
+        if (word.length() <= MIN_STEM_LENGTH || word.charAt(word.length() - 1) != 's') {
+            return word;
+        }
+        if (word.endsWith("ies") && !word.endsWith("eies") && !word.endsWith("aies")) {
+            return word.substring(0, word.length() - 3) + "y";
+        }
+        if (word.endsWith("es") && !word.endsWith("aes") && !word.endsWith("ees") && !word.endsWith("oes")) {
+            return word.substring(0, word.length() - 1);
+        }
+        if (word.endsWith("us") || word.endsWith("ss")) {
+            return word;
+        }
+        return word.substring(0, word.length() - 1);
+    }
+
+}
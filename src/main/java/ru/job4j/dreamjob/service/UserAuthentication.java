@@ -0,0 +1,20 @@
+package ru.job4j.dreamjob.service;
+
+import ru.job4j.dreamjob.dto.UserPrincipal;
+import ru.job4j.dreamjob.model.User;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Optional;
+
+/* где хранится вошедший пользователь между запросами: в сессии (auth.mode=session)
+или в подписанной cookie (auth.mode=cookie). хранится только UserPrincipal. гость ничего не хранит и сессию не получает */
+public interface UserAuthentication {
+
+    Optional<UserPrincipal> getPrincipal(HttpServletRequest request);
+
+    void login(User user, HttpServletRequest request, HttpServletResponse response);
+
+    void logout(HttpServletRequest request, HttpServletResponse response);
+
+}
@@ -6,8 +6,11 @@ import java.util.Optional;
 
 public interface UserService {
 
+    /* save и findByEmailAndPassword бросают RejectedExecutionException, если проверок паролей сейчас слишком много */
     Optional<User> save(User user);
 
     Optional<User> findByEmailAndPassword(String email, String password);
 
+    Optional<User> findById(int id);
+
 }
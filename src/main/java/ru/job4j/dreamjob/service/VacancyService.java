@@ -1,9 +1,14 @@
 package ru.job4j.dreamjob.service;
 
 import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.ListFilter;
+import ru.job4j.dreamjob.dto.Page;
+import ru.job4j.dreamjob.dto.PageCursor;
+import ru.job4j.dreamjob.dto.VacancySummary;
 import ru.job4j.dreamjob.model.Vacancy;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface VacancyService {
@@ -18,4 +23,10 @@ public interface VacancyService {
 
     Collection<Vacancy> findAll();
 
+    /* страница из size записей, подходящих под filter, начиная сразу после after. after == null - первая страница */
+    Page<VacancySummary> findPage(ListFilter filter, PageCursor after, int size);
+
+    /* до limit записей, подходящих под поисковый запрос, от самых подходящих */
+    List<VacancySummary> search(String query, int limit);
+
 }
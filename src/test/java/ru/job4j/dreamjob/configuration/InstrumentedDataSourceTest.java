@@ -0,0 +1,43 @@
+package ru.job4j.dreamjob.configuration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InstrumentedDataSourceTest {
+
+    private static final String URL = "jdbc:h2:mem:pool;DB_CLOSE_DELAY=-1";
+
+    @Test
+    public void whenWarmUpThenOpenMinIdleConnections() throws SQLException {
+        var pool = new DatasourcePoolProperties();
+        pool.setMinIdle(3);
+        try (var dataSource = new InstrumentedDataSource(URL, "", "", pool)) {
+            dataSource.warmUp();
+
+            assertThat(dataSource.getNumIdle()).isEqualTo(3);
+            assertThat(dataSource.getBorrowCount()).isZero();
+        }
+    }
+
+    @Test
+    public void whenBorrowConnectionThenCountItInMetrics() throws SQLException {
+        var registry = new SimpleMeterRegistry();
+        try (var dataSource = new DatasourceConfiguration().connectionPool(URL, "", "")) {
+            dataSource.bindTo(registry);
+
+            try (var connection = dataSource.getConnection()) {
+                assertThat(registry.get("datasource.pool.active").gauge().value()).isEqualTo(1);
+            }
+
+            assertThat(registry.get("datasource.pool.active").gauge().value()).isZero();
+            assertThat(registry.get("datasource.pool.idle").gauge().value()).isEqualTo(1);
+            assertThat(registry.get("datasource.pool.waiting").gauge().value()).isZero();
+            assertThat(registry.get("datasource.pool.borrow").functionTimer().count()).isEqualTo(1);
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+package ru.job4j.dreamjob.configuration;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.sql2o.Sql2o;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+
+    private static InstrumentedDataSource primary;
+
+    private static InstrumentedDataSource replica;
+
+    private static Sql2o sql2o;
+
+    private static TransactionTemplate writeTransaction;
+
+    private static TransactionTemplate readOnlyTransaction;
+
+    @BeforeAll
+    public static void initDatabases() {
+        var configuration = new DatasourceConfiguration();
+        primary = configuration.connectionPool("jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1", "", "");
+        replica = configuration.connectionPool("jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1", "", "");
+        new Sql2o(primary).runInTransaction((connection, argument) -> {
+            connection.createQuery("CREATE TABLE origin(name VARCHAR)").executeUpdate();
+            connection.createQuery("INSERT INTO origin VALUES ('primary')").executeUpdate();
+        });
+        new Sql2o(replica).runInTransaction((connection, argument) -> {
+            connection.createQuery("CREATE TABLE origin(name VARCHAR)").executeUpdate();
+            connection.createQuery("INSERT INTO origin VALUES ('replica')").executeUpdate();
+        });
+        var dataSource = configuration.routingDataSource(primary, replica);
+        sql2o = configuration.databaseClient(dataSource);
+        var transactionManager = configuration.transactionManager(dataSource);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @AfterAll
+    public static void closeDatabases() throws Exception {
+        primary.close();
+        replica.close();
+    }
+
+    private static String readOrigin() {
+        try (var connection = sql2o.open()) {
+            return connection.createQuery("SELECT name FROM origin").executeScalar(String.class);
+        }
+    }
+
+    private static String readOnlyOrigin() {
+        return readOnlyTransaction.execute(status -> readOrigin());
+    }
+
+    private static String writeOrigin() {
+        return writeTransaction.execute(status -> readOrigin());
+    }
+
+    @Test
+    public void whenReadOnlyTransactionThenReadReplicaOtherwisePrimary() {
+        assertThat(readOnlyOrigin()).isEqualTo("replica");
+        assertThat(writeOrigin()).isEqualTo("primary");
+        assertThat(readOrigin()).isEqualTo("primary");
+    }
+
+    @Test
+    public void whenOnPrimaryThenReadOnlyTransactionReadsPrimary() {
+        var origin = ReplicaRouting.onPrimary(ReplicaRoutingDataSourceTest::readOnlyOrigin);
+
+        assertThat(origin).isEqualTo("primary");
+        assertThat(readOnlyOrigin()).isEqualTo("replica");
+    }
+
+    @Test
+    public void whenWriteCommittedThenNotifyAndReadPrimaryUntilRequestEnds() {
+        var writes = new AtomicInteger();
+        ReplicaRouting.startRequest(false, writes::incrementAndGet);
+        try {
+            var beforeWrite = readOnlyOrigin();
+            writeOrigin();
+            var afterWrite = readOnlyOrigin();
+
+            assertThat(beforeWrite).isEqualTo("replica");
+            assertThat(afterWrite).isEqualTo("primary");
+            assertThat(writes).hasValue(1);
+        } finally {
+            ReplicaRouting.endRequest();
+        }
+        assertThat(readOnlyOrigin()).isEqualTo("replica");
+    }
+
+    @Test
+    public void whenWriteRolledBackThenKeepReadingReplica() {
+        var writes = new AtomicInteger();
+        ReplicaRouting.startRequest(false, writes::incrementAndGet);
+        try {
+            writeTransaction.executeWithoutResult(status -> {
+                readOrigin();
+                status.setRollbackOnly();
+            });
+
+            assertThat(readOnlyOrigin()).isEqualTo("replica");
+            assertThat(writes).hasValue(0);
+        } finally {
+            ReplicaRouting.endRequest();
+        }
+    }
+
+}
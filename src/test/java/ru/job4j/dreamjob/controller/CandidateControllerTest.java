@@ -7,12 +7,17 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.ui.ConcurrentModel;
 import org.springframework.web.multipart.MultipartFile;
 import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.ListFilter;
+import ru.job4j.dreamjob.dto.Page;
+import ru.job4j.dreamjob.dto.PageCursor;
+import ru.job4j.dreamjob.dto.CandidateSummary;
 import ru.job4j.dreamjob.model.City;
 import ru.job4j.dreamjob.model.Candidate;
 import ru.job4j.dreamjob.service.CityService;
 import ru.job4j.dreamjob.service.CandidateService;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -37,15 +42,27 @@ class CandidateControllerTest {
         testFile = new MockMultipartFile("testFile.img", new byte[] {1, 2, 3});
     }
 
+    @Test
+    public void whenRequestNextPageThenPassCursorAndLimitPageSize() {
+        var cursor = new PageCursor(LocalDateTime.of(2023, 5, 22, 17, 20), 6);
+        when(candidateService.findPage(ListFilter.NONE, cursor, 100)).thenReturn(new Page<>(List.of(), null));
+
+        var model = new ConcurrentModel();
+        candidateController.getAll(model, cursor.toString(), 1000, 0, false, 0);
+
+        verify(candidateService).findPage(ListFilter.NONE, cursor, 100);
+        assertThat(model.getAttribute("size")).isEqualTo(100);
+    }
+
     @Test
     public void whenRequestCandidateListPageThenGetPageWithcandidates() {
-        Candidate candidate1 = new Candidate(1, "test1", "desc1", now(), true, 1, 2);
-        Candidate candidate2 = new Candidate(2, "test2", "desc2", now(), false, 3, 4);
-        List<Candidate> expectedcandidates = List.of(candidate1, candidate2);
-        when(candidateService.findAll()).thenReturn(expectedcandidates);
+        CandidateSummary candidate1 = new CandidateSummary(1, "test1", now(), true, "Москва");
+        CandidateSummary candidate2 = new CandidateSummary(2, "test2", now(), false, "Екатеринбург");
+        List<CandidateSummary> expectedcandidates = List.of(candidate1, candidate2);
+        when(candidateService.findPage(ListFilter.NONE, null, 20)).thenReturn(new Page<>(expectedcandidates, null));
 
         ConcurrentModel model = new ConcurrentModel();
-        String view = candidateController.getAll(model);
+        String view = candidateController.getAll(model, null, 20, 0, false, 0);
         Object actualcandidates = model.getAttribute("candidates");
 
         assertThat(view).isEqualTo("candidates/list");
@@ -82,7 +99,8 @@ class CandidateControllerTest {
 
         assertThat(view).isEqualTo("redirect:/candidates");
         assertThat(actualCandidate).isEqualTo(candidate);
-        assertThat(fileDto).usingRecursiveComparison().isEqualTo(actualFileDto);
+        assertThat(actualFileDto).usingRecursiveComparison().ignoringFields("source").isEqualTo(fileDto);
+        assertThat(actualFileDto.getContent()).isEqualTo(fileDto.getContent());
 
     }
 
@@ -141,7 +159,8 @@ class CandidateControllerTest {
 
         assertThat(view).isEqualTo("redirect:/candidates");
         assertThat(actualCandidate).isEqualTo(candidate);
-        assertThat(fileDto).usingRecursiveComparison().isEqualTo(actualFileDto);
+        assertThat(actualFileDto).usingRecursiveComparison().ignoringFields("source").isEqualTo(fileDto);
+        assertThat(actualFileDto.getContent()).isEqualTo(fileDto.getContent());
     }
 
     @Test
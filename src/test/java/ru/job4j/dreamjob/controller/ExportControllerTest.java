@@ -0,0 +1,54 @@
+package ru.job4j.dreamjob.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.job4j.dreamjob.dto.ExportFormat;
+import ru.job4j.dreamjob.service.ExportService;
+
+import java.io.OutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class ExportControllerTest {
+
+    private ExportService exportService;
+
+    private ExportController exportController;
+
+    @BeforeEach
+    public void initServices() {
+        exportService = mock(ExportService.class);
+        exportController = new ExportController(exportService);
+    }
+
+    @Test
+    public void whenExportNdjsonThenWriteAttachment() throws Exception {
+        var response = new MockHttpServletResponse();
+
+        exportController.exportCandidates("ndjson", response);
+
+        verify(exportService).exportCandidates(any(OutputStream.class), eq(ExportFormat.NDJSON));
+        assertThat(response.getContentType()).startsWith("application/x-ndjson");
+        assertThat(response.getHeader(HttpHeaders.CONTENT_DISPOSITION))
+                .isEqualTo("attachment; filename=\"candidates.ndjson\"");
+    }
+
+    @Test
+    public void whenExportUnknownFormatThenBadRequest() throws Exception {
+        var response = new MockHttpServletResponse();
+
+        exportController.exportVacancies("xml", response);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+        verifyNoInteractions(exportService);
+    }
+
+}
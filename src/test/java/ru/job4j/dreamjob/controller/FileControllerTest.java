@@ -2,45 +2,146 @@ package ru.job4j.dreamjob.controller;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import ru.job4j.dreamjob.dto.FileDto;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.job4j.dreamjob.dto.RenditionDto;
+import ru.job4j.dreamjob.service.FileRenditionService;
 import ru.job4j.dreamjob.service.FileService;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Optional;
 
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class FileControllerTest {
 
     private FileService fileService;
 
+    private FileRenditionService fileRenditionService;
+
     private FileController fileController;
 
+    @TempDir
+    private Path directory;
+
     @BeforeEach
     public void initServices() {
         fileService = mock(FileService.class);
-        fileController = new FileController(fileService);
+        fileRenditionService = mock(FileRenditionService.class);
+        fileController = new FileController(fileService, fileRenditionService);
     }
 
     @Test
     public void whenFindImageByIdThenGetStatus200() {
-        Optional<FileDto> optionalFileDto = Optional.of(new FileDto("name.jpg", new byte[] {1, 2, 3}));
-        when(fileService.getFileById(anyInt())).thenReturn(optionalFileDto);
+        Resource resource = new ByteArrayResource(new byte[] {1, 2, 3});
+        when(fileService.getResourceById(anyInt())).thenReturn(Optional.of(resource));
 
         ResponseEntity<?> responseEntity = fileController.getById(1);
 
         assertThat(responseEntity.getStatusCodeValue()).isEqualTo(200);
+        assertThat(responseEntity.getBody()).isEqualTo(resource);
     }
 
     @Test
     public void whenDidNotFindImageByIdThenGetStatus404() {
-        when(fileService.getFileById(anyInt())).thenReturn(Optional.empty());
+        when(fileService.getResourceById(anyInt())).thenReturn(Optional.empty());
 
         ResponseEntity<?> responseEntity = fileController.getById(1);
 
         assertThat(responseEntity.getStatusCodeValue()).isEqualTo(404);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void whenFindImageByIdThenGetValidatorsAndCacheHeaders() throws Exception {
+        when(fileService.getResourceById(anyInt())).thenReturn(Optional.of(createResource(new byte[] {1, 2, 3})));
+
+        ResponseEntity<?> responseEntity = fileController.getById(1);
+        HttpHeaders headers = responseEntity.getHeaders();
+
+        assertThat(headers.getETag()).startsWith("\"1-");
+        assertThat(headers.getLastModified()).isPositive();
+        assertThat(headers.getCacheControl()).contains("max-age").contains("private");
+        assertThat(headers.getContentType()).isEqualTo(MediaType.IMAGE_JPEG);
+    }
+
+    @Test
+    public void whenETagMatchesThenGetStatus304() throws Exception {
+        when(fileService.getResourceById(anyInt())).thenReturn(Optional.of(createResource(new byte[] {1, 2, 3})));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(fileController).build();
+        String eTag = mockMvc.perform(get("/files/1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/files/1").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    public void whenRequestRangeThenGetStatus206WithPartOfFile() throws Exception {
+        when(fileService.getResourceById(anyInt())).thenReturn(Optional.of(createResource(new byte[] {1, 2, 3, 4, 5})));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(fileController).build();
+
+        mockMvc.perform(get("/files/1").header(HttpHeaders.RANGE, "bytes=1-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 1-3/5"))
+                .andExpect(content().bytes(new byte[] {2, 3, 4}));
+    }
+
+    @Test
+    public void whenRequestWidthThenGetRenditionWithItsOwnETag() throws Exception {
+        Resource rendition = createResource(new byte[] {1, 2});
+        when(fileRenditionService.getRenditionById(1, 300)).thenReturn(Optional.of(new RenditionDto(7, rendition, false)));
+        when(fileRenditionService.getRenditionById(1, 320)).thenReturn(Optional.of(new RenditionDto(7, rendition, false)));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(fileController).build();
+
+        var response = mockMvc.perform(get("/files/1").param("w", "300"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(new byte[] {1, 2}))
+                .andReturn().getResponse();
+        String otherWidthETag = mockMvc.perform(get("/files/1").param("w", "320"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(response.getHeader(HttpHeaders.ETAG)).startsWith("\"7-").isEqualTo(otherWidthETag);
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("max-age=86400, private");
+    }
+
+    @Test
+    public void whenRenditionIsNotReadyThenGetOriginalWithoutLongCaching() throws Exception {
+        Resource original = createResource(new byte[] {1, 2, 3});
+        when(fileRenditionService.getRenditionById(1, 320)).thenReturn(Optional.of(new RenditionDto(1, original, true)));
+        when(fileService.getResourceById(1)).thenReturn(Optional.of(original));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(fileController).build();
+
+        var response = mockMvc.perform(get("/files/1").param("w", "320"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(new byte[] {1, 2, 3}))
+                .andReturn().getResponse();
+        String originalETag = mockMvc.perform(get("/files/1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(originalETag);
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("no-cache, private");
+    }
+
+    private Resource createResource(byte[] content) throws Exception {
+        Path path = directory.resolve("image.jpg");
+        Files.write(path, content);
+        return new FileSystemResource(path);
+    }
+}
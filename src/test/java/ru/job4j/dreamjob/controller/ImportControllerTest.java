@@ -0,0 +1,55 @@
+package ru.job4j.dreamjob.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import ru.job4j.dreamjob.dto.ImportFormat;
+import ru.job4j.dreamjob.dto.ImportResult;
+import ru.job4j.dreamjob.service.ImportService;
+
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ImportControllerTest {
+
+    private ImportService importService;
+
+    private ImportController importController;
+
+    @BeforeEach
+    public void initServices() {
+        importService = mock(ImportService.class);
+        importController = new ImportController(importService);
+    }
+
+    @Test
+    public void whenImportCsvThenReturnResult() throws Exception {
+        var expectedResult = new ImportResult();
+        expectedResult.addImported(1);
+        when(importService.importVacancies(any(InputStream.class), eq(ImportFormat.CSV))).thenReturn(expectedResult);
+        var file = new MockMultipartFile("file", "feed.csv", "text/csv", "title\nJava".getBytes());
+
+        var response = importController.importVacancies(file);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isSameAs(expectedResult);
+    }
+
+    @Test
+    public void whenImportUnknownFormatThenBadRequest() throws Exception {
+        var file = new MockMultipartFile("file", "feed.xml", "application/xml", "<feed/>".getBytes());
+
+        var response = importController.importCandidates(file);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verifyNoInteractions(importService);
+    }
+
+}
@@ -4,12 +4,17 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.ui.ConcurrentModel;
+import ru.job4j.dreamjob.dto.UserPrincipal;
 import ru.job4j.dreamjob.model.User;
+import ru.job4j.dreamjob.service.SessionUserAuthentication;
 import ru.job4j.dreamjob.service.UserService;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.mockito.Mockito.*;
@@ -22,11 +27,14 @@ class UserControllerTest {
 
     private HttpServletRequest request;
 
+    private HttpServletResponse response;
+
     @BeforeEach
     public void initServices() {
         userService = mock(UserService.class);
-        userController = new UserController(userService);
+        userController = new UserController(userService, new SessionUserAuthentication());
         request = new MockHttpServletRequest();
+        response = new MockHttpServletResponse();
     }
 
     @Test
@@ -41,7 +49,7 @@ class UserControllerTest {
         when(userService.save(userArgumentCaptor.capture())).thenReturn(Optional.of(user));
 
         ConcurrentModel model = new ConcurrentModel();
-        String view = userController.register(model, user);
+        String view = userController.register(model, user, response);
         User actualUser = userArgumentCaptor.getValue();
 
         assertThat(view).isEqualTo("redirect:/vacancies");
@@ -54,7 +62,7 @@ class UserControllerTest {
         when(userService.save(any())).thenReturn(Optional.empty());
 
         ConcurrentModel model = new ConcurrentModel();
-        String view = userController.register(model, new User());
+        String view = userController.register(model, new User(), response);
         Object actualExceptionMessage = model.getAttribute("error");
 
         assertThat(view).isEqualTo("users/register");
@@ -72,11 +80,11 @@ class UserControllerTest {
         when(userService.findByEmailAndPassword(user.getEmail(), user.getPassword())).thenReturn(Optional.of(user));
 
         ConcurrentModel model = new ConcurrentModel();
-        String view = userController.loginUser(user, model, request);
+        String view = userController.loginUser(user, model, request, response);
         var actualUser = request.getSession().getAttribute("user");
 
         assertThat(view).isEqualTo("redirect:/vacancies");
-        assertThat(actualUser).isEqualTo(user);
+        assertThat(actualUser).isEqualTo(new UserPrincipal(user.getId(), user.getName()));
     }
 
     @Test
@@ -85,11 +93,25 @@ class UserControllerTest {
         when(userService.findByEmailAndPassword(any(), any())).thenReturn(Optional.empty());
 
         ConcurrentModel model = new ConcurrentModel();
-        String view = userController.loginUser(new User(), model, request);
+        String view = userController.loginUser(new User(), model, request, response);
         Object actualExceptionMessage = model.getAttribute("error");
 
         assertThat(view).isEqualTo("users/login");
         assertThat(actualExceptionMessage).isEqualTo(expectedException.getMessage());
+        assertThat(request.getSession(false)).isNull();
+    }
+
+    @Test
+    public void whenPasswordChecksAreBusyThenServiceUnavailable() {
+        when(userService.findByEmailAndPassword(any(), any())).thenThrow(new RejectedExecutionException());
+
+        ConcurrentModel model = new ConcurrentModel();
+        String view = userController.loginUser(new User(), model, request, response);
+
+        assertThat(view).isEqualTo("users/login");
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        assertThat(model.getAttribute("error")).isEqualTo("Сервер перегружен, повторите попытку через несколько секунд");
+        assertThat(request.getSession(false)).isNull();
     }
 
     @Test
@@ -97,10 +119,10 @@ class UserControllerTest {
         User user = new User("mail@mail.com", "name", "password");
         when(userService.findByEmailAndPassword(user.getEmail(), user.getPassword())).thenReturn(Optional.of(user));
         ConcurrentModel model = new ConcurrentModel();
-        userController.loginUser(user, model, request);
+        userController.loginUser(user, model, request, response);
         var userWhenLogin = request.getSession().getAttribute("user");
 
-        String view = userController.logout(request.getSession());
+        String view = userController.logout(request, response);
         var userAfterLogout = request.getSession().getAttribute("user");
 
         assertThat(view).isEqualTo("redirect:/users/login");
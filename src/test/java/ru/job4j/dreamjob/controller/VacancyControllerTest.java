@@ -7,12 +7,17 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.ui.ConcurrentModel;
 import org.springframework.web.multipart.MultipartFile;
 import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.ListFilter;
+import ru.job4j.dreamjob.dto.Page;
+import ru.job4j.dreamjob.dto.PageCursor;
+import ru.job4j.dreamjob.dto.VacancySummary;
 import ru.job4j.dreamjob.model.City;
 import ru.job4j.dreamjob.model.Vacancy;
 import ru.job4j.dreamjob.service.CityService;
 import ru.job4j.dreamjob.service.VacancyService;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -37,21 +42,58 @@ class VacancyControllerTest {
         testFile = new MockMultipartFile("testFile.img", new byte[] {1, 2, 3});
     }
 
+    @Test
+    public void whenRequestNextPageThenPassCursorAndLimitPageSize() {
+        var cursor = new PageCursor(LocalDateTime.of(2023, 5, 22, 17, 20), 6);
+        when(vacancyService.findPage(ListFilter.NONE, cursor, 100)).thenReturn(new Page<>(List.of(), null));
+
+        var model = new ConcurrentModel();
+        vacancyController.getAll(model, cursor.toString(), 1000, 0, false, 0);
+
+        verify(vacancyService).findPage(ListFilter.NONE, cursor, 100);
+        assertThat(model.getAttribute("size")).isEqualTo(100);
+    }
+
+    @Test
+    public void whenRequestFilteredListThenPassFilterAndKeepItInModel() {
+        when(vacancyService.findPage(new ListFilter(2, true, null), null, 20)).thenReturn(new Page<>(List.of(), null));
+
+        var model = new ConcurrentModel();
+        vacancyController.getAll(model, null, 20, 2, true, 0);
+
+        verify(vacancyService).findPage(new ListFilter(2, true, null), null, 20);
+        assertThat(model.getAttribute("cityId")).isEqualTo(2);
+        assertThat(model.getAttribute("visible")).isEqualTo(true);
+    }
+
     @Test
     public void whenRequestVacancyListPageThenGetPageWithVacancies() {
-        Vacancy vacancy1 = new Vacancy(1, "test1", "desc1", now(), true, 1, 2);
-        Vacancy vacancy2 = new Vacancy(2, "test2", "desc2", now(), false, 3, 4);
-        List<Vacancy> expectedVacancies = List.of(vacancy1, vacancy2);
-        when(vacancyService.findAll()).thenReturn(expectedVacancies);
+        VacancySummary vacancy1 = new VacancySummary(1, "test1", now(), true, "Москва");
+        VacancySummary vacancy2 = new VacancySummary(2, "test2", now(), false, "Екатеринбург");
+        List<VacancySummary> expectedVacancies = List.of(vacancy1, vacancy2);
+        when(vacancyService.findPage(ListFilter.NONE, null, 20)).thenReturn(new Page<>(expectedVacancies, null));
 
         ConcurrentModel model = new ConcurrentModel();
-        String view = vacancyController.getAll(model);
+        String view = vacancyController.getAll(model, null, 20, 0, false, 0);
         Object actualVacancies = model.getAttribute("vacancies");
 
         assertThat(view).isEqualTo("vacancies/list");
         assertThat(actualVacancies).isEqualTo(expectedVacancies);
     }
 
+    @Test
+    public void whenSearchThenGetListWithFoundVacancies() {
+        var found = List.of(new VacancySummary(3, "Java", now(), true, "Москва"));
+        when(vacancyService.search("java", 20)).thenReturn(found);
+
+        var model = new ConcurrentModel();
+        var view = vacancyController.search(model, "java", 20);
+
+        assertThat(view).isEqualTo("vacancies/list");
+        assertThat(model.getAttribute("vacancies")).isEqualTo(found);
+        assertThat(model.getAttribute("query")).isEqualTo("java");
+    }
+
     @Test
     public void whenRequestVacancyCreationPageThenGetPageWithCities() {
         var city1 = new City(1, "Москва");
@@ -82,7 +124,8 @@ class VacancyControllerTest {
 
         assertThat(view).isEqualTo("redirect:/vacancies");
         assertThat(actualVacancy).isEqualTo(vacancy);
-        assertThat(fileDto).usingRecursiveComparison().isEqualTo(actualFileDto);
+        assertThat(actualFileDto).usingRecursiveComparison().ignoringFields("source").isEqualTo(fileDto);
+        assertThat(actualFileDto.getContent()).isEqualTo(fileDto.getContent());
 
     }
 
@@ -141,7 +184,8 @@ class VacancyControllerTest {
 
         assertThat(view).isEqualTo("redirect:/vacancies");
         assertThat(actualVacancy).isEqualTo(vacancy);
-        assertThat(fileDto).usingRecursiveComparison().isEqualTo(actualFileDto);
+        assertThat(actualFileDto).usingRecursiveComparison().ignoringFields("source").isEqualTo(fileDto);
+        assertThat(actualFileDto.getContent()).isEqualTo(fileDto.getContent());
     }
 
     @Test
@@ -0,0 +1,71 @@
+package ru.job4j.dreamjob.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.dreamjob.model.User;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingUserRepositoryTest {
+
+    private UserRepository userRepository;
+
+    private CachingUserRepository cachingUserRepository;
+
+    @BeforeEach
+    public void initRepositories() {
+        userRepository = mock(UserRepository.class);
+        cachingUserRepository = new CachingUserRepository(userRepository, 1);
+    }
+
+    @Test
+    public void whenFindByIdTwiceThenLoadOnce() {
+        when(userRepository.findById(1)).thenReturn(Optional.of(new User(1, "mail@mail.com", "name", "password")));
+
+        cachingUserRepository.findById(1);
+        var found = cachingUserRepository.findById(1);
+
+        assertThat(found.get().getEmail()).isEqualTo("mail@mail.com");
+        verify(userRepository, times(1)).findById(1);
+    }
+
+    @Test
+    public void whenSaveThenFindWithoutLoadUntilEvicted() {
+        var first = new User(1, "first@mail.com", "first", "password");
+        var second = new User(2, "second@mail.com", "second", "password");
+        when(userRepository.save(first)).thenReturn(Optional.of(first));
+        when(userRepository.save(second)).thenReturn(Optional.of(second));
+        when(userRepository.findById(1)).thenReturn(Optional.of(first));
+
+        cachingUserRepository.save(first);
+        cachingUserRepository.findById(1);
+        cachingUserRepository.save(second);
+        cachingUserRepository.findById(2);
+        cachingUserRepository.findById(1);
+
+        verify(userRepository, times(0)).findById(2);
+        verify(userRepository, times(1)).findById(1);
+    }
+
+    @Test
+    public void whenUpdatePasswordThenLoadAgain() {
+        when(userRepository.findById(1))
+                .thenReturn(Optional.of(new User(1, "mail@mail.com", "name", "password")))
+                .thenReturn(Optional.of(new User(1, "mail@mail.com", "name", "hash")));
+        when(userRepository.updatePassword(1, "hash")).thenReturn(true);
+
+        cachingUserRepository.findById(1);
+        cachingUserRepository.updatePassword(1, "hash");
+        var found = cachingUserRepository.findById(1);
+
+        assertThat(found.get().getPassword()).isEqualTo("hash");
+        verify(userRepository, times(2)).findById(1);
+    }
+
+}
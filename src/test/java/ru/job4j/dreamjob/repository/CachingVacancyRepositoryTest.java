@@ -0,0 +1,67 @@
+package ru.job4j.dreamjob.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.dreamjob.model.Vacancy;
+
+import java.util.Optional;
+
+import static java.time.LocalDateTime.now;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingVacancyRepositoryTest {
+
+    private VacancyRepository vacancyRepository;
+
+    private CachingVacancyRepository cachingVacancyRepository;
+
+    @BeforeEach
+    public void initRepositories() {
+        vacancyRepository = mock(VacancyRepository.class);
+        cachingVacancyRepository = new CachingVacancyRepository(vacancyRepository, 10);
+    }
+
+    @Test
+    public void whenFindByIdTwiceThenLoadOnceAndGetCopies() {
+        var vacancy = new Vacancy(1, "title", "description", now(), true, 1, 2);
+        when(vacancyRepository.findById(1)).thenReturn(Optional.of(vacancy));
+
+        var first = cachingVacancyRepository.findById(1).get();
+        first.setTitle("changed by caller");
+        var second = cachingVacancyRepository.findById(1).get();
+
+        assertThat(second.getTitle()).isEqualTo("title");
+        verify(vacancyRepository, times(1)).findById(1);
+    }
+
+    @Test
+    public void whenUpdateThenFindUpdatedWithoutLoad() {
+        var vacancy = new Vacancy(1, "new title", "description", now(), true, 1, 2);
+        when(vacancyRepository.update(vacancy)).thenReturn(true);
+
+        cachingVacancyRepository.update(vacancy);
+        var found = cachingVacancyRepository.findById(1).get();
+
+        assertThat(found.getTitle()).isEqualTo("new title");
+        verify(vacancyRepository, times(0)).findById(1);
+    }
+
+    @Test
+    public void whenDeleteThenLoadAgain() {
+        var vacancy = new Vacancy(1, "title", "description", now(), true, 1, 2);
+        when(vacancyRepository.findById(1)).thenReturn(Optional.of(vacancy)).thenReturn(Optional.empty());
+        when(vacancyRepository.deleteById(1)).thenReturn(true);
+
+        cachingVacancyRepository.findById(1);
+        cachingVacancyRepository.deleteById(1);
+        var found = cachingVacancyRepository.findById(1);
+
+        assertThat(found).isEmpty();
+        verify(vacancyRepository, times(2)).findById(1);
+    }
+
+}
@@ -0,0 +1,74 @@
+package ru.job4j.dreamjob.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EntityCacheTest {
+
+    private final EntityCache<String> cache = new EntityCache<>(2, UnaryOperator.identity());
+
+    @Test
+    public void whenLoadedThenGetUntilEvicted() {
+        cache.putLoaded(1, "first", cache.startLoad());
+        cache.putLoaded(2, "second", cache.startLoad());
+        cache.get(1);
+        cache.putLoaded(3, "third", cache.startLoad());
+
+        assertThat(cache.get(1)).contains("first");
+        assertThat(cache.get(2)).isEmpty();
+        assertThat(cache.get(3)).contains("third");
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(3);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenWrittenDuringLoadThenLoadedValueIsNotCached() {
+        var loadStart = cache.startLoad();
+        var writeStart = cache.startWrite(1);
+        cache.endWrite(1, writeStart, null);
+
+        cache.putLoaded(1, "stale", loadStart);
+
+        assertThat(cache.get(1)).isEmpty();
+    }
+
+    @Test
+    public void whenWrittenAndEvictedDuringLoadThenLoadedValueIsNotCached() {
+        var loadStart = cache.startLoad();
+        var writeStart = cache.startWrite(1);
+        cache.endWrite(1, writeStart, null);
+        cache.putLoaded(2, "second", cache.startLoad());
+        cache.putLoaded(3, "third", cache.startLoad());
+
+        cache.putLoaded(1, "stale", loadStart);
+
+        assertThat(cache.get(1)).isEmpty();
+    }
+
+    @Test
+    public void whenWriteThenGetNewValue() {
+        cache.putLoaded(1, "old", cache.startLoad());
+
+        var writeStart = cache.startWrite(1);
+        var duringWrite = cache.get(1);
+        cache.endWrite(1, writeStart, "new");
+
+        assertThat(duringWrite).isEmpty();
+        assertThat(cache.get(1)).contains("new");
+    }
+
+    @Test
+    public void whenWritesOverlapThenNoneOfValuesIsCached() {
+        var firstStart = cache.startWrite(1);
+        var secondStart = cache.startWrite(1);
+        cache.endWrite(1, secondStart, "second");
+        cache.endWrite(1, firstStart, "first");
+
+        assertThat(cache.get(1)).isEmpty();
+    }
+
+}
@@ -0,0 +1,143 @@
+package ru.job4j.dreamjob.repository;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sql2o.Sql2o;
+import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.model.Vacancy;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/* Сравнение разбора строк через RowMappers и через сеттеры sql2o, как было раньше, на H2 в памяти.
+В оба замера входит одинаковое выполнение запроса, разница - стоимость разбора строк.
+Запуск: mvn -B test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+-Dexec.args="-cp %classpath org.openjdk.jmh.Main RowMapperBenchmark" */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMapperBenchmark {
+
+    private static final Map<String, String> VACANCY_MAPPING = Map.of(
+            "creation_date", "creationDate",
+            "city_id", "cityId",
+            "file_id", "fileId"
+    );
+
+    private static final Map<String, String> FILE_MAPPING = Map.of(
+            "ref_count", "referenceCount",
+            "segment_id", "segmentId",
+            "segment_offset", "segmentOffset",
+            "referenced_at", "referencedAt"
+    );
+
+    private static final String VACANCIES_SQL = "SELECT " + RowMappers.VACANCY_COLUMNS + " FROM vacancies LIMIT :limit";
+
+    private static final String FILES_SQL = "SELECT " + RowMappers.FILE_COLUMNS + " FROM files LIMIT :limit";
+
+    @Param({"20", "1000"})
+    private int rows;
+
+    private BasicDataSource dataSource;
+
+    private Sql2o sql2o;
+
+    @Setup(Level.Trial)
+    public void initDatabase() {
+        var configuration = new DatasourceConfiguration();
+        dataSource = configuration.connectionPool("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1", "", "");
+        sql2o = configuration.databaseClient(dataSource);
+        try (var connection = sql2o.beginTransaction()) {
+            connection.createQuery("""
+                    CREATE TABLE vacancies(id SERIAL PRIMARY KEY, title VARCHAR, description VARCHAR,
+                    creation_date TIMESTAMP, visible BOOLEAN, city_id INT, file_id INT)
+                    """).executeUpdate();
+            connection.createQuery("""
+                    CREATE TABLE files(id SERIAL PRIMARY KEY, name VARCHAR, path VARCHAR, size BIGINT, hash VARCHAR,
+                    ref_count INT, segment_id INT, segment_offset BIGINT, referenced_at TIMESTAMP)
+                    """).executeUpdate();
+            var vacancies = connection.createQuery("""
+                    INSERT INTO vacancies(title, description, creation_date, visible, city_id, file_id)
+                    VALUES (:title, :description, :creationDate, TRUE, 1, NULL)
+                    """);
+            var files = connection.createQuery("""
+                    INSERT INTO files(name, path, size, hash, ref_count, segment_id, segment_offset, referenced_at)
+                    VALUES (:name, :path, 1024, :hash, 1, 0, 0, :referencedAt)
+                    """);
+            for (int i = 0; i < rows; i++) {
+                vacancies.addParameter("title", "Java developer " + i)
+                        .addParameter("description", "Spring, SQL, a description of a typical length ".repeat(4))
+                        .addParameter("creationDate", LocalDateTime.now())
+                        .addToBatch();
+                files.addParameter("name", "logo" + i + ".png")
+                        .addParameter("path", "files/ab/cd/abcd" + i)
+                        .addParameter("hash", Integer.toHexString(i).repeat(8))
+                        .addParameter("referencedAt", LocalDateTime.now())
+                        .addToBatch();
+            }
+            vacancies.executeBatch();
+            files.executeBatch();
+            connection.commit();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void closeDatabase() throws Exception {
+        try (var connection = sql2o.open()) {
+            connection.createQuery("DROP TABLE vacancies").executeUpdate();
+            connection.createQuery("DROP TABLE files").executeUpdate();
+        }
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<Vacancy> vacanciesReflective() {
+        try (var connection = sql2o.open()) {
+            return connection.createQuery(VACANCIES_SQL).addParameter("limit", rows)
+                    .setColumnMappings(VACANCY_MAPPING).executeAndFetch(Vacancy.class);
+        }
+    }
+
+    @Benchmark
+    public List<Vacancy> vacanciesRowMapper() {
+        try (var connection = sql2o.open()) {
+            return connection.createQuery(VACANCIES_SQL).addParameter("limit", rows)
+                    .executeAndFetch(RowMappers.VACANCY);
+        }
+    }
+
+    @Benchmark
+    public List<File> filesReflective() {
+        try (var connection = sql2o.open()) {
+            return connection.createQuery(FILES_SQL).addParameter("limit", rows)
+                    .setColumnMappings(FILE_MAPPING).executeAndFetch(File.class);
+        }
+    }
+
+    @Benchmark
+    public List<File> filesRowMapper() {
+        try (var connection = sql2o.open()) {
+            return connection.createQuery(FILES_SQL).addParameter("limit", rows)
+                    .executeAndFetch(RowMappers.FILE);
+        }
+    }
+
+}
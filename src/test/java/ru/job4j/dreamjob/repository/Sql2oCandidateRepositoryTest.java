@@ -5,6 +5,9 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.dto.ListFilter;
+import ru.job4j.dreamjob.dto.PageCursor;
+import ru.job4j.dreamjob.dto.CandidateSummary;
 import ru.job4j.dreamjob.model.File;
 import ru.job4j.dreamjob.model.Candidate;
 
@@ -122,4 +125,41 @@ class Sql2oCandidateRepositoryTest {
         boolean isUpdated = sql2oCandidateRepository.update(candidate);
         assertThat(isUpdated).isFalse();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void whenFindPagesThenGetNewestFirstWithoutGapsAndRepeats() {
+        LocalDateTime creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        Candidate oldest = sql2oCandidateRepository.save(new Candidate(0, "name1", "description1", creationDate.minusDays(1), true, 1, file.getId()));
+        Candidate sameDate1 = sql2oCandidateRepository.save(new Candidate(0, "name2", "description2", creationDate, true, 1, file.getId()));
+        Candidate sameDate2 = sql2oCandidateRepository.save(new Candidate(0, "name3", "description3", creationDate, true, 1, file.getId()));
+        Candidate newest = sql2oCandidateRepository.save(new Candidate(0, "name4", "description4", creationDate.plusDays(1), true, 1, file.getId()));
+
+        var firstPage = sql2oCandidateRepository.findPage(ListFilter.NONE, null, 2);
+        var last = firstPage.get(firstPage.size() - 1);
+        var secondPage = sql2oCandidateRepository.findPage(ListFilter.NONE, new PageCursor(last.getCreationDate(), last.getId()), 2);
+        var tail = sql2oCandidateRepository.findPage(ListFilter.NONE, new PageCursor(oldest.getCreationDate(), oldest.getId()), 2);
+
+        assertThat(firstPage).isEqualTo(List.of(toSummary(newest), toSummary(sameDate2)));
+        assertThat(secondPage).isEqualTo(List.of(toSummary(sameDate1), toSummary(oldest)));
+        assertThat(tail).isEqualTo(emptyList());
+    }
+
+    @Test
+    public void whenFindPageThenGetListColumnsWithCityName() {
+        LocalDateTime creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        Candidate candidate = sql2oCandidateRepository.save(new Candidate(0, "title", "description", creationDate, false, 1, file.getId()));
+
+        var summary = sql2oCandidateRepository.findPage(ListFilter.NONE, null, 1).get(0);
+
+        assertThat(summary.getId()).isEqualTo(candidate.getId());
+        assertThat(summary.getName()).isEqualTo("title");
+        assertThat(summary.getCreationDate()).isEqualTo(creationDate);
+        assertThat(summary.getVisible()).isFalse();
+        assertThat(summary.getCityName()).isEqualTo("Москва");
+    }
+
+    private CandidateSummary toSummary(Candidate candidate) {
+        return new CandidateSummary(candidate.getId(), candidate.getName(), candidate.getCreationDate(), candidate.getVisible(), null);
+    }
+
+}
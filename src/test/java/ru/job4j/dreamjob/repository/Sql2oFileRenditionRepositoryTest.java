@@ -0,0 +1,88 @@
+package ru.job4j.dreamjob.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.model.FileRendition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class Sql2oFileRenditionRepositoryTest {
+
+    private static Sql2oFileRenditionRepository sql2oFileRenditionRepository;
+
+    private static Sql2oFileRepository sql2oFileRepository;
+
+    private final List<File> savedFiles = new ArrayList<>();
+
+    @BeforeAll
+    public static void initRepositories() throws Exception {
+        var properties = new Properties();
+        try (var inputStream = Sql2oFileRenditionRepositoryTest.class.getClassLoader().getResourceAsStream("connection.properties")) {
+            properties.load(inputStream);
+        }
+        var url = properties.getProperty("datasource.url");
+        var username = properties.getProperty("datasource.username");
+        var password = properties.getProperty("datasource.password");
+
+        var configuration = new DatasourceConfiguration();
+        var datasource = configuration.connectionPool(url, username, password);
+        var sql2o = configuration.databaseClient(datasource);
+
+        sql2oFileRenditionRepository = new Sql2oFileRenditionRepository(sql2o);
+        sql2oFileRepository = new Sql2oFileRepository(sql2o);
+    }
+
+    @AfterEach
+    public void clearFiles() {
+        for (var file : savedFiles) {
+            sql2oFileRepository.deleteById(file.getId());
+        }
+    }
+
+    private File saveFile(String name) {
+        var file = sql2oFileRepository.save(new File(name, "files/" + name));
+        savedFiles.add(file);
+        return file;
+    }
+
+    @Test
+    public void whenSaveThenFindByFileIdAndWidth() {
+        var original = saveFile("photo.jpg");
+        var small = saveFile("photo-160.jpg");
+        var rendition = sql2oFileRenditionRepository.save(new FileRendition(original.getId(), 160, small.getId())).get();
+
+        var found = sql2oFileRenditionRepository.findByFileIdAndWidth(original.getId(), 160).get();
+
+        assertThat(found).usingRecursiveComparison().isEqualTo(rendition);
+        assertThat(sql2oFileRenditionRepository.findByFileIdAndWidth(original.getId(), 320).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void whenSaveSameWidthTwiceThenGetEmptyOptional() {
+        var original = saveFile("photo.jpg");
+        var first = saveFile("photo-160.jpg");
+        var second = saveFile("photo-160-copy.jpg");
+        sql2oFileRenditionRepository.save(new FileRendition(original.getId(), 160, first.getId()));
+
+        assertThat(sql2oFileRenditionRepository.save(new FileRendition(original.getId(), 160, second.getId())).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void whenDeleteOriginalThenRenditionIsDeleted() {
+        var original = saveFile("photo.jpg");
+        var small = saveFile("photo-160.jpg");
+        sql2oFileRenditionRepository.save(new FileRendition(original.getId(), 160, small.getId()));
+
+        sql2oFileRepository.deleteById(original.getId());
+
+        assertThat(sql2oFileRenditionRepository.findByFileIdAndWidth(original.getId(), 160).isEmpty()).isTrue();
+    }
+
+}
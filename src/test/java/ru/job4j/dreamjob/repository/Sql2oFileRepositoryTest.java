@@ -0,0 +1,193 @@
+package ru.job4j.dreamjob.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.model.FileRendition;
+import ru.job4j.dreamjob.model.Vacancy;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class Sql2oFileRepositoryTest {
+
+    private static Sql2oFileRepository sql2oFileRepository;
+
+    private static Sql2oVacancyRepository sql2oVacancyRepository;
+
+    private static Sql2oFileRenditionRepository sql2oFileRenditionRepository;
+
+    private final List<File> savedFiles = new ArrayList<>();
+
+    @BeforeAll
+    public static void initRepositories() throws Exception {
+        var properties = new Properties();
+        try (var inputStream = Sql2oFileRepositoryTest.class.getClassLoader().getResourceAsStream("connection.properties")) {
+            properties.load(inputStream);
+        }
+        var url = properties.getProperty("datasource.url");
+        var username = properties.getProperty("datasource.username");
+        var password = properties.getProperty("datasource.password");
+
+        var configuration = new DatasourceConfiguration();
+        var datasource = configuration.connectionPool(url, username, password);
+        var sql2o = configuration.databaseClient(datasource);
+
+        sql2oFileRepository = new Sql2oFileRepository(sql2o);
+        sql2oVacancyRepository = new Sql2oVacancyRepository(sql2o);
+        sql2oFileRenditionRepository = new Sql2oFileRenditionRepository(sql2o);
+    }
+
+    @AfterEach
+    public void clearFiles() {
+        for (var file : savedFiles) {
+            sql2oFileRepository.deleteById(file.getId());
+        }
+    }
+
+    private File save(File file) {
+        savedFiles.add(sql2oFileRepository.save(file));
+        return file;
+    }
+
+    @Test
+    public void whenSaveThenGetSame() {
+        File file = save(new File("name.jpg", "files/name.jpg", 3, "hash"));
+        File savedFile = sql2oFileRepository.findById(file.getId()).get();
+        assertThat(savedFile).usingRecursiveComparison().isEqualTo(file);
+    }
+
+    @Test
+    public void whenFindByHashThenGetFirstFileWithSameContent() {
+        File file1 = save(new File("first.jpg", "files/first.jpg", 3, "same"));
+        save(new File("second.jpg", "files/second.jpg", 3, "same"));
+        assertThat(sql2oFileRepository.findByHash("same").get()).isEqualTo(file1);
+        assertThat(sql2oFileRepository.findByHash("other")).isEmpty();
+    }
+
+    @Test
+    public void whenIncrementThenDecrementUntilLastReference() {
+        File file = save(new File("name.jpg", "files/name.jpg", 3, "hash"));
+        assertThat(sql2oFileRepository.incrementReferenceCount(file.getId())).isTrue();
+        assertThat(sql2oFileRepository.findById(file.getId()).get().getReferenceCount()).isEqualTo(2);
+        assertThat(sql2oFileRepository.decrementReferenceCount(file.getId())).isTrue();
+        assertThat(sql2oFileRepository.decrementReferenceCount(file.getId())).isFalse();
+        assertThat(sql2oFileRepository.findById(file.getId()).get().getReferenceCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenFindAllAfterThenGetNextBatchOrderedById() {
+        File file1 = save(new File("first.jpg", "files/first.jpg", 3, "hash1"));
+        File file2 = save(new File("second.jpg", "files/second.jpg", 3, "hash2"));
+        File file3 = save(new File("third.jpg", "files/third.jpg", 3, "hash3"));
+        assertThat(sql2oFileRepository.findAllAfter(file1.getId(), 1)).isEqualTo(List.of(file2));
+        assertThat(sql2oFileRepository.findAllAfter(file2.getId(), 10)).isEqualTo(List.of(file3));
+    }
+
+    @Test
+    public void whenUpdatePathsThenGetNewPaths() {
+        File file1 = save(new File("first.jpg", "files/first.jpg", 3, "hash1"));
+        File file2 = save(new File("second.jpg", "files/second.jpg", 3, "hash2"));
+        file1.setPath("files/fi/rs/first.jpg");
+        file2.setPath("files/se/co/second.jpg");
+        sql2oFileRepository.updatePaths(List.of(file1, file2));
+        assertThat(sql2oFileRepository.findById(file1.getId()).get().getPath()).isEqualTo("files/fi/rs/first.jpg");
+        assertThat(sql2oFileRepository.findById(file2.getId()).get().getPath()).isEqualTo("files/se/co/second.jpg");
+    }
+
+    @Test
+    public void whenFileInSegmentsThenSumLiveSizeAndMoveToOtherSegment() {
+        File file1 = new File("first.jpg", "packs/segment-000001.pack#0", 3, "hash1");
+        file1.setSegmentId(1);
+        File file2 = new File("second.jpg", "packs/segment-000001.pack#3", 5, "hash2");
+        file2.setSegmentId(1);
+        file2.setSegmentOffset(3);
+        File file3 = new File("third.jpg", "packs/segment-000002.pack#0", 7, "hash3");
+        file3.setSegmentId(2);
+        save(file1);
+        save(file2);
+        save(file3);
+        assertThat(sql2oFileRepository.sumSizeBySegment()).isEqualTo(Map.of(1, 8L, 2, 7L));
+        assertThat(sql2oFileRepository.findAllBySegment(1)).isEqualTo(List.of(file1, file2));
+
+        file2.setSegmentId(2);
+        file2.setSegmentOffset(7);
+        file2.setPath("packs/segment-000002.pack#7");
+        sql2oFileRepository.updateSegmentLocations(List.of(file2));
+        var moved = sql2oFileRepository.findById(file2.getId()).get();
+        assertThat(moved.getSegmentId()).isEqualTo(2);
+        assertThat(moved.getSegmentOffset()).isEqualTo(7);
+        assertThat(moved.getPath()).isEqualTo("packs/segment-000002.pack#7");
+        assertThat(sql2oFileRepository.sumSizeBySegment()).isEqualTo(Map.of(1, 3L, 2, 12L));
+    }
+
+    @Test
+    public void whenFindUnreferencedThenSkipReferencedAndRecentlyUsedFiles() {
+        var longAgo = LocalDateTime.now().minusHours(2);
+        File orphan = new File("orphan.jpg", "files/orphan.jpg", 3, "hash1");
+        orphan.setReferencedAt(longAgo);
+        File referenced = new File("referenced.jpg", "files/referenced.jpg", 3, "hash2");
+        referenced.setReferencedAt(longAgo);
+        File reused = new File("reused.jpg", "files/reused.jpg", 3, "hash3");
+        reused.setReferencedAt(longAgo);
+        save(orphan);
+        save(referenced);
+        save(reused);
+        var vacancy = sql2oVacancyRepository.save(new Vacancy(0, "title", "description", longAgo, true, 1, referenced.getId()));
+        sql2oFileRepository.incrementReferenceCount(reused.getId());
+        try {
+            var unreferencedIds = sql2oFileRepository.findAllUnreferenced(LocalDateTime.now().minusHours(1), 100).stream()
+                    .map(File::getId)
+                    .filter(id -> id == orphan.getId() || id == referenced.getId() || id == reused.getId())
+                    .toList();
+            assertThat(unreferencedIds).isEqualTo(List.of(orphan.getId()));
+        } finally {
+            sql2oVacancyRepository.deleteById(vacancy.getId());
+        }
+    }
+
+    @Test
+    public void whenFindUnreferencedThenSkipRenditionsButNotOriginalsServedAsTheirOwnRendition() {
+        var longAgo = LocalDateTime.now().minusHours(2);
+        File original = new File("original.jpg", "files/original.jpg", 3, "hash1");
+        original.setReferencedAt(longAgo);
+        File rendition = new File("rendition.jpg", "files/rendition.jpg", 3, "hash2");
+        rendition.setReferencedAt(longAgo);
+        save(original);
+        save(rendition);
+        sql2oFileRenditionRepository.save(new FileRendition(original.getId(), 320, rendition.getId()));
+        sql2oFileRenditionRepository.save(new FileRendition(original.getId(), 640, original.getId()));
+
+        var unreferencedIds = sql2oFileRepository.findAllUnreferenced(LocalDateTime.now().minusHours(1), 100).stream()
+                .map(File::getId)
+                .filter(id -> id == original.getId() || id == rendition.getId())
+                .toList();
+
+        assertThat(unreferencedIds).isEqualTo(List.of(original.getId()));
+    }
+
+    @Test
+    public void whenDeleteAllByIdThenFindOnlyRemainingPaths() {
+        File file1 = save(new File("first.jpg", "files/first.jpg", 3, "hash1"));
+        File file2 = save(new File("second.jpg", "files/second.jpg", 3, "hash2"));
+        File file3 = save(new File("third.jpg", "files/third.jpg", 3, "hash3"));
+        sql2oFileRepository.deleteAllById(List.of(file1.getId(), file3.getId()));
+        assertThat(sql2oFileRepository.findExistingPaths(List.of("files/first.jpg", "files/second.jpg", "files/third.jpg")))
+                .isEqualTo(List.of("files/second.jpg"));
+        assertThat(sql2oFileRepository.findById(file3.getId()).isPresent()).isFalse();
+    }
+
+    @Test
+    public void whenChangeReferencesOfUnExistingFileThenGetFalse() {
+        assertThat(sql2oFileRepository.incrementReferenceCount(0)).isFalse();
+        assertThat(sql2oFileRepository.decrementReferenceCount(0)).isFalse();
+    }
+
+}
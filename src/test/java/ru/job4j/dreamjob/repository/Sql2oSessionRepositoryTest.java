@@ -0,0 +1,141 @@
+package ru.job4j.dreamjob.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.sql2o.Sql2o;
+import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.dto.UserPrincipal;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class Sql2oSessionRepositoryTest {
+
+    private static Sql2o sql2o;
+
+    @BeforeAll
+    public static void initDatabase() throws Exception {
+        var properties = new Properties();
+        try (var inputStream = Sql2oSessionRepositoryTest.class.getClassLoader().getResourceAsStream("connection.properties")) {
+            properties.load(inputStream);
+        }
+        var url = properties.getProperty("datasource.url");
+        var username = properties.getProperty("datasource.username");
+        var password = properties.getProperty("datasource.password");
+
+        var configuration = new DatasourceConfiguration();
+        var datasource = configuration.connectionPool(url, username, password);
+        sql2o = configuration.databaseClient(datasource);
+    }
+
+    @AfterEach
+    public void clearSessions() {
+        try (var connection = sql2o.open()) {
+            connection.createQuery("DELETE FROM http_sessions").executeUpdate();
+        }
+    }
+
+    private static Sql2oSessionRepository createRepository(int nearCacheSize, int cleanupBatchSize) {
+        return new Sql2oSessionRepository(sql2o, Duration.ofMinutes(30), Duration.ofMinutes(1),
+                nearCacheSize, Duration.ofMinutes(1), cleanupBatchSize);
+    }
+
+    @Test
+    public void whenSaveSessionThenFindItWithAttributes() {
+        var repository = createRepository(0, 10);
+        var session = repository.createSession();
+        session.setAttribute("user", new UserPrincipal(1, "name"));
+
+        repository.save(session);
+        var found = repository.findById(session.getId());
+
+        assertThat(found.<UserPrincipal>getAttribute("user")).isEqualTo(new UserPrincipal(1, "name"));
+        assertThat(found.getCreationTime()).isEqualTo(session.getCreationTime().truncatedTo(ChronoUnit.MILLIS));
+        assertThat(found.getMaxInactiveInterval()).isEqualTo(Duration.ofMinutes(30));
+        assertThat(repository.getReadCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenOnlyAccessedThenWriteOnlyAfterTouchInterval() {
+        var repository = createRepository(0, 10);
+        var session = repository.createSession();
+        repository.save(session);
+
+        var accessed = repository.findById(session.getId());
+        accessed.setLastAccessedTime(accessed.getLastAccessedTime().plusSeconds(10));
+        repository.save(accessed);
+        var touched = repository.findById(session.getId());
+        touched.setLastAccessedTime(touched.getLastAccessedTime().plusSeconds(70));
+        repository.save(touched);
+
+        assertThat(repository.getWriteCount()).isEqualTo(2);
+        assertThat(repository.getSkippedWriteCount()).isEqualTo(1);
+        assertThat(repository.findById(session.getId()).getLastAccessedTime())
+                .isEqualTo(touched.getLastAccessedTime().truncatedTo(ChronoUnit.MILLIS));
+    }
+
+    @Test
+    public void whenChangeSessionIdThenFindOnlyByNewId() {
+        var repository = createRepository(10, 10);
+        var session = repository.createSession();
+        repository.save(session);
+        var oldId = session.getId();
+
+        var found = repository.findById(oldId);
+        var newId = found.changeSessionId();
+        found.setAttribute("user", new UserPrincipal(1, "name"));
+        repository.save(found);
+
+        assertThat(repository.findById(oldId)).isNull();
+        assertThat(repository.findById(newId).<UserPrincipal>getAttribute("user")).isEqualTo(new UserPrincipal(1, "name"));
+    }
+
+    @Test
+    public void whenFindAgainThenGetCopyFromNearCache() {
+        var repository = createRepository(10, 10);
+        var session = repository.createSession();
+        repository.save(session);
+
+        var first = repository.findById(session.getId());
+        first.setAttribute("changed", "not saved");
+        var second = repository.findById(session.getId());
+
+        assertThat(second.<String>getAttribute("changed")).isNull();
+        assertThat(repository.getReadCount()).isZero();
+        assertThat(repository.getNearCacheHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void whenDeleteExpiredThenRemoveOnlyExpiredInBatches() {
+        var repository = createRepository(0, 2);
+        for (int i = 0; i < 5; i++) {
+            var expired = repository.createSession();
+            expired.setLastAccessedTime(Instant.now().minus(Duration.ofHours(1)));
+            repository.save(expired);
+        }
+        var alive = repository.createSession();
+        repository.save(alive);
+
+        repository.deleteExpired();
+
+        assertThat(repository.getExpiredCount()).isEqualTo(5);
+        assertThat(repository.findById(alive.getId())).isNotNull();
+    }
+
+    @Test
+    public void whenDeleteThenNotFound() {
+        var repository = createRepository(10, 10);
+        var session = repository.createSession();
+        repository.save(session);
+
+        repository.deleteById(session.getId());
+
+        assertThat(repository.findById(session.getId())).isNull();
+    }
+
+}
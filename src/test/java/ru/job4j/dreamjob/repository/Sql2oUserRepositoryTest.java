@@ -39,7 +39,7 @@ public class Sql2oUserRepositoryTest {
     @Test
     public void whenSaveUserThenFindIt() {
         User addedUser = sql2oUserRepository.save(new User("email_1@mail.ru", "Aleksandr", "123")).get();
-        User foundUser = sql2oUserRepository.findByEmailAndPassword("email_1@mail.ru", "123").get();
+        User foundUser = sql2oUserRepository.findByEmail("email_1@mail.ru").get();
         assertThat(foundUser).usingRecursiveComparison().isEqualTo(addedUser);
     }
 
@@ -47,14 +47,33 @@ public class Sql2oUserRepositoryTest {
     public void whenTryToAddSameUser() {
         User addedUser1 = sql2oUserRepository.save(new User("email_1@mail.ru", "Aleksandr", "123")).get();
         Optional<User> addedUser2 = sql2oUserRepository.save(new User("email_1@mail.ru", "Aleksandr", "123"));
-        User foundUser = sql2oUserRepository.findByEmailAndPassword("email_1@mail.ru", "123").get();
+        User foundUser = sql2oUserRepository.findByEmail("email_1@mail.ru").get();
         assertThat(foundUser).usingRecursiveComparison().isEqualTo(addedUser1);
         assertThat(addedUser2).isEmpty();
     }
 
+    @Test
+    public void whenSaveUserThenFindItById() {
+        User addedUser = sql2oUserRepository.save(new User("email_1@mail.ru", "Aleksandr", "123")).get();
+        User foundUser = sql2oUserRepository.findById(addedUser.getId()).get();
+        assertThat(foundUser).usingRecursiveComparison().isEqualTo(addedUser);
+        assertThat(sql2oUserRepository.findById(addedUser.getId() + 1)).isEmpty();
+    }
+
+    @Test
+    public void whenUpdatePasswordThenFindItWithNewPassword() {
+        User addedUser = sql2oUserRepository.save(new User("email_1@mail.ru", "Aleksandr", "123")).get();
+
+        var isUpdated = sql2oUserRepository.updatePassword(addedUser.getId(), "456");
+
+        assertThat(isUpdated).isTrue();
+        assertThat(sql2oUserRepository.findByEmail("email_1@mail.ru").get().getPassword()).isEqualTo("456");
+        assertThat(sql2oUserRepository.updatePassword(addedUser.getId() + 1, "456")).isFalse();
+    }
+
     @Test
     public void whenUserNotFound() {
-        Optional<User> user = sql2oUserRepository.findByEmailAndPassword("email_1@mail.ru", "123");
+        Optional<User> user = sql2oUserRepository.findByEmail("email_1@mail.ru");
         assertThat(user).isEmpty();
     }
 }
\ No newline at end of file
@@ -4,12 +4,17 @@ import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.dto.ListFilter;
+import ru.job4j.dreamjob.dto.PageCursor;
+import ru.job4j.dreamjob.dto.VacancySummary;
 import ru.job4j.dreamjob.model.File;
 import ru.job4j.dreamjob.model.Vacancy;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -28,6 +33,8 @@ public class Sql2oVacancyRepositoryTest {
 
     private static File file;
 
+    private static TransactionTemplate transactionTemplate;
+
     @BeforeAll
     public static void initRepositories() throws Exception {
         var properties = new Properties();
@@ -43,6 +50,7 @@ public class Sql2oVacancyRepositoryTest {
         var sql2o = configuration.databaseClient(datasource);
 
         sql2oVacancyRepository = new Sql2oVacancyRepository(sql2o);
+        transactionTemplate = new TransactionTemplate(configuration.transactionManager(datasource));
         sql2oFileRepository = new Sql2oFileRepository(sql2o);
 
         /* нужно сохранить хотя бы один файл, т.к. Vacancy от него зависит */
@@ -71,6 +79,16 @@ public class Sql2oVacancyRepositoryTest {
         assertThat(savedVacancy).usingRecursiveComparison().isEqualTo(vacancy);
     }
 
+    @Test
+    public void whenFindFileIdForUpdateThenGetFileIdOfExistingVacancy() {
+        LocalDateTime creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        Vacancy vacancy = sql2oVacancyRepository.save(new Vacancy(0, "title", "description", creationDate, true, 1, file.getId()));
+        Vacancy withoutFile = sql2oVacancyRepository.save(new Vacancy(0, "title", "description", creationDate, true, 1, 0));
+        assertThat(sql2oVacancyRepository.findFileIdForUpdate(vacancy.getId())).isEqualTo(Optional.of(file.getId()));
+        assertThat(sql2oVacancyRepository.findFileIdForUpdate(withoutFile.getId())).isEqualTo(Optional.of(0));
+        assertThat(sql2oVacancyRepository.findFileIdForUpdate(vacancy.getId() + withoutFile.getId())).isEqualTo(empty());
+    }
+
     @Test
     public void whenSaveSeveralThenGetAll() {
         LocalDateTime creationDate = now().truncatedTo(ChronoUnit.MINUTES);
@@ -124,4 +142,104 @@ public class Sql2oVacancyRepositoryTest {
         assertThat(isUpdated).isFalse();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void whenFindPagesThenGetNewestFirstWithoutGapsAndRepeats() {
+        LocalDateTime creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        Vacancy oldest = sql2oVacancyRepository.save(new Vacancy(0, "title1", "description1", creationDate.minusDays(1), true, 1, file.getId()));
+        Vacancy sameDate1 = sql2oVacancyRepository.save(new Vacancy(0, "title2", "description2", creationDate, true, 1, file.getId()));
+        Vacancy sameDate2 = sql2oVacancyRepository.save(new Vacancy(0, "title3", "description3", creationDate, true, 1, file.getId()));
+        Vacancy newest = sql2oVacancyRepository.save(new Vacancy(0, "title4", "description4", creationDate.plusDays(1), true, 1, file.getId()));
+
+        var firstPage = sql2oVacancyRepository.findPage(ListFilter.NONE, null, 2);
+        var last = firstPage.get(firstPage.size() - 1);
+        var secondPage = sql2oVacancyRepository.findPage(ListFilter.NONE, new PageCursor(last.getCreationDate(), last.getId()), 2);
+        var tail = sql2oVacancyRepository.findPage(ListFilter.NONE, new PageCursor(oldest.getCreationDate(), oldest.getId()), 2);
+
+        assertThat(firstPage).isEqualTo(List.of(toSummary(newest), toSummary(sameDate2)));
+        assertThat(secondPage).isEqualTo(List.of(toSummary(sameDate1), toSummary(oldest)));
+        assertThat(tail).isEqualTo(emptyList());
+    }
+
+    @Test
+    public void whenFindPageThenGetListColumnsWithCityName() {
+        LocalDateTime creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        Vacancy vacancy = sql2oVacancyRepository.save(new Vacancy(0, "title", "description", creationDate, false, 1, file.getId()));
+
+        var summary = sql2oVacancyRepository.findPage(ListFilter.NONE, null, 1).get(0);
+
+        assertThat(summary.getId()).isEqualTo(vacancy.getId());
+        assertThat(summary.getTitle()).isEqualTo("title");
+        assertThat(summary.getCreationDate()).isEqualTo(creationDate);
+        assertThat(summary.getVisible()).isFalse();
+        assertThat(summary.getCityName()).isEqualTo("Москва");
+    }
+
+    @Test
+    public void whenFindPageWithFilterThenGetOnlyMatchingRows() {
+        LocalDateTime creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        Vacancy visible = sql2oVacancyRepository.save(new Vacancy(0, "title1", "description1", creationDate, true, 1, file.getId()));
+        Vacancy hidden = sql2oVacancyRepository.save(new Vacancy(0, "title2", "description2", creationDate, false, 1, file.getId()));
+        sql2oVacancyRepository.save(new Vacancy(0, "title3", "description3", creationDate, true, 2, file.getId()));
+        Vacancy old = sql2oVacancyRepository.save(new Vacancy(0, "title4", "description4", creationDate.minusDays(10), true, 1, file.getId()));
+
+        var recentVisible = sql2oVacancyRepository.findPage(new ListFilter(1, true, creationDate.minusDays(5)), null, 10);
+        var firstPage = sql2oVacancyRepository.findPage(new ListFilter(1, false, null), null, 2);
+        var secondPage = sql2oVacancyRepository.findPage(new ListFilter(1, false, null),
+                new PageCursor(visible.getCreationDate(), visible.getId()), 2);
+
+        assertThat(recentVisible).isEqualTo(List.of(toSummary(visible)));
+        assertThat(firstPage).isEqualTo(List.of(toSummary(hidden), toSummary(visible)));
+        assertThat(secondPage).isEqualTo(List.of(toSummary(old)));
+    }
+
+    private VacancySummary toSummary(Vacancy vacancy) {
+        return new VacancySummary(vacancy.getId(), vacancy.getTitle(), vacancy.getCreationDate(), vacancy.getVisible(), null);
+    }
+
+    @Test
+    public void whenTransactionRollsBackThenAllItsWritesAreUndone() {
+        LocalDateTime creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        Vacancy kept = sql2oVacancyRepository.save(new Vacancy(0, "kept", "description", creationDate, true, 1, file.getId()));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            sql2oVacancyRepository.save(new Vacancy(0, "title", "description", creationDate, true, 1, file.getId()));
+            kept.setTitle("updated");
+            sql2oVacancyRepository.update(kept);
+            status.setRollbackOnly();
+        });
+
+        assertThat(sql2oVacancyRepository.findAll()).isEqualTo(List.of(kept));
+        assertThat(sql2oVacancyRepository.findById(kept.getId()).get().getTitle()).isEqualTo("kept");
+    }
+
+    @Test
+    public void whenSaveAllThenAllSavedWithIds() {
+        LocalDateTime creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        Vacancy withFile = new Vacancy(0, "title1", "description1", creationDate, true, 1, file.getId());
+        Vacancy withoutFile = new Vacancy(0, "title2", "description2", creationDate, false, 2, 0);
+
+        sql2oVacancyRepository.saveAll(List.of(withFile, withoutFile));
+
+        assertThat(withFile.getId()).isNotZero();
+        assertThat(withoutFile.getId()).isNotZero();
+        assertThat(sql2oVacancyRepository.findById(withFile.getId()).get().getFileId()).isEqualTo(file.getId());
+        var savedWithoutFile = sql2oVacancyRepository.findById(withoutFile.getId()).get();
+        assertThat(savedWithoutFile.getTitle()).isEqualTo("title2");
+        assertThat(savedWithoutFile.getFileId()).isZero();
+    }
+
+    @Test
+    public void whenForEachThenGetAllInIdOrder() {
+        LocalDateTime creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        Vacancy vacancy1 = sql2oVacancyRepository.save(new Vacancy(0, "title1", "description1", creationDate, true, 1, file.getId()));
+        Vacancy vacancy2 = sql2oVacancyRepository.save(new Vacancy(0, "title2", "description2", creationDate, false, 2, 0));
+        Vacancy vacancy3 = sql2oVacancyRepository.save(new Vacancy(0, "title3", "description3", creationDate, true, 3, file.getId()));
+        var result = new ArrayList<Vacancy>();
+
+        sql2oVacancyRepository.forEach(2, result::add);
+
+        assertThat(result).isEqualTo(List.of(vacancy1, vacancy2, vacancy3));
+        assertThat(result.get(1).getFileId()).isZero();
+    }
+
+}
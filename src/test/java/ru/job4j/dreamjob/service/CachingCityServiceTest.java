@@ -0,0 +1,91 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.dreamjob.model.City;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingCityServiceTest {
+
+    private CityService cityService;
+
+    @BeforeEach
+    public void initServices() {
+        cityService = mock(CityService.class);
+    }
+
+    @Test
+    public void whenPreloadThenFindWithoutRepeatedLoads() {
+        var moscow = new City(1, "Москва");
+        var spb = new City(2, "Санкт-Петербург");
+        when(cityService.findAll()).thenReturn(List.of(spb, moscow));
+        var cachingCityService = new CachingCityService(cityService, Duration.ofMinutes(10));
+
+        cachingCityService.preload();
+        var cities = cachingCityService.findAll();
+        var city = cachingCityService.findById(2);
+        var unknown = cachingCityService.findById(3);
+
+        assertThat(cities).containsExactly(moscow, spb);
+        assertThat(city).contains(spb);
+        assertThat(unknown).isEmpty();
+        verify(cityService, times(1)).findAll();
+    }
+
+    @Test
+    public void whenPreloadFailsThenLoadOnFirstRequest() {
+        var moscow = new City(1, "Москва");
+        when(cityService.findAll()).thenThrow(new RuntimeException("db is down")).thenReturn(List.of(moscow));
+        var cachingCityService = new CachingCityService(cityService, Duration.ofMinutes(10));
+
+        cachingCityService.preload();
+        var cities = cachingCityService.findAll();
+
+        assertThat(cities).containsExactly(moscow);
+        verify(cityService, times(2)).findAll();
+    }
+
+    @Test
+    public void whenExpiredAndRefreshFailsThenKeepLoadedCities() {
+        var moscow = new City(1, "Москва");
+        var spb = new City(2, "Санкт-Петербург");
+        when(cityService.findAll())
+                .thenReturn(List.of(moscow))
+                .thenThrow(new RuntimeException("db is down"))
+                .thenReturn(List.of(moscow, spb));
+        var cachingCityService = new CachingCityService(cityService, Duration.ZERO);
+
+        cachingCityService.preload();
+        var stale = cachingCityService.findAll();
+        var refreshed = cachingCityService.findAll();
+
+        assertThat(stale).containsExactly(moscow);
+        assertThat(refreshed).containsExactly(moscow, spb);
+    }
+
+    @Test
+    public void whenRefreshFailsThenRetryAfterTtl() throws InterruptedException {
+        var moscow = new City(1, "Москва");
+        when(cityService.findAll())
+                .thenReturn(List.of(moscow))
+                .thenThrow(new RuntimeException("db is down"));
+        var cachingCityService = new CachingCityService(cityService, Duration.ofMillis(500));
+
+        cachingCityService.preload();
+        Thread.sleep(600);
+        cachingCityService.findAll();
+        var cities = cachingCityService.findAll();
+
+        assertThat(cities).containsExactly(moscow);
+        verify(cityService, times(2)).findAll();
+    }
+
+}
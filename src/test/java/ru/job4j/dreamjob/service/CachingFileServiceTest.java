@@ -0,0 +1,111 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingFileServiceTest {
+
+    private FileService fileService;
+
+    private CachingFileService cachingFileService;
+
+    @BeforeEach
+    public void initServices() {
+        fileService = mock(FileService.class);
+        cachingFileService = new CachingFileService(fileService, DataSize.ofBytes(10), DataSize.ofBytes(5), true);
+    }
+
+    private void mockFile(int id, int size) {
+        Resource resource = new ByteArrayResource(new byte[size]);
+        when(fileService.getResourceById(id)).thenReturn(Optional.of(resource));
+    }
+
+    @Test
+    public void whenRequestFileTwiceThenReadItOnceAndGetSameContent() throws Exception {
+        when(fileService.getResourceById(1)).thenReturn(Optional.of(new ByteArrayResource(new byte[] {1, 2, 3})));
+
+        var first = cachingFileService.getResourceById(1).get();
+        var second = cachingFileService.getResourceById(1).get();
+
+        verify(fileService, times(1)).getResourceById(1);
+        assertThat(second.getInputStream().readAllBytes()).isEqualTo(new byte[] {1, 2, 3});
+        assertThat(first.getInputStream().readAllBytes()).isEqualTo(new byte[] {1, 2, 3});
+        assertThat(cachingFileService.getMissCount()).isEqualTo(1);
+        assertThat(cachingFileService.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenBudgetExceededThenEvictLeastRecentlyUsed() {
+        mockFile(1, 4);
+        mockFile(2, 4);
+        mockFile(3, 4);
+
+        cachingFileService.getResourceById(1);
+        cachingFileService.getResourceById(2);
+        cachingFileService.getResourceById(1);
+        cachingFileService.getResourceById(3);
+        cachingFileService.getResourceById(1);
+        cachingFileService.getResourceById(2);
+
+        verify(fileService, times(1)).getResourceById(1);
+        verify(fileService, times(2)).getResourceById(2);
+        assertThat(cachingFileService.getEvictionCount()).isEqualTo(2);
+        assertThat(cachingFileService.getUsedBytes()).isEqualTo(8);
+    }
+
+    @Test
+    public void whenFileLargerThanLimitThenDoNotCacheIt() {
+        mockFile(1, 6);
+
+        cachingFileService.getResourceById(1);
+        cachingFileService.getResourceById(1);
+
+        verify(fileService, times(2)).getResourceById(1);
+        assertThat(cachingFileService.getUsedBytes()).isZero();
+    }
+
+    @Test
+    public void whenDeletedWhileLoadingThenDoNotCacheStaleContent() {
+        when(fileService.getResourceById(1)).thenAnswer(invocation -> {
+            cachingFileService.deleteById(1);
+            return Optional.of(new ByteArrayResource(new byte[3]));
+        });
+
+        cachingFileService.getResourceById(1);
+        cachingFileService.getResourceById(1);
+
+        verify(fileService, times(2)).getResourceById(1);
+        assertThat(cachingFileService.getUsedBytes()).isZero();
+    }
+
+    @Test
+    public void whenDeleteThenInvalidate() {
+        mockFile(1, 3);
+        when(fileService.deleteById(1)).thenReturn(true);
+
+        cachingFileService.getResourceById(1);
+        var isDeleted = cachingFileService.deleteById(1);
+        cachingFileService.getResourceById(1);
+
+        assertThat(isDeleted).isTrue();
+        verify(fileService, times(2)).getResourceById(1);
+    }
+
+    @Test
+    public void whenFileNotFoundThenGetEmpty() {
+        when(fileService.getResourceById(1)).thenReturn(Optional.empty());
+
+        assertThat(cachingFileService.getResourceById(1)).isEmpty();
+    }
+}
@@ -0,0 +1,87 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.job4j.dreamjob.dto.UserPrincipal;
+import ru.job4j.dreamjob.model.User;
+
+import javax.servlet.http.Cookie;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CookieUserAuthenticationTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+    private static String login(CookieUserAuthentication authentication, User user) {
+        var response = new MockHttpServletResponse();
+        authentication.login(user, new MockHttpServletRequest(), response);
+        var header = response.getHeader(HttpHeaders.SET_COOKIE);
+        assertThat(header).startsWith(CookieUserAuthentication.COOKIE_NAME + "=").contains("HttpOnly");
+        return header.substring(header.indexOf('=') + 1, header.indexOf(';'));
+    }
+
+    private static MockHttpServletRequest requestWithCookie(String value) {
+        var request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(CookieUserAuthentication.COOKIE_NAME, value));
+        return request;
+    }
+
+    @Test
+    public void whenLoginThenNextRequestGetsUserWithoutSession() {
+        var authentication = new CookieUserAuthentication(SECRET, Duration.ofHours(1), false);
+        var value = login(authentication, new User(7, "mail@mail.com", "Иван: программист", "password"));
+        var request = requestWithCookie(value);
+
+        var principal = authentication.getPrincipal(request);
+
+        assertThat(principal).contains(new UserPrincipal(7, "Иван: программист"));
+        assertThat(request.getSession(false)).isNull();
+    }
+
+    @Test
+    public void whenCookieIsTamperedOrSignedWithOtherKeyThenNoUser() {
+        var authentication = new CookieUserAuthentication(SECRET, Duration.ofHours(1), false);
+        var value = login(authentication, new User(7, "mail@mail.com", "name", "password"));
+        var forged = login(authentication, new User(8, "mail@mail.com", "name", "password"));
+        var otherKey = new CookieUserAuthentication(SECRET.toUpperCase(), Duration.ofHours(1), false);
+
+        var swappedPayload = forged.substring(0, forged.indexOf('.')) + value.substring(value.indexOf('.'));
+
+        assertThat(authentication.getPrincipal(requestWithCookie(swappedPayload))).isEmpty();
+        assertThat(authentication.getPrincipal(requestWithCookie("garbage"))).isEmpty();
+        assertThat(authentication.getPrincipal(requestWithCookie("a.b.c"))).isEmpty();
+        assertThat(otherKey.getPrincipal(requestWithCookie(value))).isEmpty();
+        assertThat(authentication.getPrincipal(new MockHttpServletRequest())).isEmpty();
+    }
+
+    @Test
+    public void whenCookieExpiredThenNoUser() {
+        var authentication = new CookieUserAuthentication(SECRET, Duration.ofSeconds(-1), false);
+        var value = login(authentication, new User(7, "mail@mail.com", "name", "password"));
+
+        assertThat(authentication.getPrincipal(requestWithCookie(value))).isEmpty();
+    }
+
+    @Test
+    public void whenLogoutThenCookieIsCleared() {
+        var authentication = new CookieUserAuthentication(SECRET, Duration.ofHours(1), false);
+        var response = new MockHttpServletResponse();
+
+        authentication.logout(new MockHttpServletRequest(), response);
+
+        assertThat(response.getHeader(HttpHeaders.SET_COOKIE))
+                .startsWith(CookieUserAuthentication.COOKIE_NAME + "=;").contains("Max-Age=0");
+    }
+
+    @Test
+    public void whenSecretIsTooShortThenFailOnStart() {
+        assertThatThrownBy(() -> new CookieUserAuthentication("short", Duration.ofHours(1), false))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+}
@@ -0,0 +1,92 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FileReaperTest {
+
+    private FileService fileService;
+
+    private FileReaper fileReaper;
+
+    @BeforeEach
+    public void initServices() {
+        fileService = mock(FileService.class);
+        fileReaper = new FileReaper(fileService, Optional.empty(), 2, Duration.ofHours(1));
+    }
+
+    @Test
+    public void whenReapThenDeleteQueuedFilesInBatches() {
+        fileReaper.enqueue(1);
+        fileReaper.enqueue(2);
+        fileReaper.enqueue(3);
+
+        fileReaper.reap();
+
+        verify(fileService).deleteAllById(List.of(1, 2));
+        verify(fileService).deleteAllById(List.of(3));
+        assertThat(fileReaper.getQueueSize()).isZero();
+        assertThat(fileReaper.getReleasedCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void whenBatchFailsThenDropItAndContinue() {
+        doThrow(new RuntimeException("db is down")).when(fileService).deleteAllById(List.of(1, 2));
+        fileReaper.enqueue(1);
+        fileReaper.enqueue(2);
+        fileReaper.enqueue(3);
+
+        fileReaper.reap();
+
+        verify(fileService).deleteAllById(List.of(3));
+        assertThat(fileReaper.getQueueSize()).isZero();
+        assertThat(fileReaper.getReleasedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenSweepThenRepeatUntilBatchIsNotFull() {
+        when(fileService.deleteUnreferenced(any(LocalDateTime.class), anyInt()))
+                .thenReturn(List.of(1, 2)).thenReturn(List.of(3));
+        when(fileService.deleteUntracked(any(LocalDateTime.class))).thenReturn(4);
+
+        fileReaper.sweep();
+
+        verify(fileService, times(2)).deleteUnreferenced(any(LocalDateTime.class), anyInt());
+        verify(fileService, times(0)).deleteAllById(anyList());
+        assertThat(fileReaper.getUnreferencedCount()).isEqualTo(3);
+        assertThat(fileReaper.getUntrackedCount()).isEqualTo(4);
+    }
+
+    @Test
+    public void whenEnqueueInTransactionThenQueueAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            fileReaper.enqueue(1);
+            var sizeBeforeCommit = fileReaper.getQueueSize();
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+
+            assertThat(sizeBeforeCommit).isZero();
+            assertThat(fileReaper.getQueueSize()).isEqualTo(1);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+}
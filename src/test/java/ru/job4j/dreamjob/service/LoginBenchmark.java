@@ -0,0 +1,91 @@
+package ru.job4j.dreamjob.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.job4j.dreamjob.model.User;
+import ru.job4j.dreamjob.repository.UserRepository;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/* Пропускная способность и задержка входа при разном числе итераций PBKDF2 и размере пула проверок.
+Вход идет из 4 потоков, как одновременные запросы Tomcat; пользователь читается из памяти,
+чтобы в замер попала только проверка пароля и ожидание пула. SampleTime показывает перцентили задержки.
+Запуск: mvn -B test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+-Dexec.args="-cp %classpath org.openjdk.jmh.Main LoginBenchmark" */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Threads(4)
+@Fork(1)
+public class LoginBenchmark {
+
+    private static final String EMAIL = "mail@mail.com";
+
+    private static final String PASSWORD = "password";
+
+    @Param({"100000", "310000", "600000"})
+    private int iterations;
+
+    @Param({"1", "2"})
+    private int threads;
+
+    private SimpleUserService userService;
+
+    @Setup(Level.Trial)
+    public void initService() {
+        var passwordHasher = new PasswordHasher(iterations);
+        var user = new User(1, EMAIL, "name", passwordHasher.hash(PASSWORD));
+        userService = new SimpleUserService(new UserRepository() {
+            @Override
+            public Optional<User> save(User user) {
+                return Optional.of(user);
+            }
+
+            @Override
+            public Optional<User> findByEmail(String email) {
+                return EMAIL.equals(email) ? Optional.of(user) : Optional.empty();
+            }
+
+            @Override
+            public Optional<User> findById(int id) {
+                return Optional.of(user);
+            }
+
+            @Override
+            public boolean updatePassword(int id, String password) {
+                return false;
+            }
+        }, passwordHasher, threads, 32);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeService() {
+        userService.close();
+    }
+
+    @Benchmark
+    public Optional<User> login() {
+        return userService.findByEmailAndPassword(EMAIL, PASSWORD);
+    }
+
+    @Benchmark
+    public Optional<User> loginWithWrongPassword() {
+        return userService.findByEmailAndPassword(EMAIL, "wrong");
+    }
+
+}
@@ -0,0 +1,86 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.repository.FileRepository;
+import ru.job4j.dreamjob.repository.MemoryFileRepository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PackFileServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private FileRepository fileRepository;
+
+    private PackFileService packFileService;
+
+    @BeforeEach
+    public void initServices() {
+        fileRepository = new MemoryFileRepository();
+        packFileService = new PackFileService(fileRepository, directory.toString(), directory.resolve("packs").toString(),
+                DataSize.ofBytes(10), DataSize.ofBytes(8), 0.5, Duration.ZERO, true);
+    }
+
+    @AfterEach
+    public void closeService() throws Exception {
+        packFileService.close();
+    }
+
+    @Test
+    public void whenSaveFilesThenAppendToSegmentsAndReadBack() throws Exception {
+        var first = packFileService.save(new FileDto("first.jpg", new byte[] {1, 2, 3, 4, 5}));
+        var second = packFileService.save(new FileDto("second.jpg", new byte[] {6, 7, 8, 9, 10}));
+
+        assertThat(first.getSegmentId()).isEqualTo(1);
+        assertThat(second.getSegmentId()).isEqualTo(2);
+        assertThat(packFileService.getResourceById(first.getId()).get().getInputStream().readAllBytes())
+                .isEqualTo(new byte[] {1, 2, 3, 4, 5});
+        var secondResource = packFileService.getResourceById(second.getId()).get();
+        assertThat(secondResource.getFilename()).isEqualTo("second.jpg");
+        assertThat(secondResource.getInputStream().readAllBytes()).isEqualTo(new byte[] {6, 7, 8, 9, 10});
+    }
+
+    @Test
+    public void whenSaveSameContentTwiceThenStoreItOnce() {
+        var first = packFileService.save(new FileDto("first.jpg", new byte[] {1, 2, 3}));
+        var second = packFileService.save(new FileDto("second.jpg", new byte[] {1, 2, 3}));
+
+        assertThat(second.getId()).isEqualTo(first.getId());
+        assertThat(fileRepository.findById(first.getId()).get().getReferenceCount()).isEqualTo(2);
+        assertThat(packFileService.deleteById(first.getId())).isTrue();
+        assertThat(packFileService.getResourceById(first.getId())).isPresent();
+        assertThat(packFileService.deleteById(first.getId())).isTrue();
+        assertThat(packFileService.getResourceById(first.getId())).isEmpty();
+    }
+
+    @Test
+    public void whenCompactThenDeleteEmptySegmentsAndMoveLiveFiles() throws Exception {
+        var first = packFileService.save(new FileDto("first.jpg", new byte[] {1, 2}));
+        var deleted = packFileService.save(new FileDto("deleted.jpg", new byte[] {3, 4, 5, 6, 7, 8}));
+        var alone = packFileService.save(new FileDto("alone.jpg", new byte[] {9, 9, 9, 9, 9, 9, 9}));
+        packFileService.save(new FileDto("active.jpg", new byte[] {10, 10, 10, 10, 10, 10, 10, 10}));
+        packFileService.deleteById(deleted.getId());
+        packFileService.deleteById(alone.getId());
+
+        packFileService.compact();
+
+        var packs = directory.resolve("packs");
+        assertThat(Files.exists(packs.resolve("segment-000001.pack"))).isFalse();
+        assertThat(Files.exists(packs.resolve("segment-000002.pack"))).isFalse();
+        var moved = fileRepository.findById(first.getId()).get();
+        assertThat(moved.getSegmentId()).isEqualTo(4);
+        assertThat(packFileService.getResourceById(first.getId()).get().getInputStream().readAllBytes())
+                .isEqualTo(new byte[] {1, 2});
+    }
+
+}
@@ -0,0 +1,53 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PasswordHasherTest {
+
+    private final PasswordHasher passwordHasher = new PasswordHasher(1000);
+
+    @Test
+    public void whenHashThenMatchOnlySamePassword() {
+        var hash = passwordHasher.hash("password");
+
+        assertThat(hash).startsWith("pbkdf2_sha256$1000$").doesNotContain("password");
+        assertThat(passwordHasher.matches("password", hash)).isTrue();
+        assertThat(passwordHasher.matches("Password", hash)).isFalse();
+        assertThat(passwordHasher.needsRehash(hash)).isFalse();
+    }
+
+    @Test
+    public void whenHashTwiceThenSaltsDiffer() {
+        assertThat(passwordHasher.hash("password")).isNotEqualTo(passwordHasher.hash("password"));
+    }
+
+    @Test
+    public void whenIterationsIncreasedThenOldHashMatchesAndNeedsRehash() {
+        var oldHash = new PasswordHasher(500).hash("password");
+
+        assertThat(passwordHasher.matches("password", oldHash)).isTrue();
+        assertThat(passwordHasher.needsRehash(oldHash)).isTrue();
+    }
+
+    @Test
+    public void whenPlainTextThenMatchAndNeedsRehash() {
+        assertThat(passwordHasher.matches("password", "password")).isTrue();
+        assertThat(passwordHasher.matches("other", "password")).isFalse();
+        assertThat(passwordHasher.needsRehash("password")).isTrue();
+    }
+
+    @Test
+    public void whenHashIsCorruptThenDoNotMatch() {
+        var hash = passwordHasher.hash("password");
+        var parts = hash.split("\\$");
+
+        assertThat(passwordHasher.matches("password", "pbkdf2_sha256$many$" + parts[2] + "$" + parts[3])).isFalse();
+        assertThat(passwordHasher.matches("password", "pbkdf2_sha256$0$" + parts[2] + "$" + parts[3])).isFalse();
+        assertThat(passwordHasher.matches("password", "pbkdf2_sha256$1000$not*base64$" + parts[3])).isFalse();
+        assertThat(passwordHasher.matches("password", "pbkdf2_sha256$1000$" + parts[2])).isFalse();
+        assertThat(passwordHasher.needsRehash("pbkdf2_sha256$many$" + parts[2] + "$" + parts[3])).isTrue();
+    }
+
+}
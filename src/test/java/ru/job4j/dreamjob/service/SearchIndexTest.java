@@ -0,0 +1,58 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchIndexTest {
+
+    @Test
+    public void whenTokenizeThenLowerCaseStemAndDropStopWords() {
+        assertThat(Tokenizer.tokenize("Ищем Java-разработчиков для удалённой работы"))
+                .isEqualTo(List.of("ищем", "java", "разработчик", "удаленн", "работ"));
+        assertThat(Tokenizer.tokenize("Senior developers and QA engineers, C++"))
+                .isEqualTo(List.of("senior", "developer", "qa", "engineer", "c"));
+    }
+
+    @Test
+    public void whenSearchThenRankByBm25WithTitleAboveDescription() {
+        var index = new SearchIndex();
+        index.put(1, "Менеджер", "Ищем менеджера, знание Java будет плюсом");
+        index.put(2, "Java-разработчик", "Spring, sql2o, PostgreSQL");
+        index.put(3, "Тестировщик", "Автотесты на Python");
+
+        assertThat(index.search("java разработчики", 10)).isEqualTo(List.of(2, 1));
+        assertThat(index.search("python", 10)).isEqualTo(List.of(3));
+        assertThat(index.search("golang", 10)).isEmpty();
+        assertThat(index.search("и на", 10)).isEmpty();
+    }
+
+    @Test
+    public void whenScoresAreEqualThenNewerFirstAndLimitApplied() {
+        var index = new SearchIndex();
+        index.put(1, "Java", "");
+        index.put(2, "Java", "");
+        index.put(3, "Java", "");
+
+        assertThat(index.search("java", 2)).isEqualTo(List.of(3, 2));
+    }
+
+    @Test
+    public void whenUpdateAndRemoveThenOldTermsAreNotFound() {
+        var index = new SearchIndex();
+        index.put(1, "Java", "Spring");
+        index.put(2, "Kotlin", "Spring");
+
+        index.put(1, "Go", "gRPC");
+        index.remove(2);
+        index.put(3, "Scala", "Spring");
+
+        assertThat(index.search("java", 10)).isEmpty();
+        assertThat(index.search("spring", 10)).isEqualTo(List.of(3));
+        assertThat(index.search("go", 10)).isEqualTo(List.of(1));
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+}
@@ -0,0 +1,138 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.repository.MemoryFileRepository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardedStorageMigrationTest {
+
+    @TempDir
+    Path directory;
+
+    private PausingFileRepository fileRepository;
+
+    private SimpleFileService fileService;
+
+    private ShardedStorageMigration migration;
+
+    /* репозиторий, как и БД, отдает копии записей, а запись новых путей ждет, пока тест не разрешит ее */
+    private static class PausingFileRepository extends MemoryFileRepository {
+
+        private final CountDownLatch moved = new CountDownLatch(1);
+
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public Collection<File> findAllAfter(int id, int limit) {
+            return super.findAllAfter(id, limit).stream()
+                    .map(file -> new File(file.getId(), file.getName(), file.getPath(), file.getSize(), file.getHash(),
+                            file.getReferenceCount(), file.getSegmentId(), file.getSegmentOffset(), file.getReferencedAt()))
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public void updatePaths(Collection<File> updatedFiles) {
+            moved.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.updatePaths(updatedFiles);
+        }
+
+    }
+
+    @BeforeEach
+    public void initServices() throws Exception {
+        fileRepository = new PausingFileRepository();
+        fileService = new SimpleFileService(fileRepository, directory.toString(), DataSize.ofKilobytes(1), false);
+        migration = new ShardedStorageMigration(fileRepository, directory.toString(), 10);
+        var old = FileTime.from(Instant.now().minus(Duration.ofHours(2)));
+        for (var name : List.of("aabbcc.jpg", "ddeeff.png")) {
+            var path = directory.resolve(name);
+            Files.write(path, new byte[] {1, 2, 3});
+            Files.setLastModifiedTime(path, old);
+            fileRepository.save(new File(name, path.toString(), 3, "hash"));
+        }
+    }
+
+    private List<Path> getStoredPaths() {
+        return fileRepository.findAllAfter(0, 10).stream().map(file -> Path.of(file.getPath())).collect(Collectors.toList());
+    }
+
+    @Test
+    public void whenSweepRunsDuringMigrationThenPostponeIt() throws Exception {
+        var fileReaper = new FileReaper(fileService, Optional.of(migration), 10, Duration.ofHours(1));
+
+        var migrating = CompletableFuture.supplyAsync(() -> {
+            try {
+                return migration.migrate();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertThat(fileRepository.moved.await(5, TimeUnit.SECONDS)).isTrue();
+        fileReaper.sweep();
+        fileRepository.release.countDown();
+
+        assertThat(migrating.get(5, TimeUnit.SECONDS)).isEqualTo(2);
+        assertThat(fileReaper.getUntrackedCount()).isZero();
+        assertThat(getStoredPaths()).allMatch(Files::exists)
+                .contains(Path.of(directory.toString(), "aa", "bb", "aabbcc.jpg"));
+    }
+
+    @Test
+    public void whenDeleteUntrackedDuringMigrationThenKeepJustMovedFiles() throws Exception {
+        var migrating = CompletableFuture.supplyAsync(() -> {
+            try {
+                return migration.migrate();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertThat(fileRepository.moved.await(5, TimeUnit.SECONDS)).isTrue();
+        var deleted = fileService.deleteUntracked(LocalDateTime.now().minus(Duration.ofHours(1)));
+        fileRepository.release.countDown();
+
+        assertThat(migrating.get(5, TimeUnit.SECONDS)).isEqualTo(2);
+        assertThat(deleted).isZero();
+        assertThat(getStoredPaths()).allMatch(Files::exists);
+    }
+
+    @Test
+    public void whenMigrationCompletedThenSweepDeletesOnlyUntrackedFiles() throws Exception {
+        var untracked = directory.resolve("112233.jpg");
+        Files.write(untracked, new byte[] {1});
+        fileRepository.release.countDown();
+        migration.migrate();
+        var fileReaper = new FileReaper(fileService, Optional.of(migration), 10, Duration.ZERO);
+        Thread.sleep(20);
+
+        fileReaper.sweep();
+
+        assertThat(fileReaper.getUntrackedCount()).isEqualTo(1);
+        assertThat(Files.exists(untracked)).isFalse();
+        assertThat(getStoredPaths()).allMatch(Files::exists);
+    }
+
+}
@@ -0,0 +1,111 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.dreamjob.dto.ExportFormat;
+import ru.job4j.dreamjob.dto.ImportFormat;
+import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.repository.CandidateRepository;
+import ru.job4j.dreamjob.repository.VacancyRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class SimpleExportServiceTest {
+
+    private static final LocalDateTime CREATION_DATE = LocalDateTime.of(2024, 1, 2, 3, 4);
+
+    private VacancyRepository vacancyRepository;
+
+    private CandidateRepository candidateRepository;
+
+    private SimpleExportService exportService;
+
+    @BeforeEach
+    public void initServices() {
+        vacancyRepository = mock(VacancyRepository.class);
+        candidateRepository = mock(CandidateRepository.class);
+        exportService = new SimpleExportService(vacancyRepository, candidateRepository, 2);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void whenForEachVacancy(Vacancy... vacancies) {
+        doAnswer(invocation -> {
+            Consumer<Vacancy> action = invocation.getArgument(1);
+            for (var vacancy : vacancies) {
+                action.accept(vacancy);
+            }
+            return null;
+        }).when(vacancyRepository).forEach(eq(2), any(Consumer.class));
+    }
+
+    @Test
+    public void whenExportCsvThenQuoteFieldsAndReadBackByImport() throws Exception {
+        whenForEachVacancy(new Vacancy(1, "Java", "Spring, \"sql2o\"\nremote", CREATION_DATE, true, 2, 0),
+                new Vacancy(2, "Go", "", CREATION_DATE, false, 1, 0));
+        var outputStream = new ByteArrayOutputStream();
+
+        var count = exportService.exportVacancies(outputStream, ExportFormat.CSV);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                id,title,description,creationDate,visible,cityId
+                1,Java,"Spring, ""sql2o""
+                remote",2024-01-02T03:04,true,2
+                2,Go,,2024-01-02T03:04,false,1
+                """);
+        var reader = RecordReader.open(new ByteArrayInputStream(outputStream.toByteArray()), ImportFormat.CSV);
+        assertThat(reader.next()).containsEntry("description", "Spring, \"sql2o\"\nremote");
+        assertThat(exportService.getVacancyCount()).isEqualTo(2);
+        assertThat(exportService.getActiveCount()).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void whenExportNdjsonThenOneObjectPerLine() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Candidate> action = invocation.getArgument(1);
+            action.accept(new Candidate(1, "Ivan", "Java \"senior\"", CREATION_DATE, true, 3, 0));
+            action.accept(new Candidate(2, "Petr", "Go", CREATION_DATE, false, 1, 0));
+            return null;
+        }).when(candidateRepository).forEach(eq(2), any(Consumer.class));
+        var outputStream = new ByteArrayOutputStream();
+
+        exportService.exportCandidates(outputStream, ExportFormat.NDJSON);
+
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                {"id":1,"name":"Ivan","description":"Java \\"senior\\"","creationDate":"2024-01-02T03:04","visible":true,"cityId":3}
+                {"id":2,"name":"Petr","description":"Go","creationDate":"2024-01-02T03:04","visible":false,"cityId":1}
+                """);
+        assertThat(exportService.getCandidateCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void whenClientDisconnectsThenStopAndRethrow() {
+        whenForEachVacancy(new Vacancy(1, "Java", "x".repeat(10000), CREATION_DATE, true, 1, 0));
+        var outputStream = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThatThrownBy(() -> exportService.exportVacancies(outputStream, ExportFormat.CSV))
+                .isInstanceOf(IOException.class).hasMessage("Broken pipe");
+        assertThat(exportService.getActiveCount()).isZero();
+    }
+
+}
@@ -0,0 +1,143 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.RenditionDto;
+import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.model.FileRendition;
+import ru.job4j.dreamjob.repository.FileRenditionRepository;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SimpleFileRenditionServiceTest {
+
+    private FileService fileService;
+
+    private FileRenditionRepository fileRenditionRepository;
+
+    private SimpleFileRenditionService fileRenditionService;
+
+    @BeforeEach
+    public void initServices() {
+        fileService = mock(FileService.class);
+        fileRenditionRepository = mock(FileRenditionRepository.class);
+        fileRenditionService = new SimpleFileRenditionService(fileService, fileRenditionRepository,
+                new int[] {320, 160}, 1, 1, Duration.ofSeconds(10), 10_000_000);
+    }
+
+    @AfterEach
+    public void closeService() {
+        fileRenditionService.close();
+    }
+
+    private Resource createImage(int width, int height) throws Exception {
+        var outputStream = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", outputStream);
+        return new ByteArrayResource(outputStream.toByteArray()) {
+            @Override
+            public String getFilename() {
+                return "photo.png";
+            }
+        };
+    }
+
+    @Test
+    public void whenRenditionNotCreatedYetThenCreateAndSaveIt() throws Exception {
+        var rendition = new ByteArrayResource(new byte[] {1});
+        when(fileRenditionRepository.findByFileIdAndWidth(1, 320)).thenReturn(Optional.empty());
+        when(fileService.getResourceById(1)).thenReturn(Optional.of(createImage(1000, 500)));
+        when(fileService.save(any(FileDto.class))).thenReturn(new File("photo-320.jpg", "files/photo-320.jpg"));
+        when(fileService.getResourceById(0)).thenReturn(Optional.of(rendition));
+        when(fileRenditionRepository.save(any(FileRendition.class))).then(invocation -> Optional.of(invocation.getArgument(0)));
+
+        var resource = fileRenditionService.getRenditionById(1, 200).map(RenditionDto::getResource);
+
+        var fileDtoCaptor = ArgumentCaptor.forClass(FileDto.class);
+        verify(fileService).save(fileDtoCaptor.capture());
+        var image = ImageIO.read(new ByteArrayInputStream(fileDtoCaptor.getValue().getContent()));
+        assertThat(fileDtoCaptor.getValue().getName()).isEqualTo("photo-320.jpg");
+        assertThat(image.getWidth()).isEqualTo(320);
+        assertThat(image.getHeight()).isEqualTo(160);
+        assertThat(resource).contains(rendition);
+        assertThat(fileRenditionService.getCreatedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenRenditionExistsThenServeItWithoutResizing() {
+        var rendition = new ByteArrayResource(new byte[] {1});
+        when(fileRenditionRepository.findByFileIdAndWidth(1, 160)).thenReturn(Optional.of(new FileRendition(1, 160, 7)));
+        when(fileService.getResourceById(7)).thenReturn(Optional.of(rendition));
+
+        assertThat(fileRenditionService.getRenditionById(1, 100).map(RenditionDto::getResource)).contains(rendition);
+        verify(fileService, never()).getResourceById(1);
+    }
+
+    @Test
+    public void whenImageIsNarrowOrNotImageThenServeOriginal() throws Exception {
+        var narrow = createImage(100, 100);
+        var text = new ByteArrayResource(new byte[] {1, 2, 3});
+        when(fileRenditionRepository.findByFileIdAndWidth(anyInt(), anyInt())).thenReturn(Optional.empty());
+        when(fileService.getResourceById(1)).thenReturn(Optional.of(narrow));
+        when(fileService.getResourceById(2)).thenReturn(Optional.of(text));
+        when(fileRenditionRepository.save(any(FileRendition.class))).then(invocation -> Optional.of(invocation.getArgument(0)));
+
+        var narrowRendition = fileRenditionService.getRenditionById(1, 320).get();
+        var textRendition = fileRenditionService.getRenditionById(2, 320).get();
+
+        assertThat(narrowRendition.getResource()).isEqualTo(narrow);
+        assertThat(narrowRendition.isFallback()).isFalse();
+        assertThat(textRendition.getResource()).isEqualTo(text);
+        verify(fileService, never()).save(any(FileDto.class));
+        var renditionCaptor = ArgumentCaptor.forClass(FileRendition.class);
+        verify(fileRenditionRepository, times(2)).save(renditionCaptor.capture());
+        assertThat(renditionCaptor.getAllValues()).extracting(FileRendition::getFileId, FileRendition::getRenditionFileId)
+                .containsExactly(tuple(1, 1), tuple(2, 2));
+    }
+
+    @Test
+    public void whenRenditionFailsThenServeOriginalAsFallback() throws Exception {
+        var image = createImage(1000, 500);
+        when(fileRenditionRepository.findByFileIdAndWidth(1, 320)).thenReturn(Optional.empty());
+        when(fileService.getResourceById(1)).thenReturn(Optional.of(image));
+        when(fileService.save(any(FileDto.class))).thenThrow(new IllegalStateException("disk is full"));
+
+        var rendition = fileRenditionService.getRenditionById(1, 320).get();
+
+        assertThat(rendition.getFileId()).isEqualTo(1);
+        assertThat(rendition.getResource()).isEqualTo(image);
+        assertThat(rendition.isFallback()).isTrue();
+        verify(fileRenditionRepository, never()).save(any(FileRendition.class));
+    }
+
+    @Test
+    public void whenOriginalIsRecordedAsRenditionThenServeItWithoutDecoding() {
+        var text = new ByteArrayResource(new byte[] {1, 2, 3});
+        when(fileRenditionRepository.findByFileIdAndWidth(2, 320)).thenReturn(Optional.of(new FileRendition(2, 320, 2)));
+        when(fileService.getResourceById(2)).thenReturn(Optional.of(text));
+
+        assertThat(fileRenditionService.getRenditionById(2, 320).map(RenditionDto::getResource)).contains(text);
+        verify(fileRenditionRepository, never()).save(any(FileRendition.class));
+        verify(fileService, times(1)).getResourceById(2);
+    }
+
+}
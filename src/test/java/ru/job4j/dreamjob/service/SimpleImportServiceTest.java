@@ -0,0 +1,126 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import ru.job4j.dreamjob.dto.ImportFormat;
+import ru.job4j.dreamjob.dto.ImportResult;
+import ru.job4j.dreamjob.model.City;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.repository.CandidateRepository;
+import ru.job4j.dreamjob.repository.VacancyRepository;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SimpleImportServiceTest {
+
+    private VacancyRepository vacancyRepository;
+
+    private SimpleImportService importService;
+
+    @BeforeEach
+    public void initServices() {
+        vacancyRepository = mock(VacancyRepository.class);
+        var cityService = mock(CityService.class);
+        when(cityService.findById(anyInt())).thenReturn(Optional.empty());
+        when(cityService.findById(1)).thenReturn(Optional.of(new City(1, "Москва")));
+        importService = new SimpleImportService(vacancyRepository, mock(CandidateRepository.class), cityService,
+                mock(SearchService.class), 2);
+    }
+
+    private ImportResult importVacancies(String content, ImportFormat format) {
+        var inputStream = new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+        return importService.importVacancies(inputStream, format);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> getSavedTitles() {
+        ArgumentCaptor<Collection<Vacancy>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(vacancyRepository, times(2)).saveAll(captor.capture());
+        return captor.getAllValues().stream()
+                .flatMap(Collection::stream)
+                .map(Vacancy::getTitle)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void whenImportCsvThenSaveValidRowsInChunksAndReportInvalid() {
+        var csv = """
+                title,description,creationDate,visible,cityId
+                Java Developer,"Spring, SQL",2023-05-22T17:20,true,1
+                ,no title,,,1
+                "Senior ""Java"" Developer","multi
+                line",,false,1
+                Kotlin Developer,description,yesterday,,1
+                Go Developer,description,,,5
+                Scala Developer,description,,,1
+                """;
+
+        var result = importVacancies(csv, ImportFormat.CSV);
+
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getErrors()).extracting(ImportResult.RowError::getRow).containsExactly(2, 4, 5);
+        assertThat(getSavedTitles()).containsExactly("Java Developer", "Senior \"Java\" Developer", "Scala Developer");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void whenImportJsonThenReadRecordsFromArray() {
+        var json = """
+                [{"title": "Java Developer", "description": "Spring", "creationDate": "2023-05-22T17:20", "cityId": 1},
+                 {"title": "Kotlin Developer", "description": "Ktor", "visible": false, "cityId": "1", "tags": ["a"]}]
+                """;
+        ArgumentCaptor<Collection<Vacancy>> captor = ArgumentCaptor.forClass(Collection.class);
+
+        var result = importVacancies(json, ImportFormat.JSON);
+
+        verify(vacancyRepository).saveAll(captor.capture());
+        var saved = List.copyOf(captor.getValue());
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getErrors()).isEmpty();
+        assertThat(saved.get(0).getCreationDate()).isEqualTo(LocalDateTime.of(2023, 5, 22, 17, 20));
+        assertThat(saved.get(1).getVisible()).isFalse();
+    }
+
+    @Test
+    public void whenChunkIsRejectedThenSaveRowsOneByOne() {
+        doThrow(new RuntimeException("batch failed")).when(vacancyRepository).saveAll(anyCollection());
+        doThrow(new RuntimeException("bad row")).when(vacancyRepository)
+                .save(argThat(vacancy -> "Bad".equals(vacancy.getTitle())));
+        var csv = "title,description,cityId\nGood,description,1\nBad,description,1\n";
+
+        var result = importVacancies(csv, ImportFormat.CSV);
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting(ImportResult.RowError::getRow).containsExactly(2);
+        verify(vacancyRepository, times(2)).save(any(Vacancy.class));
+    }
+
+    @Test
+    public void whenJsonIsBrokenThenKeepRecordsReadBeforeIt() {
+        var json = "[{\"title\": \"Java Developer\", \"description\": \"Spring\", \"cityId\": 1}, {\"title\": ";
+
+        var result = importVacancies(json, ImportFormat.JSON);
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting(ImportResult.RowError::getRow).containsExactly(2);
+    }
+
+}
@@ -0,0 +1,83 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.repository.CandidateRepository;
+import ru.job4j.dreamjob.repository.VacancyRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class SimpleSearchServiceTest {
+
+    private VacancyRepository vacancyRepository;
+
+    private CandidateRepository candidateRepository;
+
+    private SimpleSearchService searchService;
+
+    @BeforeEach
+    public void initServices() {
+        vacancyRepository = mock(VacancyRepository.class);
+        candidateRepository = mock(CandidateRepository.class);
+        searchService = new SimpleSearchService(vacancyRepository, candidateRepository, 100);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void whenRebuildThenIndexAllRowsFromDatabase() {
+        doAnswer(invocation -> {
+            Consumer<Vacancy> action = invocation.getArgument(1);
+            action.accept(new Vacancy(1, "Java", "Spring", LocalDateTime.now(), true, 1, 0));
+            action.accept(new Vacancy(2, "Go", "gRPC", LocalDateTime.now(), true, 1, 0));
+            return null;
+        }).when(vacancyRepository).forEach(eq(100), any(Consumer.class));
+        doAnswer(invocation -> {
+            Consumer<Candidate> action = invocation.getArgument(1);
+            action.accept(new Candidate(7, "Иван", "Java", LocalDateTime.now(), true, 1, 0));
+            return null;
+        }).when(candidateRepository).forEach(eq(100), any(Consumer.class));
+
+        searchService.rebuild();
+
+        assertThat(searchService.searchVacancies("spring", 10)).isEqualTo(List.of(1));
+        assertThat(searchService.searchCandidates("java", 10)).isEqualTo(List.of(7));
+        assertThat(searchService.getVacancyCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void whenIndexInTransactionThenSearchableAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            searchService.indexVacancy(new Vacancy(1, "Java", "Spring", LocalDateTime.now(), true, 1, 0));
+            var foundBeforeCommit = searchService.searchVacancies("java", 10);
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+
+            assertThat(foundBeforeCommit).isEmpty();
+            assertThat(searchService.searchVacancies("java", 10)).isEqualTo(List.of(1));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void whenRemoveThenNotFound() {
+        searchService.indexCandidate(new Candidate(1, "Петр", "Kotlin", LocalDateTime.now(), true, 1, 0));
+
+        searchService.removeCandidate(1);
+
+        assertThat(searchService.searchCandidates("kotlin", 10)).isEmpty();
+    }
+
+}
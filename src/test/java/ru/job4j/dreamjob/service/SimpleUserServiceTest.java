@@ -0,0 +1,150 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import ru.job4j.dreamjob.model.User;
+import ru.job4j.dreamjob.repository.UserRepository;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SimpleUserServiceTest {
+
+    private UserRepository userRepository;
+
+    private PasswordHasher passwordHasher;
+
+    private SimpleUserService userService;
+
+    @BeforeEach
+    public void initServices() {
+        userRepository = mock(UserRepository.class);
+        passwordHasher = new PasswordHasher(1000);
+        userService = new SimpleUserService(userRepository, passwordHasher, 1, 1);
+    }
+
+    @AfterEach
+    public void closeService() {
+        userService.close();
+    }
+
+    @Test
+    public void whenSaveThenStoreHash() {
+        var userCaptor = ArgumentCaptor.forClass(User.class);
+        when(userRepository.save(userCaptor.capture())).thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+
+        userService.save(new User("mail@mail.com", "name", "password"));
+        var saved = userCaptor.getValue();
+
+        assertThat(saved.getEmail()).isEqualTo("mail@mail.com");
+        assertThat(saved.getPassword()).isNotEqualTo("password");
+        assertThat(passwordHasher.matches("password", saved.getPassword())).isTrue();
+    }
+
+    @Test
+    public void whenPasswordMatchesThenFindUserWithoutRehash() {
+        var hash = passwordHasher.hash("password");
+        when(userRepository.findByEmail("mail@mail.com")).thenReturn(Optional.of(new User(1, "mail@mail.com", "name", hash)));
+
+        var found = userService.findByEmailAndPassword("mail@mail.com", "password");
+
+        assertThat(found.get().getId()).isEqualTo(1);
+        assertThat(userService.getMatchedCount()).isEqualTo(1);
+        verify(userRepository, never()).updatePassword(anyInt(), anyString());
+    }
+
+    @Test
+    public void whenPasswordDoesNotMatchOrUserIsUnknownThenEmpty() {
+        var hash = passwordHasher.hash("password");
+        when(userRepository.findByEmail("mail@mail.com")).thenReturn(Optional.of(new User(1, "mail@mail.com", "name", hash)));
+        when(userRepository.findByEmail("unknown@mail.com")).thenReturn(Optional.empty());
+
+        assertThat(userService.findByEmailAndPassword("mail@mail.com", "other")).isEmpty();
+        assertThat(userService.findByEmailAndPassword("unknown@mail.com", "password")).isEmpty();
+        assertThat(userService.getMismatchedCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void whenStoredHashIsCorruptThenLoginFails() {
+        when(userRepository.findByEmail("mail@mail.com"))
+                .thenReturn(Optional.of(new User(1, "mail@mail.com", "name", "pbkdf2_sha256$many$salt$hash")));
+
+        assertThat(userService.findByEmailAndPassword("mail@mail.com", "password")).isEmpty();
+        assertThat(userService.getMismatchedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenStoredInPlainTextThenRehashOnLogin() {
+        when(userRepository.findByEmail("mail@mail.com")).thenReturn(Optional.of(new User(1, "mail@mail.com", "name", "password")));
+        var hashCaptor = ArgumentCaptor.forClass(String.class);
+        when(userRepository.updatePassword(any(Integer.class), hashCaptor.capture())).thenReturn(true);
+
+        var found = userService.findByEmailAndPassword("mail@mail.com", "password");
+
+        assertThat(passwordHasher.matches("password", hashCaptor.getValue())).isTrue();
+        assertThat(passwordHasher.needsRehash(hashCaptor.getValue())).isFalse();
+        assertThat(found.get().getPassword()).isEqualTo(hashCaptor.getValue());
+        assertThat(userService.getRehashedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenHashedWithFewerIterationsThenRehashOnLogin() {
+        var oldHash = new PasswordHasher(500).hash("password");
+        when(userRepository.findByEmail("mail@mail.com")).thenReturn(Optional.of(new User(1, "mail@mail.com", "name", oldHash)));
+        var hashCaptor = ArgumentCaptor.forClass(String.class);
+        when(userRepository.updatePassword(any(Integer.class), hashCaptor.capture())).thenReturn(true);
+
+        userService.findByEmailAndPassword("mail@mail.com", "password");
+
+        assertThat(hashCaptor.getValue()).startsWith("pbkdf2_sha256$1000$");
+    }
+
+    @Test
+    public void whenQueueIsFullThenReject() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var blockingHasher = mock(PasswordHasher.class);
+        when(blockingHasher.hash(anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "hash";
+        });
+        when(userRepository.save(any())).thenReturn(Optional.empty());
+        var busyService = new SimpleUserService(userRepository, blockingHasher, 1, 1);
+        try {
+            var running = CompletableFuture.runAsync(() -> busyService.save(new User("1@mail.com", "name", "password")));
+            started.await(5, TimeUnit.SECONDS);
+            var queued = CompletableFuture.runAsync(() -> busyService.save(new User("2@mail.com", "name", "password")));
+            var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (busyService.getQueueSize() == 0 && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+
+            assertThatThrownBy(() -> busyService.save(new User("3@mail.com", "name", "password")))
+                    .isInstanceOf(RejectedExecutionException.class);
+            assertThat(busyService.getRejectedCount()).isEqualTo(1);
+            release.countDown();
+            running.get(5, TimeUnit.SECONDS);
+            queued.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            busyService.close();
+        }
+    }
+
+}
@@ -0,0 +1,142 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import org.sql2o.Sql2o;
+import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.repository.Sql2oFileRepository;
+import ru.job4j.dreamjob.repository.Sql2oVacancyRepository;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class SimpleVacancyServiceTest {
+
+    private static Sql2o sql2o;
+
+    @TempDir
+    Path directory;
+
+    private Sql2oFileRepository fileRepository;
+
+    private SimpleFileService fileService;
+
+    private FileReaper fileReaper;
+
+    private SimpleVacancyService vacancyService;
+
+    /* findById отдает запись в том виде, в каком впервые ее прочитал, как отставшая реплика или кеш */
+    private static class StaleVacancyRepository extends Sql2oVacancyRepository {
+
+        private final Map<Integer, Vacancy> read = new HashMap<>();
+
+        StaleVacancyRepository(Sql2o sql2o) {
+            super(sql2o);
+        }
+
+        @Override
+        public Optional<Vacancy> findById(int id) {
+            if (read.containsKey(id)) {
+                return Optional.of(read.get(id));
+            }
+            var vacancyOptional = super.findById(id);
+            vacancyOptional.ifPresent(vacancy -> read.put(id, vacancy));
+            return vacancyOptional;
+        }
+
+    }
+
+    @BeforeAll
+    public static void initDatabase() throws Exception {
+        var properties = new Properties();
+        try (var inputStream = SimpleVacancyServiceTest.class.getClassLoader().getResourceAsStream("connection.properties")) {
+            properties.load(inputStream);
+        }
+        var configuration = new DatasourceConfiguration();
+        var datasource = configuration.connectionPool(properties.getProperty("datasource.url"),
+                properties.getProperty("datasource.username"), properties.getProperty("datasource.password"));
+        sql2o = configuration.databaseClient(datasource);
+    }
+
+    @BeforeEach
+    public void initServices() {
+        fileRepository = new Sql2oFileRepository(sql2o);
+        fileService = new SimpleFileService(fileRepository, directory.toString(), DataSize.ofKilobytes(1), true);
+        fileReaper = new FileReaper(fileService, Optional.empty(), 100, Duration.ofHours(1));
+        vacancyService = new SimpleVacancyService(new StaleVacancyRepository(sql2o), fileService, fileReaper,
+                mock(SearchService.class), mock(CityService.class));
+    }
+
+    @AfterEach
+    public void clearVacancies() {
+        var vacancyRepository = new Sql2oVacancyRepository(sql2o);
+        for (var vacancy : vacancyRepository.findAll()) {
+            vacancyRepository.deleteById(vacancy.getId());
+        }
+        for (var file : fileRepository.findAllAfter(0, 100)) {
+            fileRepository.deleteById(file.getId());
+        }
+    }
+
+    private Vacancy save(String title) {
+        var vacancy = new Vacancy(0, title, "description", LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES), true, 1, 0);
+        return vacancyService.save(vacancy, new FileDto("logo.png", new byte[] {1, 2, 3}));
+    }
+
+    @Test
+    public void whenDeleteTwiceThenSharedFileSurvives() {
+        var first = save("first");
+        var second = save("second");
+        assertThat(second.getFileId()).isEqualTo(first.getFileId());
+
+        assertThat(vacancyService.deleteById(first.getId())).isTrue();
+        assertThat(vacancyService.deleteById(first.getId())).isFalse();
+        fileReaper.reap();
+
+        assertThat(fileReaper.getReleasedCount()).isEqualTo(1);
+        assertThat(fileService.getResourceById(second.getFileId())).isPresent();
+    }
+
+    /* вторая вкладка с формой, открытой до первого изменения, передает уже замененный file_id */
+    @Test
+    public void whenUpdateWithStaleFileIdThenReleaseReplacedFile() {
+        var first = save("first");
+        var second = save("second");
+        var staleForm = new Vacancy(first.getId(), "title", "description", first.getCreationDate(), true, 1, first.getFileId());
+        vacancyService.update(first, new FileDto("new.png", new byte[] {4, 5, 6}));
+        var replacedFileId = first.getFileId();
+
+        assertThat(vacancyService.update(staleForm, new FileDto("newer.png", new byte[] {7, 8, 9}))).isTrue();
+        fileReaper.reap();
+
+        assertThat(fileService.getResourceById(replacedFileId)).isEmpty();
+        assertThat(fileService.getResourceById(second.getFileId())).isPresent();
+    }
+
+    @Test
+    public void whenUpdateWithoutFileThenKeepFileFromDatabase() {
+        var vacancy = save("title");
+        var fileId = vacancy.getFileId();
+        var form = new Vacancy(vacancy.getId(), "new title", "description", vacancy.getCreationDate(), true, 1, 0);
+
+        assertThat(vacancyService.update(form, new FileDto("", new byte[0]))).isTrue();
+
+        assertThat(new Sql2oVacancyRepository(sql2o).findById(vacancy.getId()).get().getFileId()).isEqualTo(fileId);
+    }
+
+}